@@ -0,0 +1,197 @@
+package com.example.ayush.theguardiannews;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.text.Html;
+import android.text.Spanned;
+import android.text.method.LinkMovementMethod;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
+
+import java.io.IOException;
+
+/**
+ * Reading screen for a single article, in place of opening its page in the browser.
+ * <p>
+ * The body was most likely prefetched while the list was at rest, see {@link ArticleBodies},
+ * in which case it renders without going to the network at all.
+ */
+public class ArticleActivity extends AppCompatActivity {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleActivity.class.getSimpleName();
+
+    private static final String EXTRA_ID = "id";
+    private static final String EXTRA_TITLE = "title";
+    private static final String EXTRA_AUTHOR = "author";
+    private static final String EXTRA_URL = "url";
+
+    /**
+     * Slot of the body job in our {@link FetchEngine.Scope}.
+     */
+    private static final String BODY = "body";
+
+    private String mId;
+    private String mUrl;
+
+    private TextView mBodyTextView;
+    private View mLoadingIndicator;
+
+    private FetchEngine.Scope mScope;
+
+    /**
+     * Body job we are subscribed to, null if the body was cached
+     */
+    private FetchEngine.Job<String> mBodyJob;
+
+    /**
+     * When the article was opened, or 0 if it was shown before a rotation.
+     */
+    private long mOpenStartNanos;
+
+    private final FetchEngine.Observer<String> mBodyObserver = new FetchEngine.Observer<String>() {
+        @Override
+        public void onNext(String body) {
+            mLoadingIndicator.setVisibility(View.GONE);
+            if (body == null) {
+                mBodyTextView.setText(R.string.article_not_loaded);
+            } else {
+                showBody(body);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    };
+
+    /**
+     * Returns the intent opening the given article.
+     */
+    public static Intent newIntent(Context context, News news) {
+        Intent intent = new Intent(context, ArticleActivity.class);
+        intent.putExtra(EXTRA_ID, news.getId());
+        intent.putExtra(EXTRA_TITLE, news.getTitle());
+        intent.putExtra(EXTRA_AUTHOR, news.getAuthor());
+        intent.putExtra(EXTRA_URL, news.getUrl());
+        return intent;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_article);
+
+        mId = getIntent().getStringExtra(EXTRA_ID);
+        mUrl = getIntent().getStringExtra(EXTRA_URL);
+
+        TextView titleTextView = (TextView) findViewById(R.id.article_title);
+        titleTextView.setText(getIntent().getStringExtra(EXTRA_TITLE));
+        TextView authorTextView = (TextView) findViewById(R.id.author_name);
+        String author = getIntent().getStringExtra(EXTRA_AUTHOR);
+        authorTextView.setText(author.isEmpty() ? getString(R.string.by_anonymous) : author);
+
+        mBodyTextView = (TextView) findViewById(R.id.article_body);
+        mBodyTextView.setMovementMethod(LinkMovementMethod.getInstance());
+        mLoadingIndicator = findViewById(R.id.loading_indicator);
+
+        ArticleBodies bodies = ArticleBodies.getInstance(this);
+        String body;
+        if (savedInstanceState == null) {
+            // Only a fresh open counts towards the hit ratio, not a rotation.
+            mOpenStartNanos = System.nanoTime();
+            body = bodies.open(mId);
+        } else {
+            body = bodies.peek(mId);
+        }
+        if (body != null) {
+            showBody(body);
+            return;
+        }
+
+        mScope = FetchEngine.getInstance().scope(ArticleActivity.class.getName());
+        FetchEngine.Job<String> job = mScope.get(BODY);
+        if (job == null || !mId.equals(job.getKey())) {
+            job = mScope.start(BODY, mId, new BodyTask(bodies, mId));
+        }
+        mBodyJob = job;
+        mLoadingIndicator.setVisibility(View.VISIBLE);
+        job.subscribe(mBodyObserver);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mBodyJob != null) {
+            mBodyJob.unsubscribe(mBodyObserver);
+        }
+        if (mScope != null && isFinishing()) {
+            mScope.close();
+        }
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_article, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_open_in_browser) {
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(mUrl)));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void showBody(String body) {
+        mBodyTextView.setText(fromHtml(body));
+        if (mOpenStartNanos != 0) {
+            Metrics.recordSince(Metrics.ARTICLE_OPEN, mOpenStartNanos);
+            mOpenStartNanos = 0;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Spanned fromHtml(String html) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return Html.fromHtml(html, Html.FROM_HTML_MODE_COMPACT);
+        }
+        return Html.fromHtml(html);
+    }
+
+    /**
+     * Fetches the body of an article that wasn't prefetched; emits null if it can't.
+     */
+    private static class BodyTask implements FetchEngine.Task<String> {
+
+        private final ArticleBodies mBodies;
+        private final String mId;
+
+        BodyTask(ArticleBodies bodies, String id) {
+            mBodies = bodies;
+            mId = id;
+        }
+
+        @Override
+        public void run(FetchEngine.Emitter<String> emitter) {
+            try {
+                emitter.emit(mBodies.fetch(mId));
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem loading the article " + mId, e);
+                emitter.emit(null);
+            }
+        }
+    }
+
+}
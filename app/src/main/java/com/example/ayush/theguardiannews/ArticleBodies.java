@@ -0,0 +1,249 @@
+package com.example.ayush.theguardiannews;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bodies of the articles opened in {@link ArticleActivity}.
+ * <p>
+ * {@link ArticlePrefetcher} asks for the bodies of the articles on screen whenever the list
+ * comes to rest, so opening one of them renders straight from the {@link ArticleBodyCache}.
+ * Prefetching only happens on unmetered networks and within a byte budget per hour, one
+ * article at a time on a thread of its own and through {@link QueryUtils#getBackground()},
+ * so it never holds up a {@link FetchEngine} load nor spends its rate limit.
+ * Every body fetched is handed to the search index as well once a search has built it,
+ * see {@link ArticleIndex#putBody}.
+ */
+public final class ArticleBodies {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleBodies.class.getSimpleName();
+
+    /**
+     * Upper bound on the length of the cached bodies, about 2MB of chars. A long read is
+     * around 40k chars, most articles a lot less.
+     */
+    private static final int CACHE_CHARS = 1024 * 1024;
+
+    /**
+     * Bytes prefetching may spend per {@link #BUDGET_WINDOW_MILLIS}.
+     */
+    private static final long PREFETCH_BUDGET_BYTES = 1024 * 1024L;
+    private static final long BUDGET_WINDOW_MILLIS = 60 * 60 * 1000L;
+
+    /**
+     * Bytes reserved from the budget for a prefetch until it is back, about what a long read
+     * takes gzipped.
+     */
+    private static final long ESTIMATED_PREFETCH_BYTES = 16 * 1024L;
+
+    private static ArticleBodies sInstance;
+
+    private static final ExecutorService sPrefetchExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, LOG_TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final Context mContext;
+    private final ArticleBodyCache mCache =
+            new ArticleBodyCache(CACHE_CHARS, PREFETCH_BUDGET_BYTES, BUDGET_WINDOW_MILLIS);
+
+    /**
+     * Prefetches queued or running, by article id.
+     */
+    private final ConcurrentMap<String, Future<?>> mPrefetches = new ConcurrentHashMap<>();
+
+    private ArticleBodies(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Returns the bodies used by the app.
+     */
+    public static synchronized ArticleBodies getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleBodies(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the body of the article being opened if it is cached, otherwise null.
+     */
+    public String open(String id) {
+        return mCache.open(id);
+    }
+
+    /**
+     * Returns the body of an article already open if it is cached, otherwise null.
+     */
+    public String peek(String id) {
+        return mCache.peek(id);
+    }
+
+    /**
+     * Fetches the body of the article being opened and caches it. Joins a prefetch of the
+     * same article that is already out. Call off the main thread.
+     */
+    public String fetch(String id) throws IOException {
+        // Opening it now, so scrolling the list mustn't cancel it.
+        mPrefetches.remove(id);
+        String body = request(id, QueryUtils.getDefault());
+        mCache.put(id, body, 0);
+        return body;
+    }
+
+    /**
+     * Fetches the bodies of the given articles that aren't cached yet in the background,
+     * unless the network is metered or the budget is used up.
+     */
+    public void prefetch(List<News> articles) {
+        if (articles.isEmpty()) {
+            return;
+        }
+        if (!isUnmetered()) {
+            Metrics.count(Metrics.ARTICLE_PREFETCH_SKIPPED, articles.size());
+            return;
+        }
+        for (int i = 0; i < articles.size(); i++) {
+            final String id = articles.get(i).getId();
+            if (id.isEmpty() || mCache.contains(id) || mPrefetches.containsKey(id)) {
+                continue;
+            }
+            final long reservedAt = System.currentTimeMillis();
+            if (!mCache.reserve(ESTIMATED_PREFETCH_BYTES, reservedAt)) {
+                Metrics.count(Metrics.ARTICLE_PREFETCH_SKIPPED, articles.size() - i);
+                return;
+            }
+            // Settled once, by whichever of the prefetch and its cancellation comes first.
+            final AtomicLong reserved = new AtomicLong(ESTIMATED_PREFETCH_BYTES);
+            FutureTask<Object> future = new FetchEngine.CancellableTask<Object>(Executors.callable(new Runnable() {
+                @Override
+                public void run() {
+                    prefetch(id, reserved, reservedAt);
+                }
+            })) {
+                @Override
+                protected void done() {
+                    // Gives back what a prefetch cancelled before it went out had reserved;
+                    // one cancelled while it reads still settles what it read itself.
+                    mCache.settle(reserved.getAndSet(0), reservedAt, 0);
+                }
+            };
+            mPrefetches.put(id, future);
+            sPrefetchExecutor.execute(future);
+        }
+    }
+
+    /**
+     * Cancels the prefetches that are still out, e.g. because the list started scrolling.
+     */
+    public void cancelPrefetch() {
+        for (Map.Entry<String, Future<?>> entry : mPrefetches.entrySet()) {
+            if (mPrefetches.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Frees memory as asked for by {@link ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            mCache.trimToSize(0);
+        }
+    }
+
+    /**
+     * This is on the prefetch thread.
+     *
+     * @param reserved   bytes reserved from the budget for this prefetch, 0 once settled
+     * @param reservedAt when they were reserved
+     */
+    private void prefetch(String id, AtomicLong reserved, long reservedAt) {
+        // Bytes of a request joined at the other priority were read, and paid for, there.
+        long readBefore = NewsHttpClient.getBytesReceivedOnThread();
+        try {
+            String body = request(id, QueryUtils.getBackground());
+            // Cancelled, or opened and fetched for that meanwhile.
+            if (mPrefetches.remove(id) == null) {
+                return;
+            }
+            mCache.put(id, body, NewsHttpClient.getBytesReceivedOnThread() - readBefore);
+        } catch (InterruptedIOException e) {
+            // Cancelled
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem prefetching the article " + id, e);
+        } finally {
+            mPrefetches.remove(id);
+            mCache.settle(reserved.getAndSet(0), reservedAt,
+                    NewsHttpClient.getBytesReceivedOnThread() - readBefore);
+        }
+    }
+
+    private String request(String id, NewsApi api) throws IOException {
+        Map<String, String> fields = api
+                .fetchArticleFields(NewsActivity.buildArticleRequest(id).toUrl());
+        String body = fields.get("body");
+        if (body == null) {
+            throw new IOException("No body for " + id);
+        }
+        // Makes the article searchable by what it says, not just its title. Building the
+        // index would hold up the article, so that's left to the search.
+        ArticleIndex index = ArticleStore.getInstance(mContext).getIndexIfLoaded();
+        if (index != null) {
+            index.putBody(id, body);
+        }
+        return body;
+    }
+
+    /**
+     * Returns true if there is a network that doesn't charge by the byte.
+     */
+    private boolean isUnmetered() {
+        ConnectivityManager connMgr = (ConnectivityManager)
+                mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+        if (networkInfo == null || !networkInfo.isConnected()) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return !connMgr.isActiveNetworkMetered();
+        }
+        return networkInfo.getType() == ConnectivityManager.TYPE_WIFI
+                || networkInfo.getType() == ConnectivityManager.TYPE_ETHERNET;
+    }
+
+}
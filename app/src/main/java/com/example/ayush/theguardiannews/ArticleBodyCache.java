@@ -0,0 +1,179 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Article bodies in memory by article id, bounded by their length, least recently used first out.
+ * <p>
+ * Also keeps the books on prefetching: bodies fetched ahead of time are charged to a byte budget
+ * that refills every {@code budgetWindowMillis}, and the bytes of the ones that leave the cache
+ * without ever being opened are counted as {@link Metrics#ARTICLE_PREFETCH_WASTED_BYTES}.
+ * A prefetch reserves its estimated size when it is queued, see {@link #reserve(long, long)},
+ * so a burst of them can't go over the budget before the first one is back, and settles it
+ * with the bytes it really read once it is done, see {@link #settle(long, long, long)}.
+ */
+final class ArticleBodyCache {
+
+    private final int mMaxChars;
+    private final long mBudgetBytes;
+    private final long mBudgetWindowMillis;
+
+    /**
+     * In access order, so the first entry is the least recently used.
+     */
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int mChars;
+
+    private long mBudgetWindowStart = Long.MIN_VALUE;
+    private long mBudgetSpent;
+
+    /**
+     * Constructs a new {@link ArticleBodyCache}.
+     *
+     * @param maxChars           upper bound on the length of the cached bodies
+     * @param budgetBytes        bytes prefetching may spend per window
+     * @param budgetWindowMillis how often the budget refills
+     */
+    ArticleBodyCache(int maxChars, long budgetBytes, long budgetWindowMillis) {
+        mMaxChars = maxChars;
+        mBudgetBytes = budgetBytes;
+        mBudgetWindowMillis = budgetWindowMillis;
+    }
+
+    /**
+     * Returns the body of an article being opened, or null if it isn't cached.
+     * Counts as a hit or a miss, and as used if it was prefetched.
+     */
+    synchronized String open(String id) {
+        Entry entry = mEntries.get(id);
+        if (entry == null) {
+            Metrics.count(Metrics.ARTICLE_BODY_MISSES, 1);
+            return null;
+        }
+        Metrics.count(Metrics.ARTICLE_BODY_HITS, 1);
+        if (entry.prefetchedBytes > 0) {
+            Metrics.count(Metrics.ARTICLE_PREFETCH_USED_BYTES, entry.prefetchedBytes);
+            entry.prefetchedBytes = 0;
+        }
+        return entry.body;
+    }
+
+    /**
+     * Returns the body of an article that was opened already, e.g. before a rotation,
+     * or null if it isn't cached. Counts as neither a hit nor a miss.
+     */
+    synchronized String peek(String id) {
+        Entry entry = mEntries.get(id);
+        return entry != null ? entry.body : null;
+    }
+
+    /**
+     * Returns true if the body of the article is cached, without touching it.
+     */
+    synchronized boolean contains(String id) {
+        return mEntries.containsKey(id);
+    }
+
+    /**
+     * Caches the body of an article.
+     *
+     * @param prefetchedBytes bytes read to prefetch the body, already settled with the budget;
+     *                        0 if it was fetched to be opened
+     */
+    synchronized void put(String id, String body, long prefetchedBytes) {
+        if (prefetchedBytes > 0) {
+            Metrics.count(Metrics.ARTICLE_PREFETCHES, 1);
+            Metrics.count(Metrics.ARTICLE_PREFETCH_BYTES, prefetchedBytes);
+        }
+        Entry previous = mEntries.remove(id);
+        if (previous != null) {
+            remove(previous);
+        }
+        if (body.length() > mMaxChars) {
+            return;
+        }
+        mEntries.put(id, new Entry(body, prefetchedBytes));
+        mChars += body.length();
+        trimToSize(mMaxChars);
+    }
+
+    /**
+     * Returns true if prefetching hasn't used up its budget for the current window.
+     */
+    synchronized boolean hasBudget(long nowMillis) {
+        refillBudget(nowMillis);
+        return mBudgetSpent < mBudgetBytes;
+    }
+
+    /**
+     * Charges the estimated size of a prefetch to the budget, unless it is used up.
+     *
+     * @return true if the prefetch can go out
+     */
+    synchronized boolean reserve(long estimatedBytes, long nowMillis) {
+        if (!hasBudget(nowMillis)) {
+            return false;
+        }
+        mBudgetSpent += estimatedBytes;
+        return true;
+    }
+
+    /**
+     * Replaces what a prefetch reserved with the bytes it read, 0 if it never went out.
+     * A reservation from before the budget refilled is gone already, so the prefetch is only
+     * charged what it read.
+     *
+     * @param reservedAtMillis when the prefetch was {@link #reserve(long, long)}d
+     */
+    synchronized void settle(long reservedBytes, long reservedAtMillis, long readBytes) {
+        if (reservedAtMillis >= mBudgetWindowStart) {
+            mBudgetSpent -= reservedBytes;
+        }
+        mBudgetSpent += readBytes;
+    }
+
+    /**
+     * Drops the least recently used bodies until the rest fit in the given length.
+     */
+    synchronized void trimToSize(int maxChars) {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while (mChars > maxChars && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            remove(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        mChars -= entry.body.length();
+        if (entry.prefetchedBytes > 0) {
+            Metrics.count(Metrics.ARTICLE_PREFETCH_WASTED_BYTES, entry.prefetchedBytes);
+        }
+    }
+
+    private void refillBudget(long nowMillis) {
+        if (mBudgetWindowStart == Long.MIN_VALUE || nowMillis - mBudgetWindowStart >= mBudgetWindowMillis) {
+            mBudgetWindowStart = nowMillis;
+            mBudgetSpent = 0;
+        }
+    }
+
+    private static final class Entry {
+
+        final String body;
+
+        /**
+         * Bytes spent prefetching the body, 0 once it was opened or if it wasn't prefetched.
+         */
+        long prefetchedBytes;
+
+        Entry(String body, long prefetchedBytes) {
+            this.body = body;
+            this.prefetchedBytes = prefetchedBytes;
+        }
+    }
+
+}
@@ -0,0 +1,408 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * In-memory full-text index over the stored articles, so search works instantly and offline.
+ * <p>
+ * Articles are indexed by the words of their title, section and author, and of their body
+ * when one is added. The index mirrors the {@link ArticleStore}: articles come in with the
+ * store entry they were saved under and go away once no entry holds them any more.
+ * <p>
+ * Every word of a query has to match; the last one also matches as a prefix, so results
+ * show up while the user is still typing it. Results are ranked by where the words matched,
+ * then by how recent the article is.
+ */
+public class ArticleIndex {
+
+    /**
+     * Weight of a word by the field it appears in.
+     */
+    private static final int TITLE_WEIGHT = 4;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int SECTION_WEIGHT = 2;
+    private static final int BODY_WEIGHT = 1;
+
+    /**
+     * Shorter words are neither indexed nor searched for.
+     */
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    /**
+     * Rebuild the postings once this share of the documents has been replaced or removed.
+     */
+    private static final int COMPACT_DIVISOR = 2;
+
+    /**
+     * Whether body text handed to {@link #putBody(String, String)} is indexed.
+     */
+    private final boolean mIndexBody;
+
+    /**
+     * Postings by word, sorted so prefix lookups are a range scan.
+     */
+    private final TreeMap<String, Postings> mPostings = new TreeMap<>();
+
+    /**
+     * Documents by number; replaced and removed ones are null until the next compaction.
+     */
+    private final ArrayList<Doc> mDocs = new ArrayList<>();
+
+    /**
+     * Live documents by article.
+     */
+    private final Map<String, Doc> mDocsByArticle = new HashMap<>();
+
+    /**
+     * Articles held by each store entry.
+     */
+    private final Map<String, List<String>> mEntries = new HashMap<>();
+
+    private int mDeletedCount;
+
+    /**
+     * Scratch space for queries, indexed by document number and grown as needed.
+     */
+    private int[] mScores = new int[0];
+    private int[] mMatched = new int[0];
+
+    /**
+     * Constructs a new {@link ArticleIndex}.
+     *
+     * @param indexBody true to index the article bodies as well
+     */
+    public ArticleIndex(boolean indexBody) {
+        mIndexBody = indexBody;
+    }
+
+    /**
+     * Indexes the articles of a store entry, replacing what the entry held before.
+     */
+    public synchronized void put(String entry, List<News> news) {
+        List<String> keys = new ArrayList<>(news.size());
+        for (News article : news) {
+            String key = keyOf(article);
+            keys.add(key);
+            Doc doc = mDocsByArticle.get(key);
+            if (doc == null) {
+                doc = index(article, null);
+                mDocsByArticle.put(key, doc);
+            } else if (!doc.news.equals(article)) {
+                // The article changed since it was indexed.
+                Doc updated = index(article, doc.body);
+                updated.refs = doc.refs;
+                delete(doc);
+                mDocsByArticle.put(key, updated);
+                doc = updated;
+            }
+            doc.refs++;
+        }
+        // Counted after the new ones, so articles in both don't drop out in between.
+        release(mEntries.put(entry, keys));
+        compactIfNeeded();
+    }
+
+    /**
+     * Adds the body text of an indexed article; ignored unless bodies are indexed.
+     */
+    public synchronized void putBody(String articleId, String body) {
+        if (!mIndexBody || body == null) {
+            return;
+        }
+        Doc doc = mDocsByArticle.get(articleId);
+        if (doc == null || body.equals(doc.body)) {
+            return;
+        }
+        Doc updated = index(doc.news, body);
+        updated.refs = doc.refs;
+        delete(doc);
+        mDocsByArticle.put(articleId, updated);
+        compactIfNeeded();
+    }
+
+    /**
+     * Drops the articles of a store entry that no other entry holds.
+     */
+    public synchronized void removeEntry(String entry) {
+        release(mEntries.remove(entry));
+        compactIfNeeded();
+    }
+
+    /**
+     * Returns the number of articles in the index.
+     */
+    public synchronized int size() {
+        return mDocsByArticle.size();
+    }
+
+    /**
+     * Returns the best matches for the query, best first.
+     *
+     * @param query words to look for
+     * @param limit most results to return
+     */
+    public synchronized List<News> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(query, tokens);
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        int docCount = mDocs.size();
+        if (mScores.length < docCount) {
+            mScores = new int[docCount];
+            mMatched = new int[docCount];
+        }
+        int[] scores = mScores;
+        int[] matched = mMatched;
+
+        // Documents matching the first word; later words can only narrow them down.
+        int[] candidates = new int[0];
+        int candidateCount = 0;
+        for (int t = 0; t < tokens.size(); t++) {
+            String token = tokens.get(t);
+            boolean last = t == tokens.size() - 1;
+            Map<String, Postings> terms = last
+                    ? mPostings.subMap(token, true, token + Character.MAX_VALUE, true)
+                    : Collections.singletonMap(token, mPostings.get(token));
+            for (Map.Entry<String, Postings> term : terms.entrySet()) {
+                Postings postings = term.getValue();
+                if (postings == null) {
+                    continue;
+                }
+                // Whole words count double over words the query is a prefix of.
+                int boost = term.getKey().length() == token.length() ? 2 : 1;
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = postings.docs[i];
+                    if (mDocs.get(doc) == null || matched[doc] < t) {
+                        continue;
+                    }
+                    if (matched[doc] == t) {
+                        if (t == 0) {
+                            if (candidateCount == candidates.length) {
+                                candidates = Arrays.copyOf(candidates, Math.max(16, candidateCount * 2));
+                            }
+                            candidates[candidateCount++] = doc;
+                        }
+                        matched[doc] = t + 1;
+                    }
+                    scores[doc] += postings.weights[i] * boost;
+                }
+            }
+        }
+
+        PriorityQueue<Doc> best = new PriorityQueue<>(limit + 1, BY_RANK);
+        for (int i = 0; i < candidateCount; i++) {
+            int number = candidates[i];
+            if (matched[number] == tokens.size()) {
+                Doc doc = mDocs.get(number);
+                doc.score = scores[number];
+                best.add(doc);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            scores[number] = 0;
+            matched[number] = 0;
+        }
+
+        News[] results = new News[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = best.poll().news;
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Orders the worst match first, so the queue drops it when full.
+     */
+    private static final Comparator<Doc> BY_RANK = new Comparator<Doc>() {
+        @Override
+        public int compare(Doc a, Doc b) {
+            if (a.score != b.score) {
+                return a.score < b.score ? -1 : 1;
+            }
+            long diff = a.news.getPublicationTime() - b.news.getPublicationTime();
+            return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+        }
+    };
+
+    private Doc index(News news, String body) {
+        Doc doc = new Doc(mDocs.size(), news, body);
+        mDocs.add(doc);
+
+        Map<String, Integer> weights = new HashMap<>();
+        addTokens(weights, news.getTitle(), TITLE_WEIGHT);
+        addTokens(weights, news.getAuthor(), AUTHOR_WEIGHT);
+        addTokens(weights, news.getSection(), SECTION_WEIGHT);
+        if (mIndexBody && body != null) {
+            addTokens(weights, stripTags(body), BODY_WEIGHT);
+        }
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            Postings postings = mPostings.get(weight.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                mPostings.put(weight.getKey(), postings);
+            }
+            postings.add(doc.number, weight.getValue());
+        }
+        return doc;
+    }
+
+    private static void addTokens(Map<String, Integer> weights, String text, int weight) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens);
+        for (String token : tokens) {
+            Integer current = weights.get(token);
+            weights.put(token, current == null ? weight : current + weight);
+        }
+    }
+
+    private void release(List<String> keys) {
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Doc doc = mDocsByArticle.get(key);
+            if (doc != null && --doc.refs <= 0) {
+                mDocsByArticle.remove(key);
+                delete(doc);
+            }
+        }
+    }
+
+    /**
+     * Leaves the document's postings in place; searches skip it until the next compaction.
+     */
+    private void delete(Doc doc) {
+        mDocs.set(doc.number, null);
+        mDeletedCount++;
+    }
+
+    private void compactIfNeeded() {
+        if (mDeletedCount == 0 || mDeletedCount < mDocs.size() / COMPACT_DIVISOR) {
+            return;
+        }
+        List<Doc> live = new ArrayList<>(mDocsByArticle.size());
+        for (Doc doc : mDocs) {
+            if (doc != null) {
+                live.add(doc);
+            }
+        }
+        mDocs.clear();
+        mPostings.clear();
+        mDeletedCount = 0;
+        for (Doc doc : live) {
+            Doc reindexed = index(doc.news, doc.body);
+            reindexed.refs = doc.refs;
+            mDocsByArticle.put(keyOf(doc.news), reindexed);
+        }
+    }
+
+    private static String keyOf(News news) {
+        return news.getId().isEmpty() ? news.getUrl() : news.getId();
+    }
+
+    /**
+     * Splits the text into lower-cased words of letters and digits.
+     */
+    static void tokenize(String text, List<String> out) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TOKEN_LENGTH) {
+                    out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Replaces the HTML tags and entities of an article body with spaces.
+     */
+    static String stripTags(String html) {
+        StringBuilder text = new StringBuilder(html.length());
+        boolean inTag = false;
+        for (int i = 0; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (inTag) {
+                inTag = c != '>';
+                continue;
+            }
+            if (c == '<') {
+                inTag = true;
+                text.append(' ');
+            } else if (c == '&') {
+                int end = html.indexOf(';', i);
+                if (end > i && end - i <= 8) {
+                    i = end;
+                }
+                text.append(' ');
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * An indexed version of an article.
+     */
+    private static class Doc {
+        final int number;
+        final News news;
+        final String body;
+
+        /**
+         * Number of store entries holding the article.
+         */
+        int refs;
+
+        /**
+         * Score of the query being ranked.
+         */
+        int score;
+
+        Doc(int number, News news, String body) {
+            this.number = number;
+            this.news = news;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Documents containing a word, in increasing order, with the word's weight in each.
+     */
+    private static class Postings {
+        int[] docs = new int[2];
+        int[] weights = new int[2];
+        int size;
+
+        void add(int doc, int weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+}
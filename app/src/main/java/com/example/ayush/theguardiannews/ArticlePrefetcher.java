@@ -0,0 +1,82 @@
+package com.example.ayush.theguardiannews;
+
+import android.graphics.Rect;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prefetches the bodies of the articles on screen once a list of news rows has been at rest
+ * for a moment, see {@link ArticleBodies#prefetch(List)}. Scrolling again cancels the
+ * prefetches still out, so they never compete with a fling.
+ */
+final class ArticlePrefetcher extends RecyclerView.OnScrollListener implements Runnable {
+
+    /**
+     * How long the list must be at rest before prefetching, so brief pauses don't count.
+     */
+    private static final long IDLE_DELAY_MILLIS = 500;
+
+    private static final Rect sVisibleRect = new Rect();
+
+    private final RecyclerView mRecyclerView;
+    private final LinearLayoutManager mLayoutManager;
+    private final ArticleBodies mBodies;
+
+    private ArticlePrefetcher(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+        mRecyclerView = recyclerView;
+        mLayoutManager = layoutManager;
+        mBodies = ArticleBodies.getInstance(recyclerView.getContext());
+    }
+
+    /**
+     * Starts prefetching for the list whenever it comes to rest.
+     */
+    static void attach(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+        recyclerView.addOnScrollListener(new ArticlePrefetcher(recyclerView, layoutManager));
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        mRecyclerView.removeCallbacks(this);
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            mRecyclerView.postDelayed(this, IDLE_DELAY_MILLIS);
+        } else {
+            mBodies.cancelPrefetch();
+        }
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        // Also called after a layout changed the rows on screen, e.g. a new list was shown.
+        if (recyclerView.getScrollState() == RecyclerView.SCROLL_STATE_IDLE) {
+            mRecyclerView.removeCallbacks(this);
+            mRecyclerView.postDelayed(this, IDLE_DELAY_MILLIS);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (!(mRecyclerView.getAdapter() instanceof NewsAdapter)) {
+            return;
+        }
+        // The tabs next to the one on screen are laid out too, only the one the user sees counts.
+        if (!mRecyclerView.getGlobalVisibleRect(sVisibleRect)) {
+            return;
+        }
+        NewsAdapter adapter = (NewsAdapter) mRecyclerView.getAdapter();
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        int last = Math.min(mLayoutManager.findLastVisibleItemPosition(), adapter.getItemCount() - 1);
+        if (first == RecyclerView.NO_POSITION || last < first) {
+            return;
+        }
+        List<News> visible = new ArrayList<>(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            visible.add(adapter.getItem(i));
+        }
+        mBodies.prefetch(visible);
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.example.ayush.theguardiannews;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Persistent store of the last list of {@link News} fetched for each query.
+ * <p>
+ * Entries are keyed by the normalized query (section, page-size, order-by), expire after
+ * {@link #DEFAULT_TTL_MILLIS} and the least recently used ones are evicted once the store
+ * grows past its size limit. The articles are kept in the {@link NewsSnapshot} format and
+ * read through a memory-mapped file, so only the ones that are looked at get decoded.
+ * <p>
+ * The stored articles are also searchable through {@link #getIndex()}, which is kept in step
+ * with the entries as they are written and evicted.
+ */
+public class ArticleStore {
+
+    /**
+     * Bump whenever the file layout changes; older files are then ignored.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Entries older than this are never delivered, not even while revalidating.
+     */
+    private static final long DEFAULT_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Upper bound on the size of all entries together.
+     */
+    private static final long DEFAULT_MAX_BYTES = 2 * 1024 * 1024L;
+
+    /**
+     * Whether article bodies handed to the index are searchable too.
+     */
+    private static final boolean INDEX_BODIES = true;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static ArticleStore sInstance;
+
+    private final File mDirectory;
+    private final long mTtlMillis;
+    private final long mMaxBytes;
+
+    /**
+     * Index of the stored articles, null until first asked for.
+     */
+    private ArticleIndex mIndex;
+
+    /**
+     * Returns the store shared by the whole app.
+     */
+    public static synchronized ArticleStore getInstance(Context context) {
+        if (sInstance == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), "articles");
+            sInstance = new ArticleStore(directory, DEFAULT_TTL_MILLIS, DEFAULT_MAX_BYTES);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Constructs a new {@link ArticleStore}.
+     *
+     * @param directory where the entries are kept
+     * @param ttlMillis how long an entry can be served for
+     * @param maxBytes  upper bound on the size of all entries together
+     */
+    ArticleStore(File directory, long ttlMillis, long maxBytes) {
+        mDirectory = directory;
+        mTtlMillis = ttlMillis;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the list stored for the given query, or null if there is none or it expired.
+     */
+    public synchronized List<News> read(String key) {
+        File file = fileFor(key);
+        List<News> news = readFile(file, key);
+        if (news != null) {
+            // Remember it was used, so eviction picks on the others first.
+            file.setLastModified(System.currentTimeMillis());
+        }
+        return news;
+    }
+
+    /**
+     * Returns when the list for the given query was stored, or -1 if there is none or it
+     * expired. Doesn't count as a use of the entry.
+     */
+    public synchronized long getSavedAt(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            return -1;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != VERSION) {
+                return -1;
+            }
+            int keyLength = in.readInt();
+            if (keyLength < 0 || keyLength > file.length()) {
+                return -1;
+            }
+            byte[] storedKey = new byte[keyLength];
+            in.readFully(storedKey);
+            if (!key.equals(new String(storedKey, UTF_8))) {
+                return -1;
+            }
+            long savedAt = in.readLong();
+            return System.currentTimeMillis() - savedAt > mTtlMillis ? -1 : savedAt;
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            CacheUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns the index of all stored articles, reading them in the first time.
+     * Call off the main thread.
+     */
+    public synchronized ArticleIndex getIndex() {
+        if (mIndex == null) {
+            mIndex = new ArticleIndex(INDEX_BODIES);
+            File[] files = mDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(".tmp")) {
+                        continue;
+                    }
+                    List<News> news = readFile(file, null);
+                    if (news != null) {
+                        mIndex.put(file.getName(), news);
+                    }
+                }
+            }
+        }
+        return mIndex;
+    }
+
+    /**
+     * Returns the index of all stored articles if it was read in already, otherwise null.
+     */
+    public synchronized ArticleIndex getIndexIfLoaded() {
+        return mIndex;
+    }
+
+    /**
+     * Reads an entry, or returns null if it is missing, expired or for another key.
+     *
+     * @param key expected key of the entry, or null to accept any
+     */
+    private List<News> readFile(File file, String key) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            FileChannel channel = in.getChannel();
+            // The mapping outlives the stream and is only read as articles are looked at.
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != VERSION) {
+                return null;
+            }
+            int keyLength = buffer.getInt();
+            if (keyLength < 0 || keyLength > buffer.remaining()) {
+                throw new IOException("Corrupt key");
+            }
+            byte[] storedKey = new byte[keyLength];
+            buffer.get(storedKey);
+            if (key != null && !key.equals(new String(storedKey, UTF_8))) {
+                return null;
+            }
+            long savedAt = buffer.getLong();
+            if (System.currentTimeMillis() - savedAt > mTtlMillis) {
+                delete(file);
+                return null;
+            }
+            return NewsSnapshot.read(buffer);
+        } catch (IOException | BufferUnderflowException e) {
+            // A half written or corrupt entry is as good as a missing one.
+            delete(file);
+            return null;
+        } finally {
+            CacheUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Stores the list for the given query, replacing the previous one.
+     */
+    public synchronized void write(String key, List<News> news) {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            return;
+        }
+
+        File file = fileFor(key);
+        File tmp = new File(mDirectory, file.getName() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            byte[] keyBytes = key.getBytes(UTF_8);
+            out.writeInt(VERSION);
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            out.writeLong(System.currentTimeMillis());
+            NewsSnapshot.write(out, news);
+            out.close();
+            out = null;
+
+            // Replace the old entry in one step, so readers never see a partial file.
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+            } else if (mIndex != null) {
+                mIndex.put(file.getName(), news);
+            }
+        } catch (IOException e) {
+            tmp.delete();
+        } finally {
+            CacheUtils.closeQuietly(out);
+        }
+
+        for (File evicted : CacheUtils.trimToSize(mDirectory, mMaxBytes)) {
+            if (mIndex != null) {
+                mIndex.removeEntry(evicted.getName());
+            }
+        }
+    }
+
+    /**
+     * Deletes an entry and takes its articles out of the index.
+     */
+    private void delete(File file) {
+        file.delete();
+        if (mIndex != null) {
+            mIndex.removeEntry(file.getName());
+        }
+    }
+
+    /**
+     * Returns the file an entry is kept in.
+     */
+    private File fileFor(String key) {
+        return new File(mDirectory, CacheUtils.fileNameFor(key));
+    }
+
+}
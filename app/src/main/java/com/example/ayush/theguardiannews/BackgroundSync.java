@@ -0,0 +1,112 @@
+package com.example.ayush.theguardiannews;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+
+import java.util.List;
+
+/**
+ * Keeps the stored articles for the current settings fresh in the background, so opening the
+ * app shows recent news straight from the {@link ArticleStore}.
+ * <p>
+ * Syncs run as periodic jobs, one waiting for an unmetered network and one for charging, so
+ * they never eat into a data plan or the battery. All sections are fetched together in one
+ * batch per run. Whichever job runs first does the work; a run finding the articles stored
+ * recently, e.g. by the other job or by the app itself, skips the fetch.
+ * <p>
+ * {@link JobScheduler} came with Lollipop; older devices only fetch while the app is open.
+ */
+public final class BackgroundSync {
+
+    private static final int JOB_ID_UNMETERED = 1;
+    private static final int JOB_ID_CHARGING = 2;
+
+    /**
+     * How often the jobs run, at most.
+     */
+    private static final long PERIOD_MILLIS = 6 * 60 * 60 * 1000L;
+
+    /**
+     * Articles stored more recently than this aren't fetched again.
+     */
+    private static final long FRESH_MILLIS = 60 * 60 * 1000L;
+
+    private BackgroundSync() {
+    }
+
+    /**
+     * Schedules the sync jobs unless they are scheduled already; safe to call on every start.
+     */
+    public static void schedule(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            scheduleJobs(context.getApplicationContext());
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void scheduleJobs(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) {
+            return;
+        }
+        ComponentName service = new ComponentName(context, SyncJobService.class);
+        List<JobInfo> pending = scheduler.getAllPendingJobs();
+
+        scheduleIfMissing(scheduler, pending, new JobInfo.Builder(JOB_ID_UNMETERED, service)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setPeriodic(PERIOD_MILLIS)
+                .setPersisted(true)
+                .build());
+        scheduleIfMissing(scheduler, pending, new JobInfo.Builder(JOB_ID_CHARGING, service)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setRequiresCharging(true)
+                .setPeriodic(PERIOD_MILLIS)
+                .setPersisted(true)
+                .build());
+    }
+
+    /**
+     * Scheduling a job again would restart its period, so jobs already there are left alone.
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void scheduleIfMissing(JobScheduler scheduler, List<JobInfo> pending, JobInfo job) {
+        for (JobInfo scheduled : pending) {
+            if (scheduled.getId() == job.getId()) {
+                return;
+            }
+        }
+        scheduler.schedule(job);
+    }
+
+    /**
+     * Fetches the feed for the current settings and stores it, unless it was stored recently.
+     * Call off the main thread.
+     *
+     * @return false if the fetch failed and should be tried again
+     */
+    static boolean sync(Context context) {
+        String key = NewsActivity.buildQueryKey(context);
+        ArticleStore store = ArticleStore.getInstance(context);
+        long savedAt = store.getSavedAt(key);
+        if (savedAt > 0 && System.currentTimeMillis() - savedAt < FRESH_MILLIS) {
+            return true;
+        }
+
+        // Nobody is waiting on it, so it runs behind the requests of the screen.
+        MultiSectionFetcher.Result result = MultiSectionFetcher.fetchInBackground(
+                NewsActivity.buildQueryUrls(context), NewsActivity.getOrderBy(context));
+        // A feed missing a section isn't stored; the next sync tries again.
+        if (result == null || !result.isComplete()) {
+            return false;
+        }
+        if (!result.getNews().isEmpty()) {
+            store.write(key, result.getNews());
+        }
+        return true;
+    }
+
+}
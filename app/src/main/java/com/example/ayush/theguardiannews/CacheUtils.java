@@ -0,0 +1,91 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Helpers shared by the on-disk caches.
+ */
+final class CacheUtils {
+
+    private CacheUtils() {
+    }
+
+    /**
+     * Returns a file name for the given key. Keys are hashed so any key makes a valid name.
+     */
+    static String fileNameFor(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest(key.getBytes(Charset.forName("UTF-8")));
+            StringBuilder name = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16));
+                name.append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Deletes the least recently modified files in the directory until the ones left fit
+     * in maxBytes.
+     *
+     * @return the files deleted
+     */
+    static List<File> trimToSize(File directory, long maxBytes) {
+        List<File> deleted = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return deleted;
+        }
+
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= maxBytes) {
+            return deleted;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long diff = a.lastModified() - b.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        for (File file : files) {
+            if (size <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+                deleted.add(file);
+            }
+        }
+        return deleted;
+    }
+
+    static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do here.
+            }
+        }
+    }
+
+}
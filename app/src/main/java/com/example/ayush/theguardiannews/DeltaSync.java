@@ -0,0 +1,110 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Refreshes a stored feed by asking only for what was published since its newest article,
+ * instead of downloading the whole page again.
+ * <p>
+ * The newest publication date of a query is the one of the newest article stored for it, see
+ * {@link ArticleStore}. The requests only ask for what was published since then, see
+ * {@link NewsRequest.Builder#publishedSince(long)}, so a refresh with nothing new costs a
+ * response with at most the newest article in it, and the new articles are merged on top of
+ * the stored ones.
+ * <p>
+ * Only feeds ordered by newest can be refreshed this way: the new articles of an oldest-first
+ * or relevance feed don't belong at the top of it.
+ */
+final class DeltaSync {
+
+    static final String ORDER_BY_NEWEST = "newest";
+
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    private DeltaSync() {
+    }
+
+    /**
+     * Returns true if the stored feed can be refreshed with {@link #deltaRequests(List, long)}.
+     */
+    static boolean canRefresh(String orderBy, List<News> stored) {
+        return ORDER_BY_NEWEST.equals(orderBy) && stored != null && newestTime(stored) > 0;
+    }
+
+    /**
+     * Returns the publication time of the newest article, 0 if none has a known one.
+     */
+    static long newestTime(List<News> news) {
+        long newest = 0;
+        for (int i = 0; i < news.size(); i++) {
+            newest = Math.max(newest, news.get(i).getPublicationTime());
+        }
+        return newest;
+    }
+
+    /**
+     * Returns the feed's requests, one per section, asking only for articles published at or
+     * after the given time.
+     */
+    static List<NewsRequest> deltaRequests(List<NewsRequest> requests, long newestTime) {
+        List<NewsRequest> deltaRequests = new ArrayList<>(requests.size());
+        for (NewsRequest request : requests) {
+            deltaRequests.add(request.buildUpon().publishedSince(newestTime).build());
+        }
+        return deltaRequests;
+    }
+
+    /**
+     * Returns the page-size of the feed's requests.
+     */
+    static int pageSizeOf(List<NewsRequest> requests) {
+        String pageSize = requests.get(0).getParameter("page-size");
+        // What the API returns when it isn't given.
+        return pageSize != null ? Integer.parseInt(pageSize) : DEFAULT_PAGE_SIZE;
+    }
+
+    /**
+     * Merges the articles published since the stored feed into it, newest first, keeping the
+     * length of the stored feed.
+     *
+     * @param delta    articles returned by the {@link #deltaRequests(List, long)}
+     * @param pageSize page-size of the requests
+     * @return the refreshed feed, or null if a section may have had more new articles than
+     * a page holds, so there could be a gap between the new and the stored ones
+     */
+    @SuppressWarnings("unchecked")
+    static List<News> merge(List<News> delta, List<News> stored, int pageSize) {
+        if (delta.size() >= pageSize) {
+            return null;
+        }
+        // from-date is inclusive, so the newest stored article comes back; new versions win.
+        List<News> merged = MultiSectionFetcher.merge(Arrays.asList(delta, stored), ORDER_BY_NEWEST);
+        int length = Math.max(stored.size(), delta.size());
+        if (merged.size() > length) {
+            merged = new ArrayList<>(merged.subList(0, length));
+        }
+        return merged;
+    }
+
+    /**
+     * Returns how many of the articles in the delta weren't stored yet.
+     */
+    static int countNew(List<News> delta, List<News> stored) {
+        Set<String> storedIds = new HashSet<>();
+        for (News news : stored) {
+            storedIds.add(news.getId());
+        }
+        int count = 0;
+        for (News news : delta) {
+            if (!storedIds.contains(news.getId())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,416 @@
+package com.example.ayush.theguardiannews;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the loads of the app on a small pool of its own, in place of the framework loaders.
+ * <p>
+ * Loads run in parallel, so the feed, the next page and a search don't wait on each other.
+ * Each one is a {@link Job} in a named {@link Scope} that outlives the activity: a rotated
+ * activity finds its jobs in the scope and subscribes again, getting the latest value at once
+ * and the rest as it comes, instead of starting over. A job can emit several values, e.g. the
+ * stored articles and then the fresh ones.
+ * <p>
+ * Cancelling a job, or the whole scope when the activity finishes, interrupts its thread and
+ * disconnects the request it is blocked on, see {@link NewsHttpClient#abort(Thread)}.
+ * <p>
+ * Loads nobody is looking at yet, e.g. the sections next to the one on screen, go to a
+ * background lane instead: one at a time on a background priority thread, so they never take
+ * a thread of the pool, or CPU, from a load on screen.
+ * <p>
+ * Scopes and jobs must be used on the main thread; observers are told on the main thread.
+ */
+public final class FetchEngine {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = FetchEngine.class.getSimpleName();
+
+    /**
+     * Loads running at once: the feed, a page and a search, plus one being cancelled.
+     */
+    private static final int MAX_PARALLEL_LOADS = 4;
+
+    /**
+     * Runs a load on a worker thread.
+     */
+    public interface Task<T> {
+
+        /**
+         * Loads the values and emits them as they come; a failure emits null or nothing.
+         * Stops early once the thread is interrupted.
+         */
+        void run(Emitter<T> emitter);
+    }
+
+    /**
+     * Hands the values of a {@link Task} over to the main thread.
+     */
+    public interface Emitter<T> {
+        void emit(T value);
+    }
+
+    /**
+     * Told about the values of a {@link Job}.
+     */
+    public interface Observer<T> {
+
+        /**
+         * A new value; the latest one is replayed to every new observer.
+         */
+        void onNext(T value);
+
+        /**
+         * The job finished and won't emit anything else.
+         */
+        void onComplete();
+    }
+
+    private static FetchEngine sInstance;
+
+    private final ExecutorService mExecutor;
+
+    /**
+     * Runs the background jobs, see {@link Scope#startInBackground(String, String, Task)}.
+     */
+    private final Executor mBackgroundExecutor;
+
+    /**
+     * Where values are handed over to the observers, the main thread in the app.
+     */
+    private final Executor mDelivery;
+
+    private final Map<String, Scope> mScopes = new HashMap<>();
+
+    FetchEngine(int threads, Executor delivery) {
+        this(threads, Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, LOG_TAG + " background");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), delivery);
+    }
+
+    FetchEngine(int threads, Executor background, Executor delivery) {
+        mExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int mCount;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, LOG_TAG + " #" + (++mCount));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mBackgroundExecutor = background;
+        mDelivery = delivery;
+    }
+
+    /**
+     * Returns the engine used by the app.
+     */
+    public static synchronized FetchEngine getInstance() {
+        if (sInstance == null) {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            Executor background = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, LOG_TAG + " background");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            sInstance = new FetchEngine(MAX_PARALLEL_LOADS, background, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    mainHandler.post(command);
+                }
+            });
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the scope with the given name, creating it if needed.
+     */
+    public Scope scope(String name) {
+        Scope scope = mScopes.get(name);
+        if (scope == null) {
+            scope = new Scope(name);
+            mScopes.put(name, scope);
+        }
+        return scope;
+    }
+
+    /**
+     * Runs a one-off task on the pool, e.g. a search request. Cancelling the returned future
+     * with an interrupt also disconnects the request it is blocked on.
+     */
+    public Future<?> submit(Runnable task) {
+        CancellableTask<Object> future = new CancellableTask<>(Executors.callable(task));
+        mExecutor.execute(future);
+        return future;
+    }
+
+    /**
+     * Jobs of one screen, by slot, e.g. the feed and the next page.
+     */
+    public final class Scope {
+
+        private final String mName;
+
+        private final Map<String, Job<?>> mJobs = new HashMap<>();
+
+        private Scope(String name) {
+            mName = name;
+        }
+
+        /**
+         * Returns the job in the slot, running or done, or null if there is none.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> Job<T> get(String slot) {
+            return (Job<T>) mJobs.get(slot);
+        }
+
+        /**
+         * Starts a task in the slot, cancelling the job that was there.
+         *
+         * @param key what the task loads, e.g. its query, see {@link Job#getKey()}
+         */
+        public <T> Job<T> start(String slot, String key, Task<T> task) {
+            cancel(slot);
+            Job<T> job = new Job<>(key, task, false);
+            mJobs.put(slot, job);
+            mExecutor.execute(job.mFuture);
+            return job;
+        }
+
+        /**
+         * Starts a task in the slot on the background lane, cancelling the job that was there.
+         * It waits for the background jobs before it and runs at background priority; start it
+         * again with {@link #start(String, String, Task)} once it is needed on screen.
+         */
+        public <T> Job<T> startInBackground(String slot, String key, Task<T> task) {
+            cancel(slot);
+            Job<T> job = new Job<>(key, task, true);
+            mJobs.put(slot, job);
+            mBackgroundExecutor.execute(job.mFuture);
+            return job;
+        }
+
+        /**
+         * Cancels the job in the slot, if any.
+         */
+        public void cancel(String slot) {
+            Job<?> job = mJobs.remove(slot);
+            if (job != null) {
+                job.cancel();
+            }
+        }
+
+        /**
+         * Cancels every job and drops the scope; call when the screen finishes for good.
+         */
+        public void close() {
+            for (Job<?> job : mJobs.values()) {
+                job.cancel();
+            }
+            mJobs.clear();
+            mScopes.remove(mName);
+        }
+    }
+
+    /**
+     * A running or finished task, and the values it emitted.
+     */
+    public final class Job<T> implements Emitter<T> {
+
+        private final String mKey;
+        private final boolean mBackground;
+        private final CancellableTask<Void> mFuture;
+        private final List<Observer<T>> mObservers = new ArrayList<>();
+
+        private T mLatest;
+        private boolean mHasValue;
+        private boolean mDone;
+        private boolean mCancelled;
+
+        private Job(String key, final Task<T> task, boolean background) {
+            mKey = key;
+            mBackground = background;
+            mFuture = new CancellableTask<>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        task.run(Job.this);
+                    } catch (RuntimeException e) {
+                        Log.e(LOG_TAG, "Task failed", e);
+                    } finally {
+                        mDelivery.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                onComplete();
+                            }
+                        });
+                    }
+                    return null;
+                }
+            });
+        }
+
+        /**
+         * Returns what the job loads, as given to {@link Scope#start(String, String, Task)}.
+         */
+        public String getKey() {
+            return mKey;
+        }
+
+        /**
+         * Returns true if the job runs on the background lane.
+         */
+        public boolean isBackground() {
+            return mBackground;
+        }
+
+        /**
+         * Returns true once the task finished or was cancelled.
+         */
+        public boolean isDone() {
+            return mDone;
+        }
+
+        /**
+         * Tells the observer about the latest value, if any, and every value after it.
+         */
+        public void subscribe(Observer<T> observer) {
+            if (mCancelled) {
+                return;
+            }
+            mObservers.add(observer);
+            if (mHasValue) {
+                observer.onNext(mLatest);
+            }
+            if (mDone) {
+                observer.onComplete();
+            }
+        }
+
+        /**
+         * Stops telling the observer, e.g. when the activity is destroyed on rotation.
+         * The job keeps running.
+         */
+        public void unsubscribe(Observer<T> observer) {
+            mObservers.remove(observer);
+        }
+
+        /**
+         * Called on the worker thread.
+         */
+        @Override
+        public void emit(final T value) {
+            mDelivery.execute(new Runnable() {
+                @Override
+                public void run() {
+                    onNext(value);
+                }
+            });
+        }
+
+        private void onNext(T value) {
+            if (mCancelled) {
+                return;
+            }
+            mLatest = value;
+            mHasValue = true;
+            for (Observer<T> observer : new ArrayList<>(mObservers)) {
+                observer.onNext(value);
+            }
+        }
+
+        private void onComplete() {
+            if (mCancelled || mDone) {
+                return;
+            }
+            mDone = true;
+            for (Observer<T> observer : new ArrayList<>(mObservers)) {
+                observer.onComplete();
+            }
+        }
+
+        private void cancel() {
+            mCancelled = true;
+            mDone = true;
+            mObservers.clear();
+            mFuture.cancel(true);
+        }
+    }
+
+    /**
+     * Future whose cancellation also disconnects the request its thread is blocked on.
+     */
+    static class CancellableTask<T> extends FutureTask<T> {
+
+        /**
+         * Thread running the task, null when it isn't running.
+         */
+        private Thread mRunner;
+
+        CancellableTask(Callable<T> callable) {
+            super(callable);
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                mRunner = Thread.currentThread();
+            }
+            try {
+                super.run();
+            } finally {
+                // Cleared under the lock, so cancel() can't abort the next task of the thread.
+                synchronized (this) {
+                    mRunner = null;
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (mRunner != null) {
+                        NewsHttpClient.abort(mRunner);
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Works out the smallest show-fields / show-tags combination The Guardian API has to
+ * return for the data a screen actually binds.
+ * <p>
+ * Title, section, date and url are part of every search result, so a list that only binds
+ * those doesn't need any show-fields at all. Body fields are only asked for when a single
+ * article is opened, see {@link #ARTICLE_BODY}. Requests ask for a projection with
+ * {@link NewsRequest.Builder#fields(FieldProjection)}.
+ */
+public class FieldProjection {
+
+    /**
+     * A piece of article data a screen can bind, and where the API keeps it.
+     */
+    public enum Field {
+        TITLE(null, null),
+        SECTION(null, null),
+        PUBLICATION_DATE(null, null),
+        URL(null, null),
+        AUTHOR(null, "contributor"),
+        THUMBNAIL("thumbnail", null),
+        BODY("body", null);
+
+        /**
+         * Value for the show-fields parameter, or null if the data is always returned.
+         */
+        private final String mShowField;
+
+        /**
+         * Value for the show-tags parameter, or null if no tag is needed.
+         */
+        private final String mShowTag;
+
+        Field(String showField, String showTag) {
+            mShowField = showField;
+            mShowTag = showTag;
+        }
+    }
+
+    /**
+     * Projection for a single article opened for reading.
+     */
+    public static final FieldProjection ARTICLE_BODY = of(EnumSet.of(Field.BODY));
+
+    /**
+     * Comma separated show-fields value, empty if none are needed.
+     */
+    private final String mShowFields;
+
+    /**
+     * Comma separated show-tags value, empty if none are needed.
+     */
+    private final String mShowTags;
+
+    private FieldProjection(String showFields, String showTags) {
+        mShowFields = showFields;
+        mShowTags = showTags;
+    }
+
+    /**
+     * Returns the projection needed to bind the given fields.
+     */
+    public static FieldProjection of(Collection<Field> fields) {
+        // Sorted, so the same set of fields always produces the same URL.
+        Set<String> showFields = new TreeSet<>();
+        Set<String> showTags = new TreeSet<>();
+        for (Field field : fields) {
+            if (field.mShowField != null) {
+                showFields.add(field.mShowField);
+            }
+            if (field.mShowTag != null) {
+                showTags.add(field.mShowTag);
+            }
+        }
+        return new FieldProjection(join(showFields), join(showTags));
+    }
+
+    /**
+     * Joins the values with commas; plain Java, so the projection works in unit tests too.
+     */
+    private static String join(Set<String> values) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Returns the show-fields value, empty if none are needed.
+     */
+    public String getShowFields() {
+        return mShowFields;
+    }
+
+    /**
+     * Returns the show-tags value, empty if none are needed.
+     */
+    public String getShowTags() {
+        return mShowTags;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.ayush.theguardiannews;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Records the frames of a list while it scrolls, see {@link Metrics#FRAME},
+ * {@link Metrics#FRAMES} and {@link Metrics#FRAMES_MISSED}.
+ * <p>
+ * Every frame callback while the list is dragged or flung records the time since the previous
+ * one; a gap of more than one refresh period means the vsyncs in between were missed.
+ * Needs the Choreographer, so it does nothing before Jelly Bean.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class FrameMonitor extends RecyclerView.OnScrollListener implements Choreographer.FrameCallback {
+
+    private final long mFrameNanos;
+
+    private boolean mScrolling;
+
+    /**
+     * Time of the previous frame while scrolling, 0 if none yet.
+     */
+    private long mLastFrameNanos;
+
+    private FrameMonitor(long frameNanos) {
+        mFrameNanos = frameNanos;
+    }
+
+    /**
+     * Starts recording the frames of the list whenever it scrolls.
+     */
+    static void attach(RecyclerView recyclerView) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return;
+        }
+        WindowManager windowManager = (WindowManager) recyclerView.getContext()
+                .getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = windowManager.getDefaultDisplay().getRefreshRate();
+        if (refreshRate < 10) {
+            refreshRate = 60;
+        }
+        recyclerView.addOnScrollListener(new FrameMonitor((long) (1000000000L / refreshRate)));
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        boolean scrolling = newState != RecyclerView.SCROLL_STATE_IDLE;
+        if (scrolling && !mScrolling) {
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        } else if (!scrolling && mScrolling) {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+        mScrolling = scrolling;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mScrolling) {
+            return;
+        }
+        if (mLastFrameNanos != 0) {
+            long interval = frameTimeNanos - mLastFrameNanos;
+            Metrics.recordNanos(Metrics.FRAME, interval);
+            Metrics.count(Metrics.FRAMES, 1);
+            // Half a period of slack for vsync jitter.
+            long missed = (interval + mFrameNanos / 2) / mFrameNanos - 1;
+            if (missed > 0) {
+                Metrics.count(Metrics.FRAMES_MISSED, missed);
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the server answers a request with something other than 200.
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int mCode;
+    private final long mRetryAfterMillis;
+
+    /**
+     * Constructs a new {@link HttpStatusException}.
+     *
+     * @param code             HTTP status code of the response
+     * @param retryAfterMillis how long the server asked us to wait, or -1 if it didn't say
+     */
+    public HttpStatusException(int code, long retryAfterMillis) {
+        super("Error response code: " + code);
+        mCode = code;
+        mRetryAfterMillis = retryAfterMillis;
+    }
+
+    public int getCode() {
+        return mCode;
+    }
+
+    /**
+     * Returns how long the server asked us to wait before trying again, from the
+     * Retry-After header, or -1 if it didn't say.
+     */
+    public long getRetryAfterMillis() {
+        return mRetryAfterMillis;
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where the fetch pipeline records how long its stages take and how much they move.
+ * <p>
+ * Latencies are kept in {@link Histogram}s in microseconds, everything else in plain
+ * counters. Plain Java, so it works the same in the app, the unit tests and the benchmarks.
+ * {@link #dump()} renders it all as text, which the debug build shows in {@link MetricsActivity}.
+ */
+public final class Metrics {
+
+    /**
+     * Latency histograms, in microseconds.
+     */
+    public static final String CONNECT = "http.connect";
+    public static final String TTFB = "http.ttfb";
+    public static final String DOWNLOAD = "http.download";
+    public static final String PARSE = "parse";
+    public static final String LOAD = "loader.load";
+    public static final String DIFF = "list.diff";
+    public static final String BIND = "list.bind";
+    public static final String TEXT_LAYOUT_PREPARE = "text_layout.prepare";
+    public static final String FRAME = "list.frame";
+    public static final String THUMBNAIL_LOAD = "thumbnail.load";
+    public static final String THUMBNAIL_DECODE = "thumbnail.decode";
+    public static final String ARTICLE_OPEN = "article.open";
+
+    /**
+     * Size histograms, per request.
+     */
+    public static final String BYTES_PER_REQUEST = "http.bytes_per_request";
+    public static final String ARTICLES_PER_REQUEST = "parse.articles_per_request";
+
+    /**
+     * Size of the thumbnail memory cache in kilobytes, whenever a thumbnail is added.
+     */
+    public static final String THUMBNAIL_MEMORY_KB = "thumbnail.memory_kb";
+
+    /**
+     * Counters.
+     */
+    public static final String REQUESTS = "http.requests";
+    public static final String REQUEST_ERRORS = "http.errors";
+    public static final String RETRIES = "http.retries";
+    public static final String RATE_LIMITED = "http.rate_limited";
+    public static final String COALESCED = "http.coalesced";
+    public static final String HTTP_CACHE_HITS = "http.cache.hit";
+    public static final String HTTP_CACHE_MISSES = "http.cache.miss";
+    public static final String STORE_HITS = "store.hit";
+    public static final String STORE_MISSES = "store.miss";
+    public static final String RESULT_CACHE_HITS = "result_cache.hit";
+    public static final String RESULT_CACHE_MISSES = "result_cache.miss";
+    public static final String SEARCH_CACHE_HITS = "search.cache.hit";
+    public static final String SEARCH_CACHE_MISSES = "search.cache.miss";
+    public static final String TEXT_LAYOUT_HITS = "text_layout.hit";
+    public static final String TEXT_LAYOUT_MISSES = "text_layout.miss";
+    public static final String FRAMES = "list.frames";
+    public static final String FRAMES_MISSED = "list.frames_missed";
+    public static final String THUMBNAIL_MEMORY_HITS = "thumbnail.memory.hit";
+    public static final String THUMBNAIL_MEMORY_MISSES = "thumbnail.memory.miss";
+    public static final String THUMBNAIL_DISK_HITS = "thumbnail.disk.hit";
+    public static final String THUMBNAIL_DOWNLOADS = "thumbnail.downloads";
+    public static final String THUMBNAIL_REUSED = "thumbnail.reused";
+    public static final String THUMBNAIL_CANCELLED = "thumbnail.cancelled";
+    public static final String DELTA_SYNCS = "sync.delta";
+    public static final String DELTA_SYNC_FALLBACKS = "sync.delta.full_fallback";
+    public static final String DELTA_SYNC_NEW_ARTICLES = "sync.delta.new_articles";
+    public static final String ARTICLE_BODY_HITS = "article.body.hit";
+    public static final String ARTICLE_BODY_MISSES = "article.body.miss";
+    public static final String ARTICLE_PREFETCHES = "article.prefetches";
+    public static final String ARTICLE_PREFETCH_SKIPPED = "article.prefetch.skipped";
+    public static final String ARTICLE_PREFETCH_BYTES = "article.prefetch.bytes";
+    public static final String ARTICLE_PREFETCH_USED_BYTES = "article.prefetch.used_bytes";
+    public static final String ARTICLE_PREFETCH_WASTED_BYTES = "article.prefetch.wasted_bytes";
+
+    private static final ConcurrentMap<String, Histogram> sHistograms = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, AtomicLong> sCounters = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it the first time.
+     */
+    public static Histogram histogram(String name) {
+        Histogram histogram = sHistograms.get(name);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = sHistograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Records the time since startNanos, a {@link System#nanoTime()}, in microseconds.
+     */
+    public static void recordSince(String name, long startNanos) {
+        recordNanos(name, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a duration given in nanoseconds, in microseconds.
+     */
+    public static void recordNanos(String name, long nanos) {
+        histogram(name).record(nanos / 1000);
+    }
+
+    /**
+     * Adds to the counter with the given name.
+     */
+    public static void count(String name, long delta) {
+        AtomicLong counter = sCounters.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = sCounters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.addAndGet(delta);
+    }
+
+    /**
+     * Returns the value of the counter with the given name, 0 if it was never counted.
+     */
+    public static long getCount(String name) {
+        AtomicLong counter = sCounters.get(name);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public static void reset() {
+        for (Histogram histogram : sHistograms.values()) {
+            histogram.reset();
+        }
+        for (AtomicLong counter : sCounters.values()) {
+            counter.set(0);
+        }
+    }
+
+    /**
+     * Returns all histograms and counters as a text table, plus the hit ratio of every cache.
+     */
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-28s %7s %8s %8s %8s %8s %8s%n",
+                "histogram", "count", "mean", "p50", "p95", "p99", "max"));
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(sHistograms).entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.append(String.format("%-28s %7d %8d %8d %8d %8d %8d%n", entry.getKey(),
+                    histogram.getCount(), histogram.getMean(), histogram.getPercentile(50),
+                    histogram.getPercentile(95), histogram.getPercentile(99), histogram.getMax()));
+        }
+        out.append("(latencies in microseconds)\n\n");
+
+        out.append(String.format("%-28s %7s%n", "counter", "value"));
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(sCounters).entrySet()) {
+            out.append(String.format("%-28s %7d%n", entry.getKey(), entry.getValue().get()));
+        }
+        out.append('\n');
+
+        appendHitRatio(out, "http cache", HTTP_CACHE_HITS, HTTP_CACHE_MISSES);
+        appendHitRatio(out, "result cache", RESULT_CACHE_HITS, RESULT_CACHE_MISSES);
+        appendHitRatio(out, "article store", STORE_HITS, STORE_MISSES);
+        appendHitRatio(out, "search cache", SEARCH_CACHE_HITS, SEARCH_CACHE_MISSES);
+        appendHitRatio(out, "text layout", TEXT_LAYOUT_HITS, TEXT_LAYOUT_MISSES);
+        appendHitRatio(out, "thumbnail memory", THUMBNAIL_MEMORY_HITS, THUMBNAIL_MEMORY_MISSES);
+        // Whatever missed memory was either on disk or downloaded.
+        appendHitRatio(out, "thumbnail disk", THUMBNAIL_DISK_HITS, THUMBNAIL_DOWNLOADS);
+        appendHitRatio(out, "article body", ARTICLE_BODY_HITS, ARTICLE_BODY_MISSES);
+        // Prefetched bytes that left the cache without the article being opened.
+        long prefetched = getCount(ARTICLE_PREFETCH_BYTES);
+        out.append(String.format("%-28s %6.1f%% of %d bytes%n", "prefetch wasted",
+                prefetched == 0 ? 0 : 100.0 * getCount(ARTICLE_PREFETCH_WASTED_BYTES) / prefetched,
+                prefetched));
+        // Every vsync while scrolling either drew a frame or missed one.
+        long missed = getCount(FRAMES_MISSED);
+        long vsyncs = getCount(FRAMES) + missed;
+        out.append(String.format("%-28s %6.1f%% of %d%n", "missed frames",
+                vsyncs == 0 ? 0 : 100.0 * missed / vsyncs, vsyncs));
+        return out.toString();
+    }
+
+    private static void appendHitRatio(StringBuilder out, String label, String hits, String misses) {
+        long hitCount = getCount(hits);
+        long total = hitCount + getCount(misses);
+        out.append(String.format("%-28s %6.1f%% of %d%n", label + " hit ratio",
+                total == 0 ? 0 : 100.0 * hitCount / total, total));
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.example.ayush.theguardiannews;
+
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+/**
+ * Debug screen showing what {@link Metrics} recorded since the app started.
+ */
+public class MetricsActivity extends AppCompatActivity {
+
+    private TextView mMetricsTextView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        mMetricsTextView = (TextView) findViewById(R.id.metrics_text_view);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mMetricsTextView.setText(Metrics.dump());
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_metrics, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+        if (id == R.id.action_reset_metrics) {
+            Metrics.reset();
+        } else if (id != R.id.action_refresh_metrics) {
+            return super.onOptionsItemSelected(item);
+        }
+        mMetricsTextView.setText(Metrics.dump());
+        return true;
+    }
+
+}
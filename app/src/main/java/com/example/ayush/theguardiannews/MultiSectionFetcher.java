@@ -0,0 +1,289 @@
+package com.example.ayush.theguardiannews;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches several sections at once and merges them into a single feed.
+ * <p>
+ * Requests run concurrently on a small shared pool, so the whole fetch takes about as long
+ * as the slowest section rather than the sum of all of them. A section that fails, or whose
+ * request takes longer than {@link #TIMEOUT_MILLIS}, is left out instead of failing the whole feed;
+ * the {@link Result} then says it is incomplete, so it isn't kept as the feed of the query.
+ * Interrupting the calling thread cancels the requests still in flight.
+ * <p>
+ * Fetches nobody is waiting on yet, such as the preload of a tab, go through
+ * {@link #fetchInBackground(List, String)}: a pool of their own at a lower thread priority,
+ * and the rate limit of {@link QueryUtils#getBackground()}.
+ */
+public final class MultiSectionFetcher {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = MultiSectionFetcher.class.getSimpleName();
+
+    /**
+     * Most section requests in flight at once.
+     */
+    private static final int MAX_PARALLEL_REQUESTS = 4;
+    private static final int MAX_PARALLEL_BACKGROUND_REQUESTS = 2;
+
+    /**
+     * Longest we wait for the request of one section, from when it starts. A section queued
+     * behind the others doesn't lose the time it spent waiting for a thread.
+     */
+    static final long TIMEOUT_MILLIS = 15000;
+
+    /**
+     * How often we check whether a queued section started.
+     */
+    private static final long QUEUED_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final String ORDER_BY_OLDEST = "oldest";
+    private static final String ORDER_BY_RELEVANCE = "relevance";
+
+    private static final ExecutorService sExecutor = Executors.newFixedThreadPool(
+            MAX_PARALLEL_REQUESTS, new ThreadFactory() {
+                private int mCount;
+
+                @Override
+                public synchronized Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, LOG_TAG + " #" + (++mCount));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private static final ExecutorService sBackgroundExecutor = Executors.newFixedThreadPool(
+            MAX_PARALLEL_BACKGROUND_REQUESTS, new ThreadFactory() {
+                private int mCount;
+
+                @Override
+                public synchronized Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, LOG_TAG + " background #" + (++mCount));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private MultiSectionFetcher() {
+    }
+
+    /**
+     * Fetches every URL and returns the merged feed, or null if none of them could be fetched.
+     *
+     * @param urls    one request URL per section
+     * @param orderBy order-by of the requests, used to order the merged feed
+     */
+    public static Result fetch(List<String> urls, String orderBy) {
+        return fetch(urls, orderBy, TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Fetches every URL like {@link #fetch(List, String)}, behind the fetches someone is
+     * waiting on.
+     */
+    public static Result fetchInBackground(List<String> urls, String orderBy) {
+        return fetch(urls, orderBy, TIMEOUT_MILLIS, QueryUtils.getBackground(), sBackgroundExecutor);
+    }
+
+    /**
+     * Fetches every URL, giving each request up to the given time, see {@link #fetch(List, String)}.
+     */
+    static Result fetch(List<String> urls, String orderBy, long timeoutMillis) {
+        return fetch(urls, orderBy, timeoutMillis, QueryUtils.getDefault(), sExecutor);
+    }
+
+    private static Result fetch(List<String> urls, String orderBy, long timeoutMillis,
+                                NewsApi api, ExecutorService executor) {
+        if (urls.size() == 1) {
+            try {
+                return new Result(api.fetchNews(urls.get(0)), true);
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem making the HTTP request.", e);
+                return null;
+            }
+        }
+
+        List<SectionRequest> requests = new ArrayList<>(urls.size());
+        List<Future<List<News>>> futures = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            SectionRequest request = new SectionRequest(api, url);
+            // Cancelling a section disconnects its request rather than waiting it out.
+            FutureTask<List<News>> future = new FetchEngine.CancellableTask<>(request);
+            executor.execute(future);
+            requests.add(request);
+            futures.add(future);
+        }
+
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<List<News>> sections = new ArrayList<>(urls.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Future<List<News>> future = futures.get(i);
+            try {
+                sections.add(await(future, requests.get(i), timeoutNanos));
+            } catch (TimeoutException e) {
+                Log.e(LOG_TAG, "Section request timed out");
+                future.cancel(true);
+            } catch (ExecutionException e) {
+                Log.e(LOG_TAG, "Section request failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<List<News>> pending : futures) {
+                    pending.cancel(true);
+                }
+                return null;
+            }
+        }
+
+        if (sections.isEmpty()) {
+            return null;
+        }
+        return new Result(merge(sections, orderBy), sections.size() == urls.size());
+    }
+
+    /**
+     * Waits for the request of a section until it has been running for the given time.
+     */
+    private static List<News> await(Future<List<News>> future, SectionRequest request, long timeoutNanos)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        while (true) {
+            if (request.mStarted) {
+                return future.get(Math.max(0, request.mStartNanos + timeoutNanos - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+            }
+            // Still waiting for a thread; its time only counts once it runs.
+            try {
+                return future.get(Math.min(timeoutNanos, QUEUED_POLL_NANOS), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Check again whether it started.
+            }
+        }
+    }
+
+    /**
+     * Merges the sections into one feed ordered like the requests were, dropping articles
+     * that appear in more than one section.
+     * <p>
+     * Relevance scores of different requests can't be compared, so relevance feeds take the
+     * best article of every section in turn.
+     */
+    static List<News> merge(List<List<News>> sections, String orderBy) {
+        Map<String, News> unique = new LinkedHashMap<>();
+        if (ORDER_BY_RELEVANCE.equals(orderBy)) {
+            int longest = 0;
+            for (List<News> section : sections) {
+                longest = Math.max(longest, section.size());
+            }
+            for (int i = 0; i < longest; i++) {
+                for (List<News> section : sections) {
+                    if (i < section.size()) {
+                        addUnique(unique, section.get(i));
+                    }
+                }
+            }
+            return new ArrayList<>(unique.values());
+        }
+
+        for (List<News> section : sections) {
+            for (News news : section) {
+                addUnique(unique, news);
+            }
+        }
+        List<News> merged = new ArrayList<>(unique.values());
+        final boolean oldestFirst = ORDER_BY_OLDEST.equals(orderBy);
+        // Stable, so articles published at the same time keep their section order.
+        Collections.sort(merged, new Comparator<News>() {
+            @Override
+            public int compare(News a, News b) {
+                long diff = oldestFirst
+                        ? a.getPublicationTime() - b.getPublicationTime()
+                        : b.getPublicationTime() - a.getPublicationTime();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        return merged;
+    }
+
+    private static void addUnique(Map<String, News> unique, News news) {
+        String key = news.getId().isEmpty() ? news.getUrl() : news.getId();
+        if (!unique.containsKey(key)) {
+            unique.put(key, news);
+        }
+    }
+
+    /**
+     * Merged feed of the sections that could be fetched.
+     */
+    public static final class Result {
+
+        private final List<News> mNews;
+        private final boolean mComplete;
+
+        Result(List<News> news, boolean complete) {
+            mNews = news;
+            mComplete = complete;
+        }
+
+        public List<News> getNews() {
+            return mNews;
+        }
+
+        /**
+         * Returns false if a section failed or timed out and was left out; the feed then
+         * mustn't be stored or cached as the one of the query.
+         */
+        public boolean isComplete() {
+            return mComplete;
+        }
+    }
+
+    /**
+     * Fetches one section, noting when it started for its timeout.
+     */
+    private static final class SectionRequest implements Callable<List<News>> {
+
+        private final NewsApi mApi;
+        private final String mUrl;
+
+        volatile boolean mStarted;
+        volatile long mStartNanos;
+
+        SectionRequest(NewsApi api, String url) {
+            mApi = api;
+            mUrl = url;
+        }
+
+        @Override
+        public List<News> call() throws IOException {
+            mStartNanos = System.nanoTime();
+            mStarted = true;
+            return mApi.fetchNews(mUrl);
+        }
+    }
+
+}
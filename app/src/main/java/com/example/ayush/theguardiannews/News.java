@@ -1,47 +1,171 @@
 package com.example.ayush.theguardiannews;
 
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An article of the feed.
+ * <p>
+ * Kept lean, as feeds are held in memory by the thousands: sections, contributors and the
+ * display date and time repeat across articles and come from the {@link StringPool}; the
+ * publication date is kept as a long and the website URL as the id it is made of, and both
+ * are only turned back into Strings when asked for.
+ */
 public class News {
 
+    /**
+     * Prefix of the website URL of an article, followed by its id.
+     */
+    static final String WEBSITE_URL = "https://www.theguardian.com/";
+
+    private static final String[] NO_CONTRIBUTORS = new String[0];
+
+    /**
+     * Guardian id of the article, e.g. "politics/2018/sep/05/some-headline".
+     */
+    private final String mId;
+
     /**
      * Title of Article.
      */
-    private String mTitle;
+    private final String mTitle;
+
+    /**
+     * Name of Section, pooled.
+     */
+    private final String mSection;
+
+    /**
+     * Article publication time in milliseconds since the epoch, 0 if unknown.
+     */
+    private final long mPublicationTime;
+
+    /**
+     * Publication date as received, only kept if it can't be rebuilt from mPublicationTime.
+     */
+    private final String mPublicationDate;
 
     /**
-     * Name of Section.
+     * Publication date and time as shown in the list, formatted off the main thread
+     * by {@link NewsFormatter}. Null until then.
      */
-    private String mSection;
+    private volatile String mDisplayDate;
+    private volatile String mDisplayTime;
 
     /**
-     * Article publication Date & Time.
+     * URL of the article, only kept if it isn't {@link #WEBSITE_URL} + id.
      */
-    private String mPublicationDate;
+    private final String mUrl;
 
     /**
-     * URL of the article.
+     * Names of the contributors, pooled.
      */
-    private String mUrl;
+    private final String[] mContributors;
 
     /**
-     * Author of the article.
+     * URL of the thumbnail picture, null if the article has none.
      */
-    private String mAuthor;
+    private final String mThumbnailUrl;
 
     /**
      * Constructs a new {@link News} object.
      *
+     * @param id              is the Guardian id of the article
      * @param title           is the title of the news article
      * @param section         is the section name of article
      * @param publicationDate is the date & time of article published
      * @param url             is the website url to find more details about article
-     * @param author          is the author name of article
+     * @param author          is the author name of article, "by " + name, or "" if unknown
      */
-    public News(String title, String section, String publicationDate, String url, String author) {
+    public News(String id, String title, String section, String publicationDate, String url, String author) {
+        this(id, title, section, NewsFormatter.parseTimestamp(publicationDate), publicationDate, url,
+                contributorsOf(author), null);
+    }
+
+    /**
+     * Constructs a new {@link News} object.
+     *
+     * @param id              is the Guardian id of the article
+     * @param title           is the title of the news article
+     * @param section         is the section name of article
+     * @param publicationDate is the date & time of article published
+     * @param url             is the website url to find more details about article
+     * @param contributors    are the names of the contributors, in byline order
+     */
+    public News(String id, String title, String section, String publicationDate, String url,
+                List<String> contributors) {
+        this(id, title, section, publicationDate, url, contributors, null);
+    }
+
+    /**
+     * Constructs a new {@link News} object.
+     *
+     * @param id              is the Guardian id of the article
+     * @param title           is the title of the news article
+     * @param section         is the section name of article
+     * @param publicationDate is the date & time of article published
+     * @param url             is the website url to find more details about article
+     * @param contributors    are the names of the contributors, in byline order
+     * @param thumbnailUrl    is the url of the thumbnail picture, or null if there is none
+     */
+    public News(String id, String title, String section, String publicationDate, String url,
+                List<String> contributors, String thumbnailUrl) {
+        this(id, title, section, NewsFormatter.parseTimestamp(publicationDate), publicationDate, url,
+                contributors.toArray(new String[contributors.size()]), thumbnailUrl);
+    }
+
+    /**
+     * Constructs a new {@link News} object from already decoded values, see {@link NewsSnapshot}.
+     *
+     * @param publicationDate the date as received, or null if it is the standard format of
+     *                        publicationTime
+     * @param url             the website url, or null if it is {@link #WEBSITE_URL} + id
+     * @param thumbnailUrl    the url of the thumbnail picture, or null if there is none
+     */
+    News(String id, String title, String section, long publicationTime, String publicationDate,
+         String url, String[] contributors, String thumbnailUrl) {
+        mId = id;
         mTitle = title;
-        mSection = section;
-        mPublicationDate = publicationDate;
-        mUrl = url;
-        mAuthor = author;
+        mSection = StringPool.intern(section);
+        mPublicationTime = publicationTime;
+        mPublicationDate = publicationDate == null || isStandardDate(publicationTime, publicationDate)
+                ? null : publicationDate;
+        mUrl = url == null || isWebsiteUrl(id, url) ? null : url;
+        if (contributors.length == 0) {
+            mContributors = NO_CONTRIBUTORS;
+        } else {
+            mContributors = new String[contributors.length];
+            for (int i = 0; i < contributors.length; i++) {
+                mContributors[i] = StringPool.intern(contributors[i]);
+            }
+        }
+        mThumbnailUrl = thumbnailUrl == null || thumbnailUrl.isEmpty() ? null : thumbnailUrl;
+    }
+
+    private static boolean isStandardDate(long time, String date) {
+        return time != 0 && date.length() == 20 && NewsFormatter.formatTimestamp(time).equals(date);
+    }
+
+    private static boolean isWebsiteUrl(String id, String url) {
+        return !id.isEmpty() && url.length() == WEBSITE_URL.length() + id.length()
+                && url.startsWith(WEBSITE_URL) && url.endsWith(id);
+    }
+
+    /**
+     * Returns the contributor of a byline made by {@link #getAuthor()} for a single one.
+     */
+    static String[] contributorsOf(String author) {
+        if (author == null || author.isEmpty()) {
+            return NO_CONTRIBUTORS;
+        }
+        return new String[]{author.startsWith("by ") ? author.substring(3) : author};
+    }
+
+    /**
+     * Returns the Guardian id of the article, used to ask for its body when it is opened.
+     */
+    public String getId() {
+        return mId;
     }
 
     /**
@@ -59,24 +183,155 @@ public class News {
     }
 
     /**
-     * Returns the Date & Time of article published.
+     * Returns the Date & Time of article published, e.g. "2018-09-05T14:30:00Z".
      */
     public String getPublicationDate() {
-        return mPublicationDate;
+        return mPublicationDate != null ? mPublicationDate : NewsFormatter.formatTimestamp(mPublicationTime);
+    }
+
+    /**
+     * Returns true if the publication date is the standard format of the publication time.
+     */
+    boolean hasStandardDate() {
+        return mPublicationDate == null;
+    }
+
+    /**
+     * Returns the publication time in milliseconds since the epoch, 0 if unknown.
+     */
+    public long getPublicationTime() {
+        return mPublicationTime;
+    }
+
+    /**
+     * Returns the publication date as shown in the list, e.g. "Sep 05, 2018".
+     */
+    public String getDisplayDate() {
+        if (mDisplayDate == null) {
+            NewsFormatter.format(this);
+        }
+        return mDisplayDate;
+    }
+
+    /**
+     * Returns the publication time as shown in the list, e.g. "8:00 PM".
+     */
+    public String getDisplayTime() {
+        if (mDisplayTime == null) {
+            NewsFormatter.format(this);
+        }
+        return mDisplayTime;
+    }
+
+    /**
+     * Returns true once the display date and time have been formatted.
+     */
+    boolean isFormatted() {
+        return mDisplayTime != null;
+    }
+
+    /**
+     * Caches the display date and time, see {@link NewsFormatter}.
+     */
+    void setDisplayDateTime(String displayDate, String displayTime) {
+        mDisplayDate = StringPool.intern(displayDate);
+        mDisplayTime = StringPool.intern(displayTime);
     }
 
     /**
      * Returns the website Url of the article.
      */
     public String getUrl() {
-        return mUrl;
+        return mUrl != null ? mUrl : WEBSITE_URL + mId;
+    }
+
+    /**
+     * Returns true if the url is {@link #WEBSITE_URL} + id.
+     */
+    boolean hasWebsiteUrl() {
+        return mUrl == null;
+    }
+
+    /**
+     * Returns the url of the thumbnail picture, or null if the article has none.
+     */
+    public String getThumbnailUrl() {
+        return mThumbnailUrl;
+    }
+
+    /**
+     * Returns the names of the contributors, in byline order.
+     */
+    public List<String> getContributors() {
+        return Arrays.asList(mContributors);
     }
 
     /**
-     * Returns the author name of article.
+     * Returns the byline of the article, e.g. "by Alex Hern and Jim Waterson", or an empty
+     * String if it has no contributors.
      */
     public String getAuthor() {
-        return mAuthor;
+        int count = mContributors.length;
+        if (count == 0) {
+            return "";
+        }
+        if (count == 1) {
+            return "by " + mContributors[0];
+        }
+        StringBuilder byline = new StringBuilder("by ");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                byline.append(i == count - 1 ? " and " : ", ");
+            }
+            byline.append(mContributors[i]);
+        }
+        return byline.toString();
+    }
+
+    /**
+     * Returns true if both objects are the same Guardian article, whether or not its
+     * content changed since.
+     */
+    public boolean isSameArticle(News other) {
+        if (!mId.isEmpty() || !other.mId.isEmpty()) {
+            return mId.equals(other.mId);
+        }
+        return getUrl().equals(other.getUrl());
+    }
+
+    /**
+     * Two {@link News} are equal if everything shown about the article is the same.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof News)) {
+            return false;
+        }
+        News other = (News) o;
+        return mId.equals(other.mId)
+                && mTitle.equals(other.mTitle)
+                && mSection.equals(other.mSection)
+                && mPublicationTime == other.mPublicationTime
+                && equal(mPublicationDate, other.mPublicationDate)
+                && equal(mUrl, other.mUrl)
+                && Arrays.equals(mContributors, other.mContributors)
+                && equal(mThumbnailUrl, other.mThumbnailUrl);
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mId.hashCode();
+        result = 31 * result + mTitle.hashCode();
+        result = 31 * result + (int) (mPublicationTime ^ (mPublicationTime >>> 32));
+        result = 31 * result + (mUrl != null ? mUrl.hashCode() : 0);
+        return result;
     }
 
 }
@@ -1,153 +1,141 @@
 package com.example.ayush.theguardiannews;
 
-import android.app.LoaderManager;
 import android.app.SearchManager;
 import android.content.Context;
 import android.content.Intent;
-import android.content.Loader;
 import android.content.SharedPreferences;
+import android.graphics.Color;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
-import android.net.Uri;
 import android.preference.PreferenceManager;
-import android.support.v4.widget.SwipeRefreshLayout;
+import android.support.v4.view.PagerTabStrip;
+import android.support.v4.view.ViewPager;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
-import android.support.v7.widget.DefaultItemAnimator;
-import android.support.v7.widget.LinearLayoutManager;
-import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.SearchView;
 import android.view.Menu;
 import android.view.MenuItem;
-import android.view.View;
-import android.widget.ImageView;
-import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
-public class NewsActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<List<News>>,
-        SwipeRefreshLayout.OnRefreshListener {
+/**
+ * Home screen, a tab with the feed of every category, see {@link SectionPagerAdapter}.
+ * <p>
+ * The tab on screen is remembered as the category setting, so the app opens on it next time
+ * and the splash screen and the background sync warm up its feed.
+ */
+public class NewsActivity extends AppCompatActivity {
 
     /**
-     * URL to fetch news articles from The Guardian News API
+     * Tabs of the categories
      */
-    private static final String GUARDIAN_NEWS_QUERY_URL =
-            "https://content.guardianapis.com/search?";
+    private ViewPager mViewPager;
 
-    /**
-     * Constant value for the news loader ID. We can choose any integer.
-     * This really only comes into play if you're using multiple loaders.
-     */
-    private static final int NEWS_LOADER_ID = 1;
-
-    /**
-     * Adapter for the list of news
-     */
-    private NewsAdapter mAdapter;
-
-    /**
-     * TextView that is displayed when the list is empty
-     */
-    private TextView mEmptyStateTextView;
-
-    /**
-     * ImageView that is displayed when the list is empty
-     */
-    private ImageView mEmptyStateImageView;
+    private SectionPagerAdapter mSectionAdapter;
 
     /**
-     * Swipe to do a refresh
+     * Our jobs; they outlive a rotation and are cancelled when the activity finishes.
      */
-    private SwipeRefreshLayout swipe;
+    private FetchEngine.Scope mScope;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_news);
 
-        // Swipe to do refresh
-        swipe = (SwipeRefreshLayout) findViewById(R.id.swipe_refresh);
-        swipe.setOnRefreshListener(this);
-        swipe.setColorSchemeColors(getResources().getColor(R.color.colorAccent));
-
-        RecyclerView recyclerView = findViewById(R.id.recycler_view);
-        List<News> newsList = new ArrayList<>();
-        mAdapter = new NewsAdapter(this, newsList);
+        PagerTabStrip tabStrip = (PagerTabStrip) findViewById(R.id.tab_strip);
+        tabStrip.setTabIndicatorColor(Color.WHITE);
+        tabStrip.setDrawFullUnderline(false);
 
-        RecyclerView.LayoutManager mLayoutManager = new LinearLayoutManager(this);
-        recyclerView.setLayoutManager(mLayoutManager);
-        recyclerView.setItemAnimator(new DefaultItemAnimator());
-        recyclerView.setAdapter(mAdapter);
+        // After a rotation the feed jobs are still there, running or done, and the tabs pick up
+        // where they are.
+        mScope = FetchEngine.getInstance().scope(NewsActivity.class.getName());
+        mSectionAdapter = new SectionPagerAdapter(this, mScope);
 
-        mEmptyStateTextView = (TextView) findViewById(R.id.empty_text_view);
-        mEmptyStateImageView = (ImageView) findViewById(R.id.empty_image_view);
-
-        // Get a reference to the ConnectivityManager to check state of network connectivity.
-        ConnectivityManager connMgr = (ConnectivityManager)
-                getSystemService(Context.CONNECTIVITY_SERVICE);
-
-        // Get details on the currently active default data network.
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
-        boolean isConnected = networkInfo != null &&
-                networkInfo.isConnectedOrConnecting();
-
-        // If there is a network connection, fetch data
-        if (isConnected) {
-
-            // Get a reference to the LoaderManager, in order to interact with loaders.
-            LoaderManager loaderManager = getLoaderManager();
-
-            // Initialize the loader. Pass in the int ID constant defined above and pass in null for
-            // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
-            // because this activity implements the LoaderCallbacks interface).
-            loaderManager.initLoader(NEWS_LOADER_ID, null, this);
+        mViewPager = (ViewPager) findViewById(R.id.view_pager);
+        mViewPager.setAdapter(mSectionAdapter);
+        if (savedInstanceState == null) {
+            mViewPager.setCurrentItem(Math.max(0, mSectionAdapter.getPosition(getCategory(this))), false);
+        }
+        mViewPager.addOnPageChangeListener(new ViewPager.SimpleOnPageChangeListener() {
+            @Override
+            public void onPageSelected(int position) {
+                setCategory(NewsActivity.this, mSectionAdapter.getCategory(position));
+            }
+        });
 
-        } else {
+    }
 
-            // Otherwise, display error
-            // First, hide loading indicator so error message will be visible
-            View loadingIndicator = findViewById(R.id.loading_indicator);
-            loadingIndicator.setVisibility(View.GONE);
+    @Override
+    protected void onResume() {
+        super.onResume();
 
-            // Update empty state with no connection image
-            mEmptyStateImageView.setVisibility(View.VISIBLE);
-            mEmptyStateImageView.setImageResource(R.drawable.ic_no_internet_connection);
+        // Go to the category picked in the settings, if it changed while we were away
+        int position = mSectionAdapter.getPosition(getCategory(this));
+        if (position >= 0 && position != mViewPager.getCurrentItem()) {
+            mViewPager.setCurrentItem(position, false);
+        }
 
-            // Update empty state with no connection error message
-            mEmptyStateTextView.setVisibility(View.VISIBLE);
-            mEmptyStateTextView.setText(R.string.no_internet_connection);
+        // Reload if the settings changed while we were away
+        mSectionAdapter.onResume();
+    }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mSectionAdapter.detach();
+        if (isFinishing()) {
+            mScope.close();
         }
-
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu, menu);
+        menu.findItem(R.id.action_metrics).setVisible(BuildConfig.DEBUG);
 
         // Associate searchable configuration with the SearchView
         SearchManager searchManager =
                 (SearchManager) getSystemService(Context.SEARCH_SERVICE);
-        SearchView searchView =
-                (SearchView) menu.findItem(R.id.action_search).getActionView();
+        final MenuItem searchItem = menu.findItem(R.id.action_search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
         searchView.setSearchableInfo(
                 searchManager.getSearchableInfo(getComponentName()));
+
+        // Searching happens on its own screen, which takes over as soon as the user types.
         searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
-                return false;
+                openSearch(searchItem, query);
+                return true;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                return false;
+                if (!newText.trim().isEmpty()) {
+                    openSearch(searchItem, newText);
+                }
+                return true;
             }
         });
 
         return true;
     }
 
+    /**
+     * Opens the search screen with the given query and collapses the search box here.
+     */
+    private void openSearch(MenuItem searchItem, String query) {
+        Intent searchIntent = new Intent(this, SearchActivity.class);
+        searchIntent.setAction(Intent.ACTION_SEARCH);
+        searchIntent.putExtra(SearchManager.QUERY, query);
+        startActivity(searchIntent);
+        searchItem.collapseActionView();
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
@@ -156,129 +144,156 @@ public class NewsActivity extends AppCompatActivity implements LoaderManager.Loa
             startActivity(settingsIntent);
             return true;
         }
+        if (id == R.id.action_metrics) {
+            startActivity(new Intent(this, MetricsActivity.class));
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 
-    @Override
-    public Loader<List<News>> onCreateLoader(int i, Bundle bundle) {
-
-        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(this);
-
-        String category = sharedPrefs.getString(
-                getString(R.string.settings_choose_category_key),
-                getString(R.string.settings_choose_category_default));
-
-        String limit = sharedPrefs.getString(
-                getString(R.string.settings_limit_key),
-                getString(R.string.settings_limit_default));
-
-        String orderBy = sharedPrefs.getString(
-                getString(R.string.settings_order_by_key),
-                getString(R.string.settings_order_by_default));
-
-
-        Uri baseUri = Uri.parse(GUARDIAN_NEWS_QUERY_URL);
-        Uri.Builder uriBuilder = baseUri.buildUpon();
-
-        if (category.equals(getString(R.string.settings_choose_category_all_value))) {
-            uriBuilder.appendQueryParameter("page-size", limit);
-            uriBuilder.appendQueryParameter("order-by", orderBy);
-            uriBuilder.appendQueryParameter("show-fields", "all");
-            uriBuilder.appendQueryParameter("show-tags", "contributor");
-            uriBuilder.appendQueryParameter("api-key", "7f2a6112-1bfc-44c7-af20-477ebbfd7486");
-        } else {
-            uriBuilder.appendQueryParameter("section", category);
-            uriBuilder.appendQueryParameter("page-size", limit);
-            uriBuilder.appendQueryParameter("order-by", orderBy);
-            uriBuilder.appendQueryParameter("show-fields", "all");
-            uriBuilder.appendQueryParameter("show-tags", "contributor");
-            uriBuilder.appendQueryParameter("api-key", "7f2a6112-1bfc-44c7-af20-477ebbfd7486");
-        }
-        // Create a new loader for the given URL
-        return new NewsLoader(this, uriBuilder.toString());
+    /**
+     * Returns the normalized query (sections, page-size, order-by, fields) for the current
+     * settings, see {@link NewsRequest#keyOf(List)}. Stored articles are kept under this key.
+     */
+    public static String buildQueryKey(Context context) {
+        return NewsRequest.keyOf(buildQueryRequests(context, 1));
+    }
 
+    /**
+     * Returns the Guardian API request URLs for the first page with the current settings.
+     */
+    public static List<String> buildQueryUrls(Context context) {
+        return NewsRequest.urlsOf(buildQueryRequests(context, 1));
     }
 
-    @Override
-    public void onLoadFinished(Loader<List<News>> loader, List<News> news) {
+    /**
+     * Returns the Guardian API requests for the given page with the current settings,
+     * one for every section to show.
+     */
+    public static List<NewsRequest> buildQueryRequests(Context context, int page) {
+        return buildSectionRequests(context, getCategory(context), page);
+    }
 
-        swipe.setRefreshing(false);
+    /**
+     * Returns the Guardian API requests for the given page of a category's tab, one for
+     * every section to show in it.
+     */
+    public static List<NewsRequest> buildSectionRequests(Context context, String category, int page) {
+        String all = context.getString(R.string.settings_choose_category_all_value);
+        List<NewsRequest> requests = new ArrayList<>();
+        for (String section : getSections(context, category)) {
+            requests.add(NewsRequest.search()
+                    .section(section.equals(all) ? null : section)
+                    .pageSize(getPageSize(context))
+                    .orderBy(getOrderBy(context))
+                    // Only ask for the fields the list actually shows
+                    .fields(FieldProjection.of(NewsAdapter.BOUND_FIELDS))
+                    .page(page)
+                    .build());
+        }
+        return requests;
+    }
 
-        View loadingIndicator = findViewById(R.id.loading_indicator);
-        loadingIndicator.setVisibility(View.GONE);
+    /**
+     * Returns the Guardian API request for the body of a single article.
+     */
+    public static NewsRequest buildArticleRequest(String id) {
+        return NewsRequest.item(id).fields(FieldProjection.ARTICLE_BODY).build();
+    }
 
-        // Update empty state with no news articles found image
-        mEmptyStateImageView.setVisibility(View.VISIBLE);
-        mEmptyStateImageView.setImageResource(R.drawable.ic_no_news_article_found);
+    /**
+     * Returns the Guardian API request searching all sections for the given query.
+     */
+    public static NewsRequest buildSearchRequest(Context context, String query) {
+        return NewsRequest.search()
+                .query(query)
+                .pageSize(getPageSize(context))
+                .orderBy("relevance")
+                // Only ask for the fields the list actually shows
+                .fields(FieldProjection.of(NewsAdapter.BOUND_FIELDS))
+                .build();
+    }
 
-        // Set empty state text to display "No News Article Found."
-        mEmptyStateTextView.setVisibility(View.VISIBLE);
-        mEmptyStateTextView.setText(R.string.no_news_article);
+    /**
+     * Returns the sections to show in a category's tab. Two or more picked sections replace
+     * all of them in the "all" tab, and are listed in settings order so the same pick always
+     * gives the same query.
+     */
+    public static List<String> getSections(Context context, String category) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        Set<String> picked = sharedPrefs.getStringSet(
+                context.getString(R.string.settings_sections_key), Collections.<String>emptySet());
+        if (picked.size() >= 2 && category.equals(context.getString(R.string.settings_choose_category_all_value))) {
+            List<String> sections = new ArrayList<>();
+            for (String section : context.getResources().getStringArray(R.array.settings_sections_values)) {
+                if (picked.contains(section)) {
+                    sections.add(section);
+                }
+            }
+            return sections;
+        }
+        return Collections.singletonList(category);
+    }
 
-        // Clear the adapter of previous news data
-        mAdapter.clear();
+    /**
+     * Returns the category setting, the tab the app opens on.
+     */
+    public static String getCategory(Context context) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        return sharedPrefs.getString(
+                context.getString(R.string.settings_choose_category_key),
+                context.getString(R.string.settings_choose_category_default));
+    }
 
-        // If there is a valid list of {@link New}s, then add them to the adapter's
-        // data set. This will trigger the RecyclerView to update.
-        if (news != null && !news.isEmpty()) {
-            mAdapter.addAll(news);
-            // Hide empty TextView and ImageView because the data has been loaded
-            mEmptyStateImageView.setVisibility(View.GONE);
-            mEmptyStateTextView.setVisibility(View.GONE);
-        }
+    /**
+     * Remembers the tab on screen as the category setting.
+     */
+    private static void setCategory(Context context, String category) {
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putString(context.getString(R.string.settings_choose_category_key), category)
+                .apply();
+    }
 
+    private static String getLimit(Context context) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        return sharedPrefs.getString(
+                context.getString(R.string.settings_limit_key),
+                context.getString(R.string.settings_limit_default)).trim();
     }
 
-    @Override
-    public void onLoaderReset(Loader<List<News>> loader) {
-        // Loader reset, so we can clear out our existing data.
-        mAdapter.clear();
+    /**
+     * Returns the page-size setting as a number.
+     */
+    static int getPageSize(Context context) {
+        try {
+            return Integer.parseInt(getLimit(context));
+        } catch (NumberFormatException e) {
+            return Integer.parseInt(context.getString(R.string.settings_limit_default));
+        }
     }
 
-    @Override
-    public void onRefresh() {
+    /**
+     * Returns the order-by setting.
+     */
+    public static String getOrderBy(Context context) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        return sharedPrefs.getString(
+                context.getString(R.string.settings_order_by_key),
+                context.getString(R.string.settings_order_by_default));
+    }
 
+    /**
+     * Returns true if there is a network connection.
+     */
+    static boolean isConnected(Context context) {
         // Get a reference to the ConnectivityManager to check state of network connectivity.
         ConnectivityManager connMgr = (ConnectivityManager)
-                getSystemService(Context.CONNECTIVITY_SERVICE);
+                context.getSystemService(Context.CONNECTIVITY_SERVICE);
 
         // Get details on the currently active default data network.
         NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
-        boolean isConnected = networkInfo != null &&
-                networkInfo.isConnectedOrConnecting();
-
-        // If there is a network connection, fetch data
-        if (isConnected) {
-
-            // Get a reference to the LoaderManager, in order to interact with loaders.
-            LoaderManager loaderManager = getLoaderManager();
-
-            // Initialize the loader. Pass in the int ID constant defined above and pass in null for
-            // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
-            // because this activity implements the LoaderCallbacks interface).
-            loaderManager.restartLoader(NEWS_LOADER_ID, null, this);
-
-        } else {
-
-            swipe.setRefreshing(false);
-
-            // Otherwise, display error
-            // First, hide loading indicator so error message will be visible
-            View loadingIndicator = findViewById(R.id.loading_indicator);
-            loadingIndicator.setVisibility(View.GONE);
-
-            // Update empty state with no connection image
-            mEmptyStateImageView.setVisibility(View.VISIBLE);
-            mEmptyStateImageView.setImageResource(R.drawable.ic_no_internet_connection);
-
-            // Update empty state with no connection error message
-            mEmptyStateTextView.setVisibility(View.VISIBLE);
-            mEmptyStateTextView.setText(R.string.no_internet_connection);
-
-            mAdapter.clear();
-
-        }
-
+        return networkInfo != null && networkInfo.isConnectedOrConnecting();
     }
 
 }
@@ -4,17 +4,23 @@ import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.support.annotation.NonNull;
+import android.support.v7.recyclerview.extensions.AsyncDifferConfig;
+import android.support.v7.recyclerview.extensions.AsyncListDiffer;
+import android.support.v7.util.AdapterListUpdateCallback;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
 
 /**
  * A {@link NewsAdapter} knows how to create a list item layout for each news article
@@ -25,20 +31,87 @@ import java.util.Locale;
  */
 public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.MyViewHolder> {
 
+    /**
+     * Article data bound by {@link #onBindViewHolder(MyViewHolder, int)}. Requests for this
+     * list only ask the API for these, see {@link FieldProjection}.
+     */
+    public static final EnumSet<FieldProjection.Field> BOUND_FIELDS = EnumSet.of(
+            FieldProjection.Field.TITLE,
+            FieldProjection.Field.SECTION,
+            FieldProjection.Field.PUBLICATION_DATE,
+            FieldProjection.Field.URL,
+            FieldProjection.Field.AUTHOR,
+            FieldProjection.Field.THUMBNAIL);
+
+    /**
+     * Tells the list which rows are the same article and whether they changed.
+     */
+    private static final DiffUtil.ItemCallback<News> DIFF_CALLBACK = new DiffUtil.ItemCallback<News>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull News oldNews, @NonNull News newNews) {
+            return oldNews.isSameArticle(newNews);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull News oldNews, @NonNull News newNews) {
+            return oldNews.equals(newNews);
+        }
+    };
+
+    /**
+     * Rows kept bound just off screen, so scrolling back a little doesn't bind them again.
+     */
+    private static final int ITEM_VIEW_CACHE_SIZE = 4;
+
+    /**
+     * Spare rows kept for reuse, about two screens' worth of news_list_item. The default of 5
+     * is less than a screen, so a fling, or a diff that replaces a screen of rows, ends up
+     * inflating new ones.
+     */
+    private static final int VIEW_POOL_SIZE = 12;
+
+    /**
+     * Set once the first row of the process was bound, see {@link StartupTrace}.
+     * Only touched on the main thread.
+     */
+    private static boolean sFirstItemBound;
+
     private Context context;
-    private List<News> newsList;
+
+    /**
+     * When the last list was submitted, 0 once its changes were applied.
+     */
+    private long mSubmitNanos;
+
+    /**
+     * Rows with a thumbnail request, until they are recycled or {@link #release()}d.
+     */
+    private final Set<MyViewHolder> mBoundHolders = new HashSet<>();
+
+    /**
+     * Works out the changes between lists on a background thread and applies only those.
+     */
+    private final AsyncListDiffer<News> differ = new AsyncListDiffer<>(
+            new TimedUpdateCallback(new AdapterListUpdateCallback(this)),
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).build());
 
     /**
      * ViewHolder class to hold exact set of views
      */
     static class MyViewHolder extends RecyclerView.ViewHolder {
-        private TextView title;
+        private TitleView title;
         private TextView section;
         private TextView date;
         private TextView time;
         private TextView author;
+        private ImageView thumbnail;
         private View parentView;
 
+        /**
+         * Thumbnail loading into, or shown in, this row; null if none.
+         */
+        private ThumbnailLoader.Request thumbnailRequest;
+
         /**
          * Represents the views of RecyclerView.
          *
@@ -46,23 +119,39 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.MyViewHolder>
          */
         private MyViewHolder(View view) {
             super(view);
-            this.title = (TextView) view.findViewById(R.id.article_title);
+            this.title = (TitleView) view.findViewById(R.id.article_title);
             this.section = (TextView) view.findViewById(R.id.section_name);
             this.date = (TextView) view.findViewById(R.id.date);
             this.time = (TextView) view.findViewById(R.id.time);
             this.author = (TextView) view.findViewById(R.id.author_name);
+            this.thumbnail = (ImageView) view.findViewById(R.id.thumbnail);
             this.parentView = view;
         }
 
     }
 
     /**
-     * @param context  holds the application resources
-     * @param newsList is the list of the news object
+     * @param context holds the application resources
      */
-    public NewsAdapter(Context context, List<News> newsList) {
+    public NewsAdapter(Context context) {
         this.context = context;
-        this.newsList = newsList;
+    }
+
+    /**
+     * Sets up a list of news rows for smooth flings: rows are prefetched while the list is
+     * idle between frames, more of them are kept around for reuse, and the frames are
+     * recorded in {@link Metrics}, see {@link FrameMonitor}. The bodies of the articles on
+     * screen are prefetched while the list is at rest, see {@link ArticlePrefetcher}.
+     */
+    public static void setUpList(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+        // The list fills the screen whatever it shows.
+        recyclerView.setHasFixedSize(true);
+        layoutManager.setItemPrefetchEnabled(true);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setItemViewCacheSize(ITEM_VIEW_CACHE_SIZE);
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(0, VIEW_POOL_SIZE);
+        FrameMonitor.attach(recyclerView);
+        ArticlePrefetcher.attach(recyclerView, layoutManager);
     }
 
     /**
@@ -87,30 +176,43 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.MyViewHolder>
     @Override
     public void onBindViewHolder(@NonNull MyViewHolder holder, int position) {
 
+        if (!sFirstItemBound) {
+            sFirstItemBound = true;
+            StartupTrace.mark(StartupTrace.Phase.FIRST_ITEM_BOUND);
+        }
+        long bindStart = System.nanoTime();
+
         // Find the current news that was clicked on
-        final News news = newsList.get(position);
+        final News news = differ.getCurrentList().get(position);
 
-        // Set title name to display
+        // Set title name to display; its layout was most likely prepared on the loading thread
         holder.title.setText(news.getTitle());
 
         // Set section name to display
         holder.section.setText(news.getSection());
 
-        String date = news.getPublicationDate();
+        // Date and time were most likely formatted on the loader thread, only stored articles
+        // past the first screen are formatted here
+        NewsFormatter.format(news);
+        holder.date.setText(news.getDisplayDate());
+        holder.time.setText(news.getDisplayTime());
 
-        String newsDate = formatDate(date);
-        // Set date to display
-        holder.date.setText(newsDate);
-        String newsTime = formatTime(date);
-        // Set time to display
-        holder.time.setText(newsTime);
+        // Set author's name to display; the byline is built on every call, so only once
+        String author = news.getAuthor();
+        if (author.length() > 1) {
+            holder.author.setText(author);
+        } else {
+            holder.author.setText(context.getString(R.string.by_anonymous));
+        }
 
-        // Set author's name to display
-        String noAuthor = (context.getString(R.string.by_anonymous));
-        if (news.getAuthor().length() > 1) {
-            holder.author.setText(news.getAuthor());
+        // Drop the thumbnail of the article this row showed before, loaded or not
+        ThumbnailLoader thumbnails = ThumbnailLoader.getInstance(context);
+        thumbnails.clear(holder.thumbnailRequest);
+        holder.thumbnailRequest = thumbnails.load(news.getThumbnailUrl(), holder.thumbnail);
+        if (holder.thumbnailRequest != null) {
+            mBoundHolders.add(holder);
         } else {
-            holder.author.setText(noAuthor);
+            mBoundHolders.remove(holder);
         }
 
         // Set an on click listener on that view
@@ -118,6 +220,12 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.MyViewHolder>
             @Override
             public void onClick(View v) {
 
+                // Read it in the app; its body was most likely prefetched while the list was idle
+                if (!news.getId().isEmpty()) {
+                    context.startActivity(ArticleActivity.newIntent(context, news));
+                    return;
+                }
+
                 // Convert the String URL into a URI object (to pass into the Intent constructor)
                 Uri newsUri = Uri.parse(news.getUrl());
 
@@ -130,19 +238,50 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.MyViewHolder>
             }
         });
 
+        Metrics.recordSince(Metrics.BIND, bindStart);
+    }
+
+    /**
+     * Stops loading the thumbnail of a row that scrolled off, and lets its bitmap be reused.
+     */
+    @Override
+    public void onViewRecycled(@NonNull MyViewHolder holder) {
+        ThumbnailLoader.getInstance(context).clear(holder.thumbnailRequest);
+        holder.thumbnailRequest = null;
+        mBoundHolders.remove(holder);
     }
 
-    // Clear the adapter of previous news data
-    public void clear() {
-        newsList.clear();
-        notifyDataSetChanged();
+    /**
+     * Cancels the thumbnails still loading and lets go of the ones shown, when the list goes
+     * away. Rows still on screen or kept off it are never recycled, so their bitmaps would
+     * stay counted as shown and never be reused.
+     */
+    public void release() {
+        ThumbnailLoader thumbnails = ThumbnailLoader.getInstance(context);
+        for (MyViewHolder holder : mBoundHolders) {
+            thumbnails.clear(holder.thumbnailRequest);
+            holder.thumbnailRequest = null;
+        }
+        mBoundHolders.clear();
     }
 
-    // If there is a valid list of {@link New}s, then add them to the adapter's
-    // data set. This will trigger the RecyclerView to update.
-    public void addAll(List<News> news) {
-        newsList.addAll(news);
-        notifyItemInserted(newsList.size() - 1);
+    /**
+     * Replaces the list with the given one. The difference is worked out on a background
+     * thread, so only the inserted, moved and changed rows get updated and the scroll
+     * position is kept.
+     *
+     * @param news is the new list of the news object, not modified afterwards
+     */
+    public void submitList(List<News> news) {
+        mSubmitNanos = System.nanoTime();
+        differ.submitList(news);
+    }
+
+    /**
+     * Returns the article in the given row.
+     */
+    News getItem(int position) {
+        return differ.getCurrentList().get(position);
     }
 
     /**
@@ -152,45 +291,51 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.MyViewHolder>
      */
     @Override
     public int getItemCount() {
-        return newsList.size();
+        return differ.getCurrentList().size();
     }
 
     /**
-     * This method format the date into a specific pattern.
-     *
-     * @param dateObj is the web publication date.
-     * @return a date formatted into string.
-     */
-    private String formatDate(String dateObj) {
-        String formattedDate = "";
-        SimpleDateFormat inputDate = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
-        SimpleDateFormat outputDate = new SimpleDateFormat("LLL dd, yyyy", Locale.getDefault());
-        try {
-            Date newDate = inputDate.parse(dateObj);
-            return outputDate.format(newDate);
-        } catch (ParseException e) {
-            e.printStackTrace();
+     * Records how long it took from submitting a list until its changes were applied.
+     * Unchanged lists apply nothing and aren't recorded.
+     */
+    private class TimedUpdateCallback implements ListUpdateCallback {
+
+        private final ListUpdateCallback mCallback;
+
+        TimedUpdateCallback(ListUpdateCallback callback) {
+            mCallback = callback;
         }
-        return formattedDate;
-    }
 
-    /**
-     * This method format the time into a specific pattern.
-     *
-     * @param dateObj is the web publication date.
-     * @return time formatted into string.
-     */
-    private String formatTime(String dateObj) {
-        String formattedTime = "";
-        SimpleDateFormat inputTime = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
-        SimpleDateFormat outputTime = new SimpleDateFormat("h:mm a", Locale.getDefault());
-        try {
-            Date newDate = inputTime.parse(dateObj);
-            return outputTime.format(newDate);
-        } catch (ParseException e) {
-            e.printStackTrace();
+        @Override
+        public void onInserted(int position, int count) {
+            recordDiff();
+            mCallback.onInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            recordDiff();
+            mCallback.onRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            recordDiff();
+            mCallback.onMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            recordDiff();
+            mCallback.onChanged(position, count, payload);
+        }
+
+        private void recordDiff() {
+            if (mSubmitNanos != 0) {
+                Metrics.recordSince(Metrics.DIFF, mSubmitNanos);
+                mSubmitNanos = 0;
+            }
         }
-        return formattedTime;
     }
 
 }
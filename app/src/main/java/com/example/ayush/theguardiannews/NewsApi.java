@@ -0,0 +1,30 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches and parses responses of the Guardian API.
+ * <p>
+ * {@link QueryUtils} is the implementation used by the app; it sends the requests through a
+ * {@link NewsTransport}.
+ */
+public interface NewsApi {
+
+    /**
+     * Fetches a search request and returns its articles.
+     *
+     * @throws IOException if the request failed or the response couldn't be parsed
+     */
+    List<News> fetchNews(String requestUrl) throws IOException;
+
+    /**
+     * Fetches a single item request (https://content.guardianapis.com/{id}) and returns the
+     * values of its show-fields, e.g. the body asked for with {@link FieldProjection#ARTICLE_BODY}.
+     *
+     * @throws IOException if the request failed or the response couldn't be parsed
+     */
+    Map<String, String> fetchArticleFields(String requestUrl) throws IOException;
+
+}
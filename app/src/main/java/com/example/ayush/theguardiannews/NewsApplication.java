@@ -0,0 +1,35 @@
+package com.example.ayush.theguardiannews;
+
+import android.app.Application;
+
+import java.io.File;
+
+/**
+ * Sets up the process wide pieces shared by all the screens.
+ */
+public class NewsApplication extends Application {
+
+    /**
+     * Upper bound on the size of the HTTP response cache.
+     */
+    private static final long HTTP_CACHE_BYTES = 5 * 1024 * 1024L;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTrace.markProcessStart();
+        NewsHttpClient.install(new File(getCacheDir(), "http"), HTTP_CACHE_BYTES);
+        BackgroundSync.schedule(this);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ThumbnailLoader.getInstance(this).trimMemory(level);
+        ArticleBodies.getInstance(this).trimMemory(level);
+        if (level >= TRIM_MEMORY_MODERATE) {
+            ResultCache.getInstance().clear();
+        }
+    }
+
+}
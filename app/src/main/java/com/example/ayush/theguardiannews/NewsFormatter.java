@@ -0,0 +1,174 @@
+package com.example.ayush.theguardiannews;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses publication timestamps and formats them for display, away from the bind path.
+ * <p>
+ * Timestamps are parsed once, when a {@link News} is created, and the date and time shown
+ * in the list are formatted on the loader thread and cached on the {@link News}.
+ */
+public final class NewsFormatter {
+
+    /**
+     * Formatters aren't thread safe, so every thread gets its own pair.
+     */
+    private static final ThreadLocal<SimpleDateFormat[]> sFormats = new ThreadLocal<SimpleDateFormat[]>() {
+        @Override
+        protected SimpleDateFormat[] initialValue() {
+            return new SimpleDateFormat[]{
+                    new SimpleDateFormat("LLL dd, yyyy", Locale.getDefault()),
+                    new SimpleDateFormat("h:mm a", Locale.getDefault())};
+        }
+    };
+
+    private NewsFormatter() {
+    }
+
+    /**
+     * Parses a Guardian webPublicationDate such as "2018-09-05T14:30:00Z" (always UTC) into
+     * milliseconds since the epoch. Returns 0 if the date isn't in that format.
+     */
+    public static long parseTimestamp(String date) {
+        if (date == null || date.length() < 20 || date.charAt(4) != '-' || date.charAt(7) != '-'
+                || date.charAt(10) != 'T' || date.charAt(13) != ':' || date.charAt(16) != ':') {
+            return 0;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        int hour = digits(date, 11, 13);
+        int minute = digits(date, 14, 16);
+        int second = digits(date, 17, 19);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return 0;
+        }
+        long days = daysFromCivil(year, month, day);
+        return ((days * 24 + hour) * 60 + minute) * 60000L + second * 1000L;
+    }
+
+    /**
+     * Formats milliseconds since the epoch the way the Guardian API does, e.g.
+     * "2018-09-05T14:30:00Z"; the inverse of {@link #parseTimestamp(String)}.
+     */
+    static String formatTimestamp(long time) {
+        long seconds = floorDiv(time, 1000L);
+        long days = floorDiv(seconds, 86400L);
+        int secondOfDay = (int) (seconds - days * 86400L);
+
+        // Inverse of daysFromCivil().
+        long shifted = days + 719468;
+        long era = (shifted >= 0 ? shifted : shifted - 146096) / 146097;
+        long dayOfEra = shifted - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        char[] out = new char[20];
+        appendDigits(out, 0, year, 4);
+        out[4] = '-';
+        appendDigits(out, 5, month, 2);
+        out[7] = '-';
+        appendDigits(out, 8, day, 2);
+        out[10] = 'T';
+        appendDigits(out, 11, secondOfDay / 3600, 2);
+        out[13] = ':';
+        appendDigits(out, 14, secondOfDay / 60 % 60, 2);
+        out[16] = ':';
+        appendDigits(out, 17, secondOfDay % 60, 2);
+        out[19] = 'Z';
+        return new String(out);
+    }
+
+    /**
+     * Formats the display date and time of every article that doesn't have them yet.
+     * Call from a background thread.
+     */
+    public static void format(List<News> newsList) {
+        if (newsList == null) {
+            return;
+        }
+        for (News news : newsList) {
+            format(news);
+        }
+    }
+
+    /**
+     * Formats the display date and time of the article if it doesn't have them yet.
+     */
+    static void format(News news) {
+        if (news.isFormatted()) {
+            return;
+        }
+        long time = news.getPublicationTime();
+        if (time == 0) {
+            news.setDisplayDateTime("", "");
+            return;
+        }
+        news.setDisplayDateTime(formatDate(time), formatTime(time));
+    }
+
+    /**
+     * Returns the date shown in the list for a publication time, e.g. "Sep 05, 2018".
+     */
+    static String formatDate(long time) {
+        return sFormats.get()[0].format(new Date(time));
+    }
+
+    /**
+     * Returns the time shown in the list for a publication time, e.g. "2:30 PM".
+     */
+    static String formatTime(long time) {
+        return sFormats.get()[1].format(new Date(time));
+    }
+
+    /**
+     * Division rounding towards negative infinity; Math.floorDiv needs API 24.
+     */
+    private static long floorDiv(long x, long y) {
+        long quotient = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? quotient - 1 : quotient;
+    }
+
+    private static void appendDigits(char[] out, int start, long value, int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Returns the number in date[start, end), or -1 if it isn't all digits.
+     */
+    private static int digits(String date, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 of the given proleptic Gregorian date.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+}
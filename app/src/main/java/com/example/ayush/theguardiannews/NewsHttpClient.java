@@ -0,0 +1,564 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP client behind {@link QueryUtils}, the {@link NewsTransport} used by the app.
+ * <p>
+ * Asks for gzip explicitly, keeps responses that carry an ETag or Last-Modified in an
+ * on-disk cache and revalidates them with conditional requests, so an unchanged response
+ * costs a 304 instead of the whole body. Connections are only disconnected when a request is
+ * cancelled, see {@link #abort(Thread)}; otherwise bodies are read to the end and closed so the
+ * underlying socket goes back to the keep-alive pool.
+ * <p>
+ * Every request records its connect, time-to-first-byte and download times and its size
+ * in {@link Metrics}.
+ */
+public class NewsHttpClient implements NewsTransport {
+
+    private static final int READ_TIMEOUT_MILLIS = 10000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 15000;
+
+    /**
+     * How much of an unread body we are willing to drain on close to keep the connection.
+     */
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private static NewsHttpClient sInstance = new NewsHttpClient(null, 0);
+
+    /**
+     * Connection every thread has open, until its response is closed. Interrupting a thread
+     * doesn't unblock a socket read, so cancelling a request disconnects it instead.
+     */
+    private static final ConcurrentMap<Thread, HttpURLConnection> sOpenConnections =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Body bytes every thread received over the network, see {@link #getBytesReceivedOnThread()}.
+     */
+    private static final ThreadLocal<long[]> sThreadBytesReceived = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    /**
+     * Where cached responses are kept, or null if caching is off.
+     */
+    private final File mCacheDir;
+    private final long mMaxCacheBytes;
+
+    private final AtomicLong mRequestCount = new AtomicLong();
+    private final AtomicLong mBytesReceived = new AtomicLong();
+    private final AtomicLong mCacheHitCount = new AtomicLong();
+
+    /**
+     * Constructs a new {@link NewsHttpClient}.
+     *
+     * @param cacheDir      where responses are cached, or null to not cache
+     * @param maxCacheBytes upper bound on the size of the cache
+     */
+    public NewsHttpClient(File cacheDir, long maxCacheBytes) {
+        mCacheDir = cacheDir;
+        mMaxCacheBytes = maxCacheBytes;
+    }
+
+    /**
+     * Installs a client with an on-disk cache as the one used by the app.
+     */
+    public static synchronized void install(File cacheDir, long maxCacheBytes) {
+        if (!cacheDir.equals(sInstance.mCacheDir)) {
+            sInstance = new NewsHttpClient(cacheDir, maxCacheBytes);
+        }
+    }
+
+    /**
+     * Returns the client used by the app.
+     */
+    public static synchronized NewsHttpClient getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Performs a GET request. The caller must close the returned {@link Response}.
+     */
+    @Override
+    public Response get(URL url) throws IOException {
+        String key = CacheUtils.fileNameFor(url.toString());
+        CacheEntry cached = readCacheEntry(key);
+
+        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        urlConnection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        urlConnection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        urlConnection.setRequestMethod("GET");
+        // We do the caching and the gzip decoding ourselves.
+        urlConnection.setUseCaches(false);
+        urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+        if (cached != null) {
+            if (cached.etag.length() > 0) {
+                urlConnection.setRequestProperty("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified.length() > 0) {
+                urlConnection.setRequestProperty("If-Modified-Since", cached.lastModified);
+            }
+        }
+
+        Thread thread = Thread.currentThread();
+        sOpenConnections.put(thread, urlConnection);
+        try {
+            if (thread.isInterrupted()) {
+                throw new InterruptedIOException("Request cancelled");
+            }
+            return execute(urlConnection, key, cached);
+        } catch (IOException | RuntimeException e) {
+            release(urlConnection);
+            throw e;
+        }
+    }
+
+    private Response execute(HttpURLConnection urlConnection, String key, CacheEntry cached)
+            throws IOException {
+        mRequestCount.incrementAndGet();
+        Metrics.count(Metrics.REQUESTS, 1);
+        int code;
+        try {
+            // Connecting explicitly tells the connection setup apart from the server's time.
+            long connectStart = System.nanoTime();
+            urlConnection.connect();
+            Metrics.recordSince(Metrics.CONNECT, connectStart);
+            long requestStart = System.nanoTime();
+            code = urlConnection.getResponseCode();
+            Metrics.recordSince(Metrics.TTFB, requestStart);
+        } catch (IOException e) {
+            Metrics.count(Metrics.REQUEST_ERRORS, 1);
+            throw e;
+        }
+        if (code >= 400) {
+            Metrics.count(Metrics.REQUEST_ERRORS, 1);
+        }
+
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            drainAndClose(urlConnection.getInputStream());
+            release(urlConnection);
+            mCacheHitCount.incrementAndGet();
+            Metrics.count(Metrics.HTTP_CACHE_HITS, 1);
+            // Touch the entry so eviction picks on the others first.
+            long now = System.currentTimeMillis();
+            cached.metaFile.setLastModified(now);
+            cached.bodyFile.setLastModified(now);
+            return new Response(HttpURLConnection.HTTP_OK, true, new FileInputStream(cached.bodyFile));
+        }
+
+        long retryAfterMillis = parseRetryAfter(urlConnection.getHeaderField("Retry-After"));
+        InputStream stream = code < 400 ? urlConnection.getInputStream() : urlConnection.getErrorStream();
+        if (stream == null) {
+            release(urlConnection);
+            return new Response(code, false, null, null, retryAfterMillis);
+        }
+
+        CountingInputStream network = new CountingInputStream(stream, mBytesReceived);
+        InputStream body = network;
+        if ("gzip".equalsIgnoreCase(urlConnection.getContentEncoding())) {
+            body = new GZIPInputStream(body);
+        }
+
+        if (code == HttpURLConnection.HTTP_OK && mCacheDir != null) {
+            Metrics.count(Metrics.HTTP_CACHE_MISSES, 1);
+            String etag = urlConnection.getHeaderField("ETag");
+            String lastModified = urlConnection.getHeaderField("Last-Modified");
+            if (etag != null || lastModified != null) {
+                body = new CacheWritingInputStream(body, key, urlConnection.getURL().toString(),
+                        etag != null ? etag : "", lastModified != null ? lastModified : "");
+            }
+        }
+
+        Response response = new Response(code, false, body, network, retryAfterMillis);
+        response.mConnection = urlConnection;
+        return response;
+    }
+
+    /**
+     * Disconnects the connection the thread has open, if any, so a request it is blocked on
+     * fails right away. Used to cancel requests; the thread should be interrupted as well,
+     * so it doesn't retry.
+     */
+    public static void abort(Thread thread) {
+        HttpURLConnection connection = sOpenConnections.remove(thread);
+        if (connection != null) {
+            connection.disconnect();
+        }
+    }
+
+    private static void release(HttpURLConnection connection) {
+        sOpenConnections.remove(Thread.currentThread(), connection);
+    }
+
+    /**
+     * Returns the wait asked for by a Retry-After header in seconds, in milliseconds, or -1
+     * if there is none. HTTP dates are ignored; the Guardian API sends seconds.
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            long seconds = Long.parseLong(value.trim());
+            return seconds >= 0 ? seconds * 1000 : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the number of requests sent to the server.
+     */
+    public long getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    /**
+     * Returns the number of body bytes received over the network, before gzip decoding.
+     */
+    public long getBytesReceived() {
+        return mBytesReceived.get();
+    }
+
+    /**
+     * Returns the number of body bytes the calling thread received over the network, before
+     * gzip decoding, by any client. The difference before and after a request is what it cost.
+     */
+    public static long getBytesReceivedOnThread() {
+        return sThreadBytesReceived.get()[0];
+    }
+
+    /**
+     * Returns the number of requests answered from the cache after a 304.
+     */
+    public long getCacheHitCount() {
+        return mCacheHitCount.get();
+    }
+
+    /**
+     * Response to a GET request.
+     */
+    public static class Response implements Closeable {
+
+        private final int mCode;
+        private final boolean mFromCache;
+        private final InputStream mBody;
+
+        /**
+         * The body as it comes off the network, null if it doesn't.
+         */
+        private final CountingInputStream mNetwork;
+
+        private final long mRetryAfterMillis;
+
+        /**
+         * Connection the body is read from, released on close.
+         */
+        private HttpURLConnection mConnection;
+
+        Response(int code, boolean fromCache, InputStream body) {
+            this(code, fromCache, body, null, -1);
+        }
+
+        Response(int code, boolean fromCache, InputStream body, CountingInputStream network,
+                 long retryAfterMillis) {
+            mCode = code;
+            mFromCache = fromCache;
+            mBody = body;
+            mNetwork = network;
+            mRetryAfterMillis = retryAfterMillis;
+        }
+
+        /**
+         * Returns the HTTP status code; a revalidated cached response reports 200.
+         */
+        public int getCode() {
+            return mCode;
+        }
+
+        /**
+         * Returns true if the body comes from the cache after a 304.
+         */
+        public boolean isFromCache() {
+            return mFromCache;
+        }
+
+        /**
+         * Returns how long the server asked us to wait before trying again, or -1 if it
+         * didn't say, see {@link #parseRetryAfter(String)}.
+         */
+        public long getRetryAfterMillis() {
+            return mRetryAfterMillis;
+        }
+
+        /**
+         * Returns the decoded body, or null if the server sent none.
+         */
+        public InputStream getBody() {
+            return mBody;
+        }
+
+        /**
+         * Returns how long reads of the body waited on the network so far, in nanoseconds.
+         */
+        long getReadNanos() {
+            return mNetwork != null ? mNetwork.getReadNanos() : 0;
+        }
+
+        /**
+         * Reads what is left of the body, so the connection can be reused and the response
+         * cached, and closes it.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (mBody != null) {
+                    drainAndClose(mBody);
+                }
+            } finally {
+                if (mConnection != null) {
+                    release(mConnection);
+                }
+            }
+            if (mNetwork != null) {
+                Metrics.recordNanos(Metrics.DOWNLOAD, mNetwork.getReadNanos());
+                Metrics.histogram(Metrics.BYTES_PER_REQUEST).record(mNetwork.getByteCount());
+            }
+        }
+    }
+
+    private static void drainAndClose(InputStream in) throws IOException {
+        try {
+            byte[] buffer = new byte[4096];
+            int drained = 0;
+            int read;
+            while (drained < MAX_DRAIN_BYTES && (read = in.read(buffer)) != -1) {
+                drained += read;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the cached response for the given key, or null if there is none.
+     */
+    private CacheEntry readCacheEntry(String key) {
+        if (mCacheDir == null) {
+            return null;
+        }
+        File metaFile = new File(mCacheDir, key + ".meta");
+        File bodyFile = new File(mCacheDir, key + ".body");
+        if (!metaFile.exists() || !bodyFile.exists()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(metaFile));
+            in.readUTF(); // url
+            return new CacheEntry(metaFile, bodyFile, in.readUTF(), in.readUTF());
+        } catch (IOException e) {
+            metaFile.delete();
+            return null;
+        } finally {
+            CacheUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Validators and files of a cached response.
+     */
+    private static class CacheEntry {
+        final File metaFile;
+        final File bodyFile;
+        final String etag;
+        final String lastModified;
+
+        CacheEntry(File metaFile, File bodyFile, String etag, String lastModified) {
+            this.metaFile = metaFile;
+            this.bodyFile = bodyFile;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Counts the bytes read from the network and the time spent waiting for them.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final AtomicLong mCounter;
+        private long mByteCount;
+        private long mReadNanos;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            mCounter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            mReadNanos += System.nanoTime() - start;
+            if (b != -1) {
+                mCounter.incrementAndGet();
+                sThreadBytesReceived.get()[0]++;
+                mByteCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            long start = System.nanoTime();
+            int read = super.read(buffer, offset, count);
+            mReadNanos += System.nanoTime() - start;
+            if (read > 0) {
+                mCounter.addAndGet(read);
+                sThreadBytesReceived.get()[0] += read;
+                mByteCount += read;
+            }
+            return read;
+        }
+
+        long getByteCount() {
+            return mByteCount;
+        }
+
+        long getReadNanos() {
+            return mReadNanos;
+        }
+    }
+
+    /**
+     * Copies the body into the cache while it is read. The entry is only committed once the
+     * whole body went through, so a cancelled read never leaves a truncated response behind.
+     */
+    private class CacheWritingInputStream extends FilterInputStream {
+
+        private final String mKey;
+        private final String mUrl;
+        private final String mEtag;
+        private final String mLastModified;
+        private File mTmpFile;
+        private OutputStream mOut;
+        private boolean mComplete;
+
+        CacheWritingInputStream(InputStream in, String key, String url, String etag,
+                                String lastModified) {
+            super(in);
+            mKey = key;
+            mUrl = url;
+            mEtag = etag;
+            mLastModified = lastModified;
+            try {
+                if (mCacheDir.exists() || mCacheDir.mkdirs()) {
+                    mTmpFile = File.createTempFile(key, ".tmp", mCacheDir);
+                    mOut = new BufferedOutputStream(new FileOutputStream(mTmpFile));
+                }
+            } catch (IOException e) {
+                abort();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                mComplete = true;
+            } else if (mOut != null) {
+                try {
+                    mOut.write(b);
+                } catch (IOException e) {
+                    abort();
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int read = super.read(buffer, offset, count);
+            if (read == -1) {
+                mComplete = true;
+            } else if (mOut != null) {
+                try {
+                    mOut.write(buffer, offset, read);
+                } catch (IOException e) {
+                    abort();
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (mOut != null) {
+                    if (mComplete) {
+                        commit();
+                    } else {
+                        abort();
+                    }
+                }
+            }
+        }
+
+        private void commit() {
+            File bodyFile = new File(mCacheDir, mKey + ".body");
+            File metaFile = new File(mCacheDir, mKey + ".meta");
+            DataOutputStream meta = null;
+            try {
+                mOut.close();
+                mOut = null;
+                if (!mTmpFile.renameTo(bodyFile)) {
+                    abort();
+                    return;
+                }
+                meta = new DataOutputStream(new FileOutputStream(metaFile));
+                meta.writeUTF(mUrl);
+                meta.writeUTF(mEtag);
+                meta.writeUTF(mLastModified);
+            } catch (IOException e) {
+                metaFile.delete();
+            } finally {
+                CacheUtils.closeQuietly(meta);
+            }
+            CacheUtils.trimToSize(mCacheDir, mMaxCacheBytes);
+        }
+
+        private void abort() {
+            CacheUtils.closeQuietly(mOut);
+            mOut = null;
+            if (mTmpFile != null) {
+                mTmpFile.delete();
+            }
+        }
+    }
+
+}
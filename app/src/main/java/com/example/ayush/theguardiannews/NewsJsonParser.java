@@ -0,0 +1,239 @@
+package com.example.ayush.theguardiannews;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming parser for The Guardian search responses.
+ * <p>
+ * Reads response.results straight from the {@link InputStream} with a pull parser and
+ * emits one {@link News} object per article. Fields we don't use (body, standfirst, tag
+ * bios, ...) are skipped without ever being turned into Strings or maps.
+ */
+public class NewsJsonParser {
+
+    /**
+     * Receives the parsed articles, one at a time, in the order of the response.
+     */
+    public interface Callback {
+        void onNews(News news);
+    }
+
+    private NewsJsonParser() {
+    }
+
+    /**
+     * Parse the given stream and return a list of {@link News} objects.
+     */
+    public static List<News> parse(InputStream inputStream) throws IOException {
+        final List<News> newsList = new ArrayList<>();
+        parse(inputStream, new Callback() {
+            @Override
+            public void onNews(News news) {
+                newsList.add(news);
+            }
+        });
+        return newsList;
+    }
+
+    /**
+     * Parse the given stream and hand every article to the callback as soon as it is read.
+     */
+    public static void parse(InputStream inputStream, Callback callback) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("response".equals(reader.nextName())) {
+                    readResponse(reader, callback);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException e) {
+            // JsonReader reports unexpected tokens this way; surface them like any other bad payload.
+            throw new IOException("Unexpected JSON structure", e);
+        }
+    }
+
+    /**
+     * Parse a single item response (response.content) and return its show-fields values,
+     * e.g. "body" when requested with {@link FieldProjection#ARTICLE_BODY}.
+     */
+    public static Map<String, String> parseContentFields(InputStream inputStream) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("response".equals(reader.nextName())) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if ("content".equals(reader.nextName())) {
+                            readContentFields(reader, fields);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException e) {
+            throw new IOException("Unexpected JSON structure", e);
+        }
+        return fields;
+    }
+
+    /**
+     * Reads the "fields" object of response.content into the given map.
+     */
+    private static void readContentFields(JsonReader reader, Map<String, String> fields) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("fields".equals(reader.nextName())) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (reader.peek() == JsonToken.STRING) {
+                        fields.put(name, reader.nextString());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Reads the "response" object, looking only at the "results" array.
+     */
+    private static void readResponse(JsonReader reader, Callback callback) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("results".equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    News news = readArticle(reader);
+                    if (news != null) {
+                        callback.onNews(news);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Reads a single article. Returns null if the article has no title or url.
+     */
+    private static News readArticle(JsonReader reader) throws IOException {
+        String id = "";
+        String title = null;
+        String section = "";
+        String date = "";
+        String url = null;
+        List<String> contributors = Collections.emptyList();
+        String thumbnailUrl = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    id = reader.nextString();
+                    break;
+                case "webTitle":
+                    title = reader.nextString();
+                    break;
+                case "sectionName":
+                    section = reader.nextString();
+                    break;
+                case "webPublicationDate":
+                    date = reader.nextString();
+                    break;
+                case "webUrl":
+                    url = reader.nextString();
+                    break;
+                case "tags":
+                    contributors = readContributors(reader);
+                    break;
+                case "fields":
+                    thumbnailUrl = readThumbnail(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (title == null || url == null) {
+            return null;
+        }
+        return new News(id, title, section, date, url, contributors, thumbnailUrl);
+    }
+
+    /**
+     * Reads the "fields" object and returns the thumbnail url, or null if there is none.
+     */
+    private static String readThumbnail(JsonReader reader) throws IOException {
+        String thumbnailUrl = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("thumbnail".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                thumbnailUrl = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return thumbnailUrl;
+    }
+
+    /**
+     * Reads the "tags" array and returns the names of the contributors, in byline order.
+     */
+    private static List<String> readContributors(JsonReader reader) throws IOException {
+        List<String> contributors = new ArrayList<>(2);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("webTitle".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                    contributors.add(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+        return contributors;
+    }
+
+}
@@ -1,54 +1,269 @@
 package com.example.ayush.theguardiannews;
 
-import android.content.AsyncTaskLoader;
 import android.content.Context;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
- * Loads a list of news articles by using an AsyncTask to perform the
- * network request to the given URL.
+ * Loads a list of news articles on a {@link FetchEngine} worker by performing the
+ * network requests to the given URLs, see {@link MultiSectionFetcher}.
+ * <p>
+ * Emits whatever the {@link ArticleStore} has for the query straight away and then
+ * revalidates it against the network. The network result is only emitted if it differs
+ * from the stored one.
+ * <p>
+ * A refresh of a stored feed only asks for the articles published since, see {@link DeltaSync}.
+ * A loader in the background, e.g. for a tab next to the one on screen, fetches behind the
+ * others, see {@link MultiSectionFetcher#fetchInBackground(List, String)}.
  */
-public class NewsLoader extends AsyncTaskLoader<List<News>> {
+public class NewsLoader implements FetchEngine.Task<List<News>> {
 
     /**
-     * Tag for log messages
+     * Stored articles formatted and laid out before they are shown, about a screen of rows.
+     * The rest are only decoded from the {@link ArticleStore} once they are scrolled to.
      */
-    private static final String LOG_TAG = NewsLoader.class.getName();
+    static final int FIRST_SCREEN = 10;
 
     /**
-     * Query URL
+     * Application context, null if the store was given.
      */
-    private String mUrl;
+    private final Context mContext;
+
+    /**
+     * Store of the results, null to use the app's.
+     */
+    private final ArticleStore mArticleStore;
+
+    /**
+     * Query, one request per section
+     */
+    private final List<NewsRequest> mRequests;
+
+    /**
+     * Query URLs, one per section
+     */
+    private final List<String> mUrls;
+
+    /**
+     * Order-by of the query, used to merge the sections
+     */
+    private final String mOrderBy;
+
+    /**
+     * Normalized query, see {@link NewsRequest#keyOf(List)}.
+     */
+    private final String mKey;
+
+    /**
+     * Normalized query the results are stored under, see {@link ArticleStore}.
+     * Null for pages that aren't stored.
+     */
+    private final String mCacheKey;
+
+    /**
+     * Whether the stored results can be shown before going to the network.
+     */
+    private final boolean mCheckCache;
+
+    /**
+     * Whether the user asked for fresh results.
+     */
+    private final boolean mRefresh;
+
+    /**
+     * Whether nobody is waiting for the results yet.
+     */
+    private final boolean mBackground;
 
     /**
      * Constructs a new {@link NewsLoader}.
      *
-     * @param context of the activity
-     * @param url     to load data from
+     * @param context  of the activity
+     * @param requests to load data from, one per section
+     * @param store    true to store the results, false for pages that aren't
+     * @param refresh  true to skip the cached results and go to the network right away
      */
-    public NewsLoader(Context context, String url) {
-        super(context);
-        mUrl = url;
+    public NewsLoader(Context context, List<NewsRequest> requests, boolean store, boolean refresh) {
+        this(context, requests, store, refresh, false);
     }
 
-    @Override
-    protected void onStartLoading() {
-        forceLoad();
+    /**
+     * Constructs a new {@link NewsLoader}.
+     *
+     * @param context    of the activity
+     * @param requests   to load data from, one per section
+     * @param store      true to store the results, false for pages that aren't
+     * @param refresh    true to skip the cached results and go to the network right away
+     * @param background true to fetch behind the loads someone is waiting on
+     */
+    public NewsLoader(Context context, List<NewsRequest> requests, boolean store, boolean refresh,
+                      boolean background) {
+        this(context.getApplicationContext(), null, requests, store, refresh, background);
+    }
+
+    /**
+     * Constructs a new {@link NewsLoader} keeping its results in the given store.
+     */
+    NewsLoader(ArticleStore articleStore, List<NewsRequest> requests, boolean store, boolean refresh) {
+        this(null, articleStore, requests, store, refresh, false);
+    }
+
+    private NewsLoader(Context context, ArticleStore articleStore, List<NewsRequest> requests,
+                       boolean store, boolean refresh, boolean background) {
+        mContext = context;
+        mArticleStore = articleStore;
+        mRequests = requests;
+        mUrls = NewsRequest.urlsOf(requests);
+        mOrderBy = requests.isEmpty() ? null : requests.get(0).getParameter("order-by");
+        mKey = NewsRequest.keyOf(requests);
+        mCacheKey = store ? mKey : null;
+        mCheckCache = store && !refresh;
+        mRefresh = refresh;
+        mBackground = background;
     }
 
     /**
      * This is on a background thread.
      */
     @Override
-    public List<News> loadInBackground() {
-        if (mUrl == null) {
-            return null;
+    public void run(FetchEngine.Emitter<List<News>> emitter) {
+        if (mUrls == null || mUrls.isEmpty()) {
+            emitter.emit(null);
+            return;
+        }
+
+        // Results fetched a moment ago, e.g. before flipping the settings back, are good as they are.
+        ResultCache results = ResultCache.getInstance();
+        if (!mRefresh) {
+            List<News> recent = results.get(mKey, System.currentTimeMillis());
+            if (recent != null) {
+                Metrics.count(Metrics.RESULT_CACHE_HITS, 1);
+                emitter.emit(recent);
+                return;
+            }
+            Metrics.count(Metrics.RESULT_CACHE_MISSES, 1);
+        }
+
+        ArticleStore store = mArticleStore != null ? mArticleStore : ArticleStore.getInstance(mContext);
+
+        // Serve the stored results first, then revalidate them.
+        List<News> cached = null;
+        if (mCheckCache) {
+            cached = store.read(mCacheKey);
+            if (cached != null && !cached.isEmpty()) {
+                Metrics.count(Metrics.STORE_HITS, 1);
+                prepareFirstScreen(cached);
+                emitter.emit(cached);
+            } else {
+                Metrics.count(Metrics.STORE_MISSES, 1);
+                cached = null;
+            }
         }
 
         // Perform the network request, parse the response, and extract a list of news articles.
-        List<News> news = QueryUtils.fetchNewsData(mUrl);
-        return news;
+        // On a cold start the splash screen already issued it, so wait for that one instead.
+        long loadStart = System.nanoTime();
+        MultiSectionFetcher.Result result;
+        Future<MultiSectionFetcher.Result> prefetch = mCacheKey != null ? StartupPrefetch.take(mCacheKey) : null;
+        if (prefetch != null) {
+            result = StartupPrefetch.await(prefetch);
+        } else if (mRefresh && mCacheKey != null) {
+            result = refresh(store.read(mCacheKey));
+        } else {
+            StartupTrace.mark(StartupTrace.Phase.FETCH_ISSUED);
+            result = fetch(mUrls);
+        }
+        Metrics.recordSince(Metrics.LOAD, loadStart);
+        // Keep showing what we have rather than replacing it with an error, or with a feed
+        // that is missing a section.
+        if (result == null || (cached != null && !result.isComplete())) {
+            if (cached == null) {
+                emitter.emit(null);
+            }
+            return;
+        }
+
+        // Only a complete feed is kept as the one of the query; a section missing from it
+        // would stay missing, as a delta sync only adds what is newer.
+        List<News> news = result.getNews();
+        boolean complete = result.isComplete();
+        if (mCacheKey != null && !news.isEmpty() && prefetch == null && complete) {
+            store.write(mCacheKey, news);
+        }
+
+        if (cached != null && isUnchanged(cached, news)) {
+            results.put(mKey, news, System.currentTimeMillis());
+            return;
+        }
+
+        // Format dates and lay out titles here, so binding the rows doesn't have to.
+        NewsFormatter.format(news);
+        TitleLayouts.prepare(news);
+        if (!news.isEmpty() && complete) {
+            results.put(mKey, news, System.currentTimeMillis());
+        }
+        emitter.emit(news);
+    }
+
+    /**
+     * Formats the dates of the first screen of stored articles and lays out their titles,
+     * leaving the others undecoded; rows further down format their own when bound.
+     */
+    static void prepareFirstScreen(List<News> stored) {
+        List<News> firstScreen = stored.subList(0, Math.min(stored.size(), FIRST_SCREEN));
+        NewsFormatter.format(firstScreen);
+        TitleLayouts.prepare(firstScreen);
+    }
+
+    /**
+     * Returns true if the fetched feed has the stored articles, in the same order and
+     * published at the same times. Only reads the id and publication time of the stored
+     * articles that weren't decoded yet, see {@link NewsSnapshot#isSameVersion}.
+     */
+    static boolean isUnchanged(List<News> stored, List<News> fetched) {
+        int size = stored.size();
+        if (size != fetched.size()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!NewsSnapshot.isSameVersion(stored, i, fetched.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fetches the articles published since the newest stored one and merges them into the
+     * stored feed, or fetches the whole feed if that can't be done. Returns null on failure.
+     */
+    private MultiSectionFetcher.Result refresh(List<News> stored) {
+        if (!DeltaSync.canRefresh(mOrderBy, stored)) {
+            return fetch(mUrls);
+        }
+        MultiSectionFetcher.Result deltaResult = fetch(NewsRequest.urlsOf(
+                DeltaSync.deltaRequests(mRequests, DeltaSync.newestTime(stored))));
+        if (deltaResult == null) {
+            return null;
+        }
+        List<News> delta = deltaResult.getNews();
+        List<News> merged = DeltaSync.merge(delta, stored, DeltaSync.pageSizeOf(mRequests));
+        if (merged == null) {
+            // More is new than a page holds; the gap can only be filled by a full fetch.
+            Metrics.count(Metrics.DELTA_SYNC_FALLBACKS, 1);
+            return fetch(mUrls);
+        }
+        Metrics.count(Metrics.DELTA_SYNCS, 1);
+        Metrics.count(Metrics.DELTA_SYNC_NEW_ARTICLES, DeltaSync.countNew(delta, stored));
+        // Missing what is new in a section that failed.
+        return new MultiSectionFetcher.Result(merged, deltaResult.isComplete());
+    }
+
+    private MultiSectionFetcher.Result fetch(List<String> urls) {
+        return mBackground
+                ? MultiSectionFetcher.fetchInBackground(urls, mOrderBy)
+                : MultiSectionFetcher.fetch(urls, mOrderBy);
     }
 
 }
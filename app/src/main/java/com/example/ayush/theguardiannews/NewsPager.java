@@ -0,0 +1,262 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps track of the pages of a paginated feed shown in the list.
+ * <p>
+ * Works out which page to load next from the visible range, makes sure a page is only
+ * requested once while it is in flight, and keeps at most {@link #mMaxPages} pages around
+ * by dropping the ones furthest away from where the user is scrolling.
+ */
+public class NewsPager {
+
+    /**
+     * How close to either end of the list the user has to scroll before the next page loads.
+     */
+    private final int mPrefetchDistance;
+
+    /**
+     * Number of pages kept in memory at once.
+     */
+    private final int mMaxPages;
+
+    /**
+     * Pages currently in the list, in order.
+     */
+    private final Deque<List<News>> mPages = new ArrayDeque<>();
+
+    /**
+     * Number of the first page in the list; pages are numbered from 1 like the API does.
+     */
+    private int mFirstPage = 1;
+
+    /**
+     * Total number of items in the list.
+     */
+    private int mItemCount;
+
+    /**
+     * Page being loaded after the last one / before the first one, 0 if none.
+     */
+    private int mLoadingNext;
+    private int mLoadingPrevious;
+
+    /**
+     * Set once a page came back empty, there is nothing after it.
+     */
+    private boolean mReachedEnd;
+
+    /**
+     * Constructs a new {@link NewsPager}.
+     *
+     * @param prefetchDistance how many items from the end the next page starts loading
+     * @param maxPages         number of pages kept in memory at once
+     */
+    public NewsPager(int prefetchDistance, int maxPages) {
+        mPrefetchDistance = prefetchDistance;
+        mMaxPages = maxPages;
+    }
+
+    /**
+     * Starts over with the given first page.
+     */
+    public void reset(List<News> firstPage) {
+        mPages.clear();
+        mFirstPage = 1;
+        mItemCount = 0;
+        mLoadingNext = 0;
+        mLoadingPrevious = 0;
+        mReachedEnd = false;
+        if (firstPage != null && !firstPage.isEmpty()) {
+            mPages.add(firstPage);
+            mItemCount = firstPage.size();
+        }
+    }
+
+    /**
+     * Replaces the first page with a newer version of it, e.g. the network result after the
+     * stored one, keeping the pages after it and the ones in flight. Starts over if the list
+     * is empty.
+     *
+     * @return true if the items changed, false if the first page is no longer in the list
+     */
+    public boolean updateFirstPage(List<News> firstPage) {
+        if (mPages.isEmpty()) {
+            reset(firstPage);
+            return true;
+        }
+        if (mFirstPage != 1) {
+            return false;
+        }
+        if (firstPage == null || firstPage.isEmpty()) {
+            // Keep what we have rather than emptying the list.
+            return false;
+        }
+        mItemCount += firstPage.size() - mPages.removeFirst().size();
+        mPages.addFirst(firstPage);
+        return true;
+    }
+
+    /**
+     * Returns the page that should start loading for the given visible range and marks it
+     * as in flight, or 0 if nothing needs to load.
+     */
+    public int pageToLoad(int firstVisible, int lastVisible) {
+        if (mPages.isEmpty()) {
+            return 0;
+        }
+        if (mLoadingNext == 0 && !mReachedEnd && lastVisible >= mItemCount - 1 - mPrefetchDistance) {
+            mLoadingNext = getLastPage() + 1;
+            return mLoadingNext;
+        }
+        if (mLoadingPrevious == 0 && mFirstPage > 1 && firstVisible <= mPrefetchDistance) {
+            mLoadingPrevious = mFirstPage - 1;
+            return mLoadingPrevious;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns true if the given page was requested and hasn't come back yet.
+     */
+    public boolean isLoading(int page) {
+        return page != 0 && (page == mLoadingNext || page == mLoadingPrevious);
+    }
+
+    /**
+     * Adds a page that finished loading.
+     *
+     * @return the change to apply to the list, or null if the page is no longer wanted
+     */
+    public Change onPageLoaded(int page, List<News> news) {
+        if (page == mLoadingNext) {
+            mLoadingNext = 0;
+            if (news == null) {
+                // Failed, scrolling again retries it.
+                return null;
+            }
+            if (news.isEmpty()) {
+                mReachedEnd = true;
+                return null;
+            }
+            news = withoutLoaded(news);
+            mPages.addLast(news);
+            mItemCount += news.size();
+            int removed = 0;
+            if (mPages.size() > mMaxPages) {
+                removed = mPages.removeFirst().size();
+                mItemCount -= removed;
+                mFirstPage++;
+            }
+            return new Change(false, news, removed);
+        }
+
+        if (page == mLoadingPrevious) {
+            mLoadingPrevious = 0;
+            if (news == null || news.isEmpty()) {
+                return null;
+            }
+            news = withoutLoaded(news);
+            mPages.addFirst(news);
+            mItemCount += news.size();
+            mFirstPage--;
+            int removed = 0;
+            if (mPages.size() > mMaxPages) {
+                removed = mPages.removeLast().size();
+                mItemCount -= removed;
+                // The end moved away again.
+                mReachedEnd = false;
+            }
+            return new Change(true, news, removed);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the page without the articles already in the list, e.g. one tagged with two
+     * of the sections that came back on another page of the other section. The page is still
+     * kept, even if that leaves it empty, so the page numbers stay right.
+     */
+    private List<News> withoutLoaded(List<News> news) {
+        Set<String> loaded = new HashSet<>(mItemCount);
+        for (List<News> page : mPages) {
+            for (News item : page) {
+                loaded.add(keyOf(item));
+            }
+        }
+        List<News> unique = new ArrayList<>(news.size());
+        for (News item : news) {
+            if (loaded.add(keyOf(item))) {
+                unique.add(item);
+            }
+        }
+        return unique.size() == news.size() ? news : unique;
+    }
+
+    /**
+     * Same key for the same article, see {@link News#isSameArticle(News)}.
+     */
+    private static String keyOf(News news) {
+        return news.getId().isEmpty() ? news.getUrl() : news.getId();
+    }
+
+    /**
+     * Returns all the items in the list, in order.
+     */
+    public List<News> getItems() {
+        List<News> items = new ArrayList<>(mItemCount);
+        for (List<News> page : mPages) {
+            items.addAll(page);
+        }
+        return items;
+    }
+
+    /**
+     * Returns the number of the first page in the list.
+     */
+    public int getFirstPage() {
+        return mFirstPage;
+    }
+
+    /**
+     * Returns the number of the last page in the list.
+     */
+    public int getLastPage() {
+        return mFirstPage + mPages.size() - 1;
+    }
+
+    /**
+     * How the list changes after a page loaded.
+     */
+    public static class Change {
+
+        /**
+         * True if the page goes before the list, false if after it.
+         */
+        public final boolean atStart;
+
+        /**
+         * Items of the loaded page.
+         */
+        public final List<News> inserted;
+
+        /**
+         * Number of items dropped from the other end of the list.
+         */
+        public final int removed;
+
+        Change(boolean atStart, List<News> inserted, int removed) {
+            this.atStart = atStart;
+            this.inserted = inserted;
+            this.removed = removed;
+        }
+    }
+
+}
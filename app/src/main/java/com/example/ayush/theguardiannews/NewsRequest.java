@@ -0,0 +1,220 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A request to The Guardian News API: the search endpoint or a single article, and its
+ * parameters.
+ * <p>
+ * Parameters are kept sorted by name, so the same request always gives the same URL and the
+ * same {@link #getCacheKey()}, whatever order it was built in. The key leaves out the API key
+ * and defaults, e.g. page 1, so equivalent requests share what is cached for them.
+ */
+public final class NewsRequest {
+
+    private static final String BASE_URL = "https://content.guardianapis.com/";
+    private static final String SEARCH_PATH = "search";
+    private static final String API_KEY = "7f2a6112-1bfc-44c7-af20-477ebbfd7486";
+
+    /**
+     * Separates the requests of a feed in {@link #keyOf(List)}; never part of a single key.
+     */
+    private static final String KEY_SEPARATOR = " | ";
+
+    private final String mPath;
+    private final TreeMap<String, String> mParams;
+    private final String mCacheKey;
+
+    private NewsRequest(String path, TreeMap<String, String> params) {
+        mPath = path;
+        mParams = params;
+        mCacheKey = buildKey();
+    }
+
+    /**
+     * Returns a builder for a request to the search endpoint.
+     */
+    public static Builder search() {
+        return new Builder(SEARCH_PATH, new TreeMap<String, String>());
+    }
+
+    /**
+     * Returns a builder for a request for a single article, by its Guardian id.
+     */
+    public static Builder item(String id) {
+        return new Builder(id, new TreeMap<String, String>());
+    }
+
+    /**
+     * Returns a builder starting from this request, e.g. to ask for another page of it.
+     */
+    public Builder buildUpon() {
+        return new Builder(mPath, new TreeMap<>(mParams));
+    }
+
+    /**
+     * Returns the value of a parameter, or null if it isn't set.
+     */
+    public String getParameter(String name) {
+        return mParams.get(name);
+    }
+
+    /**
+     * Returns the key results of this request are cached under, e.g.
+     * "search?order-by=newest&amp;page-size=20&amp;section=sport".
+     */
+    public String getCacheKey() {
+        return mCacheKey;
+    }
+
+    /**
+     * Returns the URL to send the request to.
+     */
+    public String toUrl() {
+        StringBuilder url = new StringBuilder(BASE_URL).append(mPath).append('?');
+        for (Map.Entry<String, String> param : mParams.entrySet()) {
+            url.append(param.getKey()).append('=').append(encode(param.getValue())).append('&');
+        }
+        return url.append("api-key=").append(API_KEY).toString();
+    }
+
+    /**
+     * Returns the key a feed made of these requests, one per section, is cached under.
+     */
+    public static String keyOf(List<NewsRequest> requests) {
+        StringBuilder key = new StringBuilder();
+        for (NewsRequest request : requests) {
+            if (key.length() > 0) {
+                key.append(KEY_SEPARATOR);
+            }
+            key.append(request.mCacheKey);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the URLs of the given requests, in the same order.
+     */
+    public static List<String> urlsOf(List<NewsRequest> requests) {
+        List<String> urls = new ArrayList<>(requests.size());
+        for (NewsRequest request : requests) {
+            urls.add(request.toUrl());
+        }
+        return urls;
+    }
+
+    private String buildKey() {
+        StringBuilder key = new StringBuilder(mPath);
+        char separator = '?';
+        for (Map.Entry<String, String> param : mParams.entrySet()) {
+            key.append(separator).append(param.getKey()).append('=').append(param.getValue());
+            separator = '&';
+        }
+        return key.toString();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof NewsRequest && mCacheKey.equals(((NewsRequest) o).mCacheKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return mCacheKey.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mCacheKey;
+    }
+
+    /**
+     * Builds a {@link NewsRequest}. Setting a parameter to its default leaves it out.
+     */
+    public static final class Builder {
+
+        private final String mPath;
+        private final TreeMap<String, String> mParams;
+
+        private Builder(String path, TreeMap<String, String> params) {
+            mPath = path;
+            mParams = params;
+        }
+
+        /**
+         * Sets the section to search in, or null for all of them.
+         */
+        public Builder section(String section) {
+            return set("section", section);
+        }
+
+        /**
+         * Sets the search terms, or null to not filter by them.
+         */
+        public Builder query(String query) {
+            return set("q", query);
+        }
+
+        public Builder pageSize(int pageSize) {
+            return set("page-size", String.valueOf(pageSize));
+        }
+
+        /**
+         * Sets the order, "newest", "oldest" or "relevance".
+         */
+        public Builder orderBy(String orderBy) {
+            return set("order-by", orderBy);
+        }
+
+        /**
+         * Sets the page to ask for, counting from 1.
+         */
+        public Builder page(int page) {
+            return set("page", page > 1 ? String.valueOf(page) : null);
+        }
+
+        /**
+         * Asks only for articles published at or after the given time, see {@link DeltaSync}.
+         */
+        public Builder publishedSince(long time) {
+            set("from-date", NewsFormatter.formatTimestamp(time));
+            return set("use-date", "published");
+        }
+
+        /**
+         * Asks for the show-fields and show-tags of the projection, leaving out the ones
+         * that aren't needed.
+         */
+        public Builder fields(FieldProjection projection) {
+            set("show-fields", projection.getShowFields());
+            return set("show-tags", projection.getShowTags());
+        }
+
+        public NewsRequest build() {
+            return new NewsRequest(mPath, new TreeMap<>(mParams));
+        }
+
+        private Builder set(String name, String value) {
+            if (value == null || value.isEmpty()) {
+                mParams.remove(name);
+            } else {
+                mParams.put(name, value);
+            }
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,335 @@
+package com.example.ayush.theguardiannews;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the live search as the user types.
+ * <p>
+ * Typing is debounced so only the query the user paused on goes to the network. A new query
+ * cancels the request for the previous one, see {@link FetchEngine#submit(Runnable)}, and results of a superseded query are dropped
+ * even if they come back late. Recent results are kept in the {@link ResultCache} shared with
+ * the feed, so going back to a query, e.g. with backspace, is served without a request.
+ * <p>
+ * Stored articles matching the query are shown right away from the {@link ArticleIndex},
+ * before the debounce and the request, and stay up if the request fails, e.g. offline.
+ * <p>
+ * All methods must be called on the main thread, and the listener is told on the main thread.
+ * Where the articles come from and how the search is scheduled can be swapped, see
+ * {@link Backend} and {@link MainThread}, so it runs in unit tests as it does in the app.
+ */
+public class NewsSearch {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = NewsSearch.class.getSimpleName();
+
+    /**
+     * Told about the search for the current query.
+     */
+    public interface Listener {
+
+        /**
+         * A request for the query went out.
+         */
+        void onSearchStarted(String query);
+
+        /**
+         * Results for the query came in; empty for an empty query, null if the search failed.
+         * Stored articles may come in first and be replaced by the results from the network.
+         */
+        void onSearchResults(String query, List<News> news);
+    }
+
+    /**
+     * Where the articles come from: the API and the stored articles in the app.
+     * Called on a worker thread, except for {@link #buildRequest(String)}.
+     */
+    interface Backend {
+
+        NewsRequest buildRequest(String query);
+
+        List<News> searchStored(String query, int limit);
+
+        List<News> fetch(NewsRequest request) throws IOException;
+    }
+
+    /**
+     * Runs the debounce and hands the results over, on the main thread in the app.
+     */
+    interface MainThread {
+
+        void post(Runnable task);
+
+        void postDelayed(Runnable task, long delayMillis);
+
+        void removeCallbacks(Runnable task);
+    }
+
+    /**
+     * How long typing has to pause before the query is searched for.
+     */
+    static final long DEBOUNCE_MILLIS = 300;
+
+    /**
+     * Most stored articles shown for a query.
+     */
+    private static final int LOCAL_RESULTS_LIMIT = 50;
+
+    private final Listener mListener;
+    private final Backend mBackend;
+    private final MainThread mMainThread;
+    private final FetchEngine mEngine;
+    private final ResultCache mResults;
+
+    /**
+     * Normalized current query.
+     */
+    private String mQuery = "";
+
+    /**
+     * Bumped for every new query; results tagged with an older one are superseded.
+     */
+    private int mGeneration;
+
+    /**
+     * Search waiting for the typing to pause, null if none.
+     */
+    private Runnable mPending;
+
+    /**
+     * Request for the current query, null if none.
+     */
+    private Future<?> mInFlight;
+
+    /**
+     * Stored articles shown for the current query, null if none yet.
+     */
+    private List<News> mLocalResults;
+
+    /**
+     * Whether the network results for the current query came in.
+     */
+    private boolean mHasNetworkResults;
+
+    /**
+     * Constructs a new {@link NewsSearch}.
+     *
+     * @param context  used to build the request URLs
+     * @param listener told about the searches
+     */
+    public NewsSearch(Context context, Listener listener) {
+        this(listener, new AppBackend(context.getApplicationContext()), new HandlerMainThread(),
+                FetchEngine.getInstance(), ResultCache.getInstance());
+    }
+
+    NewsSearch(Listener listener, Backend backend, MainThread mainThread, FetchEngine engine,
+               ResultCache results) {
+        mListener = listener;
+        mBackend = backend;
+        mMainThread = mainThread;
+        mEngine = engine;
+        mResults = results;
+    }
+
+    /**
+     * Searches for the query once the user stops typing.
+     */
+    public void setQuery(String query) {
+        search(query, false);
+    }
+
+    /**
+     * Searches for the query right away, e.g. when it is submitted.
+     */
+    public void submit(String query) {
+        search(query, true);
+    }
+
+    /**
+     * Stops any pending or running search; call when the screen goes away.
+     */
+    public void cancel() {
+        mGeneration++;
+        if (mPending != null) {
+            mMainThread.removeCallbacks(mPending);
+            mPending = null;
+        }
+        if (mInFlight != null) {
+            mInFlight.cancel(true);
+            mInFlight = null;
+        }
+    }
+
+    private void search(String query, boolean now) {
+        final String normalized = normalize(query);
+        if (normalized.equals(mQuery)) {
+            if (!now || mInFlight != null) {
+                return;
+            }
+            // Submitting what is already waiting for the debounce doesn't have to wait.
+            if (mPending != null) {
+                mMainThread.removeCallbacks(mPending);
+                mPending.run();
+                return;
+            }
+            // Otherwise submitting it again retries it, e.g. after it failed.
+        }
+
+        cancel();
+        mQuery = normalized;
+        mLocalResults = null;
+        mHasNetworkResults = false;
+        if (normalized.isEmpty()) {
+            mListener.onSearchResults(normalized, Collections.<News>emptyList());
+            return;
+        }
+
+        final NewsRequest request = mBackend.buildRequest(normalized);
+        List<News> cached = mResults.get(request.getCacheKey(), System.currentTimeMillis());
+        if (cached != null) {
+            Metrics.count(Metrics.SEARCH_CACHE_HITS, 1);
+            mListener.onSearchResults(normalized, cached);
+            return;
+        }
+        Metrics.count(Metrics.SEARCH_CACHE_MISSES, 1);
+
+        final int generation = mGeneration;
+        mEngine.submit(new Runnable() {
+            @Override
+            public void run() {
+                final List<News> local = mBackend.searchStored(normalized, LOCAL_RESULTS_LIMIT);
+                mMainThread.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onLocalResults(generation, local);
+                    }
+                });
+            }
+        });
+
+        mPending = new Runnable() {
+            @Override
+            public void run() {
+                mPending = null;
+                mListener.onSearchStarted(normalized);
+                // Runs next to the feed and its pages; cancelling it disconnects the request.
+                mInFlight = mEngine.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        List<News> result = null;
+                        try {
+                            result = mBackend.fetch(request);
+                            NewsFormatter.format(result);
+                            TitleLayouts.prepare(result);
+                        } catch (IOException e) {
+                            Log.e(LOG_TAG, "Search request failed", e);
+                        }
+                        final List<News> news = result;
+                        mMainThread.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                onResults(generation, request, news);
+                            }
+                        });
+                    }
+                });
+            }
+        };
+        if (now) {
+            mPending.run();
+        } else {
+            mMainThread.postDelayed(mPending, DEBOUNCE_MILLIS);
+        }
+    }
+
+    private void onLocalResults(int generation, List<News> local) {
+        if (generation != mGeneration || mHasNetworkResults || local.isEmpty()) {
+            return;
+        }
+        mLocalResults = local;
+        mListener.onSearchResults(mQuery, local);
+    }
+
+    private void onResults(int generation, NewsRequest request, List<News> news) {
+        if (news != null) {
+            mResults.put(request.getCacheKey(), news, System.currentTimeMillis());
+        }
+        // A newer query took over while this one was running.
+        if (generation != mGeneration) {
+            return;
+        }
+        mInFlight = null;
+        mHasNetworkResults = true;
+        // Keep showing the stored matches rather than an error.
+        mListener.onSearchResults(mQuery, news == null && mLocalResults != null ? mLocalResults : news);
+    }
+
+    /**
+     * Trims and lower-cases the query and collapses its whitespace, so queries that search
+     * for the same thing share their cached results.
+     */
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Searches The Guardian API and the {@link ArticleIndex} of the stored articles.
+     */
+    private static class AppBackend implements Backend {
+
+        private final Context mContext;
+
+        AppBackend(Context context) {
+            mContext = context;
+        }
+
+        @Override
+        public NewsRequest buildRequest(String query) {
+            return NewsActivity.buildSearchRequest(mContext, query);
+        }
+
+        @Override
+        public List<News> searchStored(String query, int limit) {
+            return ArticleStore.getInstance(mContext).getIndex().search(query, limit);
+        }
+
+        @Override
+        public List<News> fetch(NewsRequest request) throws IOException {
+            return QueryUtils.getDefault().fetchNews(request.toUrl());
+        }
+    }
+
+    private static class HandlerMainThread implements MainThread {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void post(Runnable task) {
+            mHandler.post(task);
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMillis) {
+            mHandler.postDelayed(task, delayMillis);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable task) {
+            mHandler.removeCallbacks(task);
+        }
+    }
+
+}
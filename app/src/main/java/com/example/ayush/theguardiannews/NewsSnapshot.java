@@ -0,0 +1,398 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format for lists of {@link News}, used by the {@link ArticleStore}.
+ * <p>
+ * Sections and contributors repeat across a feed, so they are written once to a string table
+ * and referenced by index. Publication times are varints of the seconds after the earliest one,
+ * and URLs that are just the Guardian website plus the id aren't written at all. A table of
+ * record offsets follows the header, so {@link #read(ByteBuffer)} returns at once and every
+ * article is decoded the first time it is asked for; on a memory-mapped file, the first
+ * screen of a feed decodes without touching the rest.
+ * <p>
+ * Layout, with all counts and lengths as unsigned varints and strings as UTF-8 prefixed by
+ * their length in bytes:
+ * <pre>
+ * byte     schema version
+ * varint   string count, then the strings
+ * varint   earliest publication time, in seconds since the epoch
+ * varint   record count
+ * int[]    offset of every record, relative to the first one
+ * record[] flags byte, section index, contributor count and indexes, then the publication
+ *          time in seconds after the earliest one (or the date as a string if it isn't in
+ *          the Guardian format), id, title, url (unless the url is the website plus the id)
+ *          and thumbnail url (if there is one)
+ * </pre>
+ * Version 1 records had a single author index, the byline, in place of the contributors.
+ * Records before version 3 have no thumbnail.
+ * The schema version goes up whenever the layout changes. Readers keep decoding the versions
+ * they know and reject newer ones with an {@link IOException}, so the snapshot is fetched
+ * again instead.
+ */
+public final class NewsSnapshot {
+
+    /**
+     * Current schema version, written by {@link #write(OutputStream, List)}.
+     */
+    static final int SCHEMA_VERSION = 3;
+
+    /**
+     * Oldest schema version still read.
+     */
+    private static final int MIN_SCHEMA_VERSION = 1;
+
+    /**
+     * Record flags.
+     */
+    private static final int FLAG_URL_FROM_ID = 1;
+    private static final int FLAG_DATE_AS_STRING = 2;
+    private static final int FLAG_THUMBNAIL = 4;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private NewsSnapshot() {
+    }
+
+    /**
+     * Writes the list in the current schema version.
+     */
+    public static void write(OutputStream out, List<News> news) throws IOException {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        long earliestSeconds = Long.MAX_VALUE;
+        for (News article : news) {
+            intern(article.getSection(), strings, stringIndex);
+            for (String contributor : article.getContributors()) {
+                intern(contributor, strings, stringIndex);
+            }
+            if (hasCompactDate(article)) {
+                earliestSeconds = Math.min(earliestSeconds, article.getPublicationTime() / 1000);
+            }
+        }
+        if (earliestSeconds == Long.MAX_VALUE) {
+            earliestSeconds = 0;
+        }
+
+        // Records go first into a buffer of their own, so their offsets are known up front.
+        Buffer records = new Buffer();
+        int[] offsets = new int[news.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            News article = news.get(i);
+            offsets[i] = records.size();
+
+            boolean compactDate = hasCompactDate(article);
+            boolean urlFromId = article.hasWebsiteUrl();
+            String thumbnailUrl = article.getThumbnailUrl();
+            records.write((urlFromId ? FLAG_URL_FROM_ID : 0) | (compactDate ? 0 : FLAG_DATE_AS_STRING)
+                    | (thumbnailUrl != null ? FLAG_THUMBNAIL : 0));
+            records.writeVarint(stringIndex.get(article.getSection()));
+            List<String> contributors = article.getContributors();
+            records.writeVarint(contributors.size());
+            for (String contributor : contributors) {
+                records.writeVarint(stringIndex.get(contributor));
+            }
+            if (compactDate) {
+                records.writeVarint(article.getPublicationTime() / 1000 - earliestSeconds);
+            } else {
+                records.writeString(article.getPublicationDate());
+            }
+            records.writeString(article.getId());
+            records.writeString(article.getTitle());
+            if (!urlFromId) {
+                records.writeString(article.getUrl());
+            }
+            if (thumbnailUrl != null) {
+                records.writeString(thumbnailUrl);
+            }
+        }
+
+        Buffer header = new Buffer();
+        header.write(SCHEMA_VERSION);
+        header.writeVarint(strings.size());
+        for (String string : strings) {
+            header.writeString(string);
+        }
+        header.writeVarint(earliestSeconds);
+        header.writeVarint(offsets.length);
+        for (int offset : offsets) {
+            header.writeInt(offset);
+        }
+
+        header.writeTo(out);
+        records.writeTo(out);
+    }
+
+    /**
+     * Returns the list in the buffer, from its position to its limit, in any schema version
+     * from {@link #MIN_SCHEMA_VERSION} up. Articles are decoded
+     * from the buffer as they are asked for, so it must not change while the list is in use.
+     *
+     * @throws IOException if the schema version is unknown or the header is corrupt
+     */
+    public static List<News> read(ByteBuffer buffer) throws IOException {
+        Reader reader = new Reader(buffer.slice());
+        try {
+            int version = reader.readByte();
+            if (version < MIN_SCHEMA_VERSION || version > SCHEMA_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            String[] strings = new String[reader.readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = reader.readString();
+            }
+            long earliestSeconds = reader.readVarint();
+            int count = reader.readCount();
+            int offsetsStart = reader.mBuffer.position();
+            long recordsStart = offsetsStart + count * 4L;
+            if (recordsStart > reader.mBuffer.limit()) {
+                throw new IOException("Corrupt snapshot");
+            }
+            return new LazyList(reader, version, strings, earliestSeconds, count, offsetsStart,
+                    (int) recordsStart);
+        } catch (RuntimeException e) {
+            // Ran past the end of the buffer.
+            throw new IOException("Corrupt snapshot", e);
+        }
+    }
+
+    private static boolean hasCompactDate(News news) {
+        long time = news.getPublicationTime();
+        return news.hasStandardDate() && time > 0 && time % 1000 == 0;
+    }
+
+    private static void intern(String string, List<String> strings, Map<String, Integer> index) {
+        if (!index.containsKey(string)) {
+            index.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    /**
+     * Articles of a snapshot, decoded on first access.
+     */
+    private static class LazyList extends AbstractList<News> {
+
+        private final Reader mReader;
+        private final int mVersion;
+        private final String[] mStrings;
+        private final long mEarliestSeconds;
+        private final int mOffsetsStart;
+        private final int mRecordsStart;
+        private final News[] mNews;
+
+        LazyList(Reader reader, int version, String[] strings, long earliestSeconds, int count,
+                 int offsetsStart, int recordsStart) {
+            mReader = reader;
+            mVersion = version;
+            mStrings = strings;
+            mEarliestSeconds = earliestSeconds;
+            mOffsetsStart = offsetsStart;
+            mRecordsStart = recordsStart;
+            mNews = new News[count];
+        }
+
+        @Override
+        public int size() {
+            return mNews.length;
+        }
+
+        /**
+         * @throws IllegalStateException if the record is corrupt
+         */
+        @Override
+        public synchronized News get(int index) {
+            News news = mNews[index];
+            if (news == null) {
+                news = decode(index);
+                mNews[index] = news;
+            }
+            return news;
+        }
+
+        /**
+         * Returns true if the article has the id and publication time of the given one. Only
+         * reads those two of a record that wasn't decoded yet.
+         *
+         * @throws IllegalStateException if the record is corrupt
+         */
+        synchronized boolean isSameVersion(int index, News other) {
+            News news = mNews[index];
+            if (news != null || other.getId().isEmpty()) {
+                // Articles without an id are told apart by their url.
+                news = get(index);
+                return news.isSameArticle(other) && news.getPublicationTime() == other.getPublicationTime();
+            }
+            Reader reader = mReader;
+            try {
+                reader.mBuffer.position(mRecordsStart + reader.mBuffer.getInt(mOffsetsStart + index * 4));
+                int flags = reader.readByte();
+                reader.readCount();
+                int contributors = mVersion == 1 ? 1 : reader.readCount();
+                for (int i = 0; i < contributors; i++) {
+                    reader.readCount();
+                }
+                long time = (flags & FLAG_DATE_AS_STRING) != 0
+                        ? NewsFormatter.parseTimestamp(reader.readString())
+                        : (mEarliestSeconds + reader.readVarint()) * 1000;
+                return time == other.getPublicationTime() && reader.readString().equals(other.getId());
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalStateException("Corrupt snapshot record " + index, e);
+            }
+        }
+
+        private News decode(int index) {
+            Reader reader = mReader;
+            try {
+                reader.mBuffer.position(mRecordsStart + reader.mBuffer.getInt(mOffsetsStart + index * 4));
+                int flags = reader.readByte();
+                String section = mStrings[reader.readCount()];
+                String[] contributors;
+                if (mVersion == 1) {
+                    contributors = News.contributorsOf(mStrings[reader.readCount()]);
+                } else {
+                    contributors = new String[reader.readCount()];
+                    for (int i = 0; i < contributors.length; i++) {
+                        contributors[i] = mStrings[reader.readCount()];
+                    }
+                }
+                long time;
+                String date = null;
+                if ((flags & FLAG_DATE_AS_STRING) != 0) {
+                    date = reader.readString();
+                    time = NewsFormatter.parseTimestamp(date);
+                } else {
+                    time = (mEarliestSeconds + reader.readVarint()) * 1000;
+                }
+                String id = reader.readString();
+                String title = reader.readString();
+                String url = (flags & FLAG_URL_FROM_ID) != 0 ? null : reader.readString();
+                String thumbnailUrl = (flags & FLAG_THUMBNAIL) != 0 ? reader.readString() : null;
+                return new News(id, title, section, time, date, url, contributors, thumbnailUrl);
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalStateException("Corrupt snapshot record " + index, e);
+            }
+        }
+
+        /**
+         * Returns the number of articles decoded so far.
+         */
+        synchronized int decodedCount() {
+            int decoded = 0;
+            for (News news : mNews) {
+                if (news != null) {
+                    decoded++;
+                }
+            }
+            return decoded;
+        }
+    }
+
+    /**
+     * Returns true if the article at the index of the list has the id and publication time
+     * of the given one. Of a list returned by {@link #read(ByteBuffer)}, only reads those
+     * two if the article wasn't decoded yet.
+     */
+    static boolean isSameVersion(List<News> news, int index, News other) {
+        if (news instanceof LazyList) {
+            return ((LazyList) news).isSameVersion(index, other);
+        }
+        News article = news.get(index);
+        return article.isSameArticle(other) && article.getPublicationTime() == other.getPublicationTime();
+    }
+
+    /**
+     * Returns the number of articles of a list returned by {@link #read(ByteBuffer)} that
+     * have been decoded so far.
+     */
+    static int decodedCount(List<News> news) {
+        return ((LazyList) news).decodedCount();
+    }
+
+    /**
+     * Reads varints and strings from a buffer of its own.
+     */
+    private static class Reader {
+
+        final ByteBuffer mBuffer;
+        private byte[] mScratch = new byte[64];
+
+        Reader(ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        int readByte() {
+            return mBuffer.get() & 0xff;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Varint too long");
+        }
+
+        int readCount() throws IOException {
+            long value = readVarint();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Count out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        String readString() throws IOException {
+            int length = readCount();
+            if (length > mBuffer.remaining()) {
+                throw new IOException("String runs past the end");
+            }
+            if (mScratch.length < length) {
+                mScratch = new byte[Math.max(length, mScratch.length * 2)];
+            }
+            mBuffer.get(mScratch, 0, length);
+            return new String(mScratch, 0, length, UTF_8);
+        }
+    }
+
+    /**
+     * Byte buffer with varint and string writers.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+
+        void writeVarint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Carries the requests of a {@link NewsApi} to the server.
+ * <p>
+ * The app uses {@link NewsHttpClient}; tests and benchmarks can point it at a local
+ * stand-in for the Guardian API instead.
+ */
+public interface NewsTransport {
+
+    /**
+     * Performs a GET request. The caller must close the returned response.
+     */
+    NewsHttpClient.Response get(URL url) throws IOException;
+
+}
@@ -1,8 +1,5 @@
 package com.example.ayush.theguardiannews;
 
-import android.text.TextUtils;
-import android.util.Log;
-
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -11,109 +8,154 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-public class QueryUtils {
+/**
+ * Fetches Guardian API responses through a {@link NewsTransport} and parses them with
+ * {@link NewsJsonParser}.
+ * <p>
+ * Plain Java, so the whole fetch and parse pipeline can run on the JVM against a local
+ * stand-in for the API. Failures surface as {@link IOException}s for the caller to handle.
+ */
+public class QueryUtils implements NewsApi {
 
 
     /**
-     * Tag for the log messages
+     * Turns a successful response body into a result.
      */
-    private static final String LOG_TAG = QueryUtils.class.getSimpleName();
+    private interface ResponseReader<T> {
+        T read(InputStream inputStream) throws IOException;
+    }
 
 
     /**
-     * Query The Guardian News API and return a list of {@link News} objects.
+     * Reads a search response into a list of {@link News} objects.
      */
-    public static List<News> fetchNewsData(String requestUrl) {
-
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException ie) {
-            Log.e(LOG_TAG, "fetchNewsDta: INTERRUPTED", ie);
+    private static final ResponseReader<List<News>> NEWS_READER = new ResponseReader<List<News>>() {
+        @Override
+        public List<News> read(InputStream inputStream) throws IOException {
+            return NewsJsonParser.parse(inputStream);
         }
+    };
 
-        // Create URL object
-        URL url = createUrl(requestUrl);
 
-        // Perform HTTP request to the URL and receive a JSON response back
-        String jsonResponse = null;
-        try {
-            jsonResponse = makeHttpRequest(url);
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem making the HTTP request.", e);
-        }
+    /**
+     * Reads a single item response into its show-fields values.
+     */
+    private static final ResponseReader<Map<String, String>> FIELDS_READER =
+            new ResponseReader<Map<String, String>>() {
+                @Override
+                public Map<String, String> read(InputStream inputStream) throws IOException {
+                    return NewsJsonParser.parseContentFields(inputStream);
+                }
+            };
+
 
-        return extractFeaturesFromJson(jsonResponse);
+    private static NewsApi sDefault;
+
+
+    private final NewsTransport mTransport;
+
+
+    /**
+     * Constructs a new {@link QueryUtils}.
+     *
+     * @param transport sends the requests
+     */
+    public QueryUtils(NewsTransport transport) {
+        mTransport = transport;
     }
 
 
     /**
-     * Returns new URL object from the given string URL.
+     * Returns the API used by the app, going through {@link NewsHttpClient#getInstance()}
+     * behind a {@link RequestExecutor}.
      */
-    private static URL createUrl(String stringUrl) {
-        URL url = null;
-        try {
-            url = new URL(stringUrl);
-        } catch (MalformedURLException e) {
-            Log.e(LOG_TAG, "Error with creating URL ", e);
+    public static synchronized NewsApi getDefault() {
+        if (sDefault == null) {
+            sDefault = new RequestExecutor(new QueryUtils(NewsHttpClient.getInstance()));
         }
-        return url;
+        return sDefault;
     }
 
 
     /**
-     * Make an HTTP request to the given URL and return a String as the response.
+     * Returns the API for requests nobody is waiting on, such as prefetches and preloads, see
+     * {@link RequestExecutor#inBackground()}. The default API itself if it was replaced by
+     * one without priorities.
      */
-    private static String makeHttpRequest(URL url) throws IOException {
-        String jsonResponse = "";
+    public static synchronized NewsApi getBackground() {
+        NewsApi api = getDefault();
+        return api instanceof RequestExecutor ? ((RequestExecutor) api).inBackground() : api;
+    }
 
-        // If the URL is null, then return early.
-        if (url == null) {
-            return jsonResponse;
-        }
 
-        HttpURLConnection urlConnection = null;
-        InputStream inputStream = null;
+    /**
+     * Replaces the API used by the app, e.g. with one pointing at a local server.
+     */
+    public static synchronized void setDefault(NewsApi api) {
+        sDefault = api;
+    }
+
+
+    /**
+     * Query The Guardian News API and return a list of {@link News} objects.
+     */
+    @Override
+    public List<News> fetchNews(String requestUrl) throws IOException {
+        // Perform HTTP request to the URL and parse the response as it streams in
+        List<News> news = makeHttpRequest(new URL(requestUrl), NEWS_READER);
+        Metrics.histogram(Metrics.ARTICLES_PER_REQUEST).record(news.size());
+        return news;
+    }
+
+
+    /**
+     * Query a single article and return the values of its show-fields.
+     */
+    @Override
+    public Map<String, String> fetchArticleFields(String requestUrl) throws IOException {
+        return makeHttpRequest(new URL(requestUrl), FIELDS_READER);
+    }
+
+
+    /**
+     * Make an HTTP request to the given URL and return the response read by the given
+     * {@link ResponseReader}.
+     */
+    private <T> T makeHttpRequest(URL url, ResponseReader<T> responseReader) throws IOException {
+        NewsHttpClient.Response response = mTransport.get(url);
         try {
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setReadTimeout(10000 /* milliseconds */);
-            urlConnection.setConnectTimeout(15000 /* milliseconds */);
-            urlConnection.setRequestMethod("GET");
-            urlConnection.connect();
-
-            // If the request was successful (response code 200),
-            // then read the input stream and parse the response.
-            if (urlConnection.getResponseCode() == 200) {
-                inputStream = urlConnection.getInputStream();
-                jsonResponse = readFromStream(inputStream);
-            } else {
-                Log.e(LOG_TAG, "Error response code: " + urlConnection.getResponseCode());
+            // If the request was successful (response code 200, or a cached response
+            // revalidated with a 304), then parse the response straight from the input stream.
+            if (response.getCode() != 200 || response.getBody() == null) {
+                throw new HttpStatusException(response.getCode(), response.getRetryAfterMillis());
             }
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem retrieving the book JSON results.", e);
+            // Reading and parsing are interleaved; whatever wasn't spent waiting on the
+            // network is decoding and parsing.
+            long start = System.nanoTime();
+            T result = responseReader.read(response.getBody());
+            Metrics.recordNanos(Metrics.PARSE, System.nanoTime() - start - response.getReadNanos());
+            return result;
         } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
-            }
-            if (inputStream != null) {
-                inputStream.close();
-            }
+            // Closing (rather than disconnecting) lets the connection be reused.
+            response.close();
         }
-        return jsonResponse;
     }
 
 
     /**
      * Convert the {@link InputStream} into a String which contains the
      * whole JSON response from the server.
+     * <p>
+     * No longer used for fetching, see {@link NewsJsonParser}. Kept together with
+     * {@link #extractFeaturesFromJson(String)} as the reference tree-based parser.
      */
-    private static String readFromStream(InputStream inputStream) throws IOException {
+    static String readFromStream(InputStream inputStream) throws IOException {
         StringBuilder output = new StringBuilder();
         if (inputStream != null) {
             InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
@@ -130,18 +172,20 @@ public class QueryUtils {
 
     /**
      * Return a list of {@link News} objects that has been built up from
-     * parsing the given JSON response.
+     * parsing the given JSON response, or null if it is empty or malformed.
      */
-    private static List<News> extractFeaturesFromJson(String newsJSON) {
+    static List<News> extractFeaturesFromJson(String newsJSON) {
 
+        String id;
         String title;
         String section;
         String date;
         String url;
-        String author = "";
+        List<String> contributors;
+        String thumbnailUrl;
 
         // If the JSON string is empty or null, then return early.
-        if (TextUtils.isEmpty(newsJSON)) {
+        if (newsJSON == null || newsJSON.isEmpty()) {
             return null;
         }
 
@@ -169,6 +213,9 @@ public class QueryUtils {
                 // Get a single news article at position i within the list of articles
                 JSONObject currentArticle = currentNewsArticles.getJSONObject(i);
 
+                // Extract the value for the key called "id"
+                id = currentArticle.optString("id");
+
                 // Extract the value for the key called "webTitle"
                 title = currentArticle.getString("webTitle");
 
@@ -182,32 +229,35 @@ public class QueryUtils {
                 url = currentArticle.getString("webUrl");
 
                 // AUTHORS
+                // Every contributor tag, in byline order.
+                contributors = new ArrayList<>();
                 // Extract the JSONArray associated with the key called "tags"
-                // Some articles don't have tags node, use try/catch to prevent null pointers.
-                JSONArray tagsArray = currentArticle.getJSONArray("tags");
-                for (int j = 0; j < tagsArray.length(); j++) {
+                // Some articles don't have a tags node.
+                JSONArray tagsArray = currentArticle.optJSONArray("tags");
+                for (int j = 0; tagsArray != null && j < tagsArray.length(); j++) {
                     JSONObject currentAuthor = tagsArray.getJSONObject(j);
-                    try {
-                        // Extract the value for the key called "webTitle" (author)
-                        author = "by " + currentAuthor.getString("webTitle");
-                    } catch (JSONException e) {
-                        Log.e(LOG_TAG, "Missing one or more author's name JSONObject");
+                    // Extract the value for the key called "webTitle" (author), if there is one
+                    if (currentAuthor.has("webTitle")) {
+                        contributors.add(currentAuthor.getString("webTitle"));
                     }
                 }
 
+                // Extract the thumbnail, if the request asked for it and there is one
+                JSONObject fields = currentArticle.optJSONObject("fields");
+                thumbnailUrl = fields != null ? fields.optString("thumbnail", null) : null;
+
                 // Create a new {@link News} object with the title, section, date,
                 // and url from the JSON response.
-                News news = new News(title, section, date, url, author);
-                // Add the new {@link Book} to the list of books.
+                News news = new News(id, title, section, date, url, contributors, thumbnailUrl);
                 newsList.add(i, news);
 
             }
 
         } catch (JSONException e) {
             // If an error is thrown when executing any of the above statements in the "try" block,
-            // catch the exception here, so the app doesn't crash. Print a log message
-            // with the message from the exception.
-            Log.e("QueryUtils", "Problem parsing the news JSON results", e);
+            // catch the exception here, so the app doesn't crash. A payload that is cut short
+            // or malformed isn't passed off as a shorter feed.
+            return null;
         }
 
         // Return the list of news articles
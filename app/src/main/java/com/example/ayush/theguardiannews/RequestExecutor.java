@@ -0,0 +1,306 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Sits in front of another {@link NewsApi} and makes its requests hold up under real use.
+ * <ul>
+ * <li>Identical requests already in flight are joined instead of sent again, e.g. when a
+ * background sync and the app ask for the same feed at the same time.</li>
+ * <li>Transient failures (network errors, 408, 429 and 5xx) are retried with exponential
+ * backoff and full jitter, so clients that failed together don't retry together.</li>
+ * <li>Every attempt takes a token from a {@link TokenBucket} sized to the quota of the API
+ * key. A 429 empties the bucket for as long as the server asked, so no other request runs
+ * into the limit meanwhile.</li>
+ * <li>Requests nobody is waiting on, such as prefetches, go through {@link #inBackground()},
+ * which takes tokens from a small bucket of its own, so they never hold up a feed.</li>
+ * </ul>
+ * Interrupting the calling thread stops the backoff and any further attempts.
+ */
+public class RequestExecutor implements NewsApi {
+
+    /**
+     * Attempts per request, the first one included.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Backoff before the first retry; doubles for every further one.
+     */
+    private static final long BASE_DELAY_MILLIS = 500;
+
+    /**
+     * Longest backoff, also the longest Retry-After we are willing to wait.
+     */
+    private static final long MAX_DELAY_MILLIS = 8000;
+
+    /**
+     * Wait after a 429 that didn't say how long to wait.
+     */
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = 1000;
+
+    /**
+     * The developer key allows 12 calls a second; stay a little below that, with one a second
+     * of it for the background.
+     */
+    private static final int BURST_REQUESTS = 10;
+    private static final double REQUESTS_PER_SECOND = 10;
+    private static final int BACKGROUND_BURST_REQUESTS = 1;
+    private static final double BACKGROUND_REQUESTS_PER_SECOND = 1;
+
+    private static final Random sRandom = new Random();
+
+    private final NewsApi mDelegate;
+    private final TokenBucket mBucket;
+
+    /**
+     * Bucket of the other priority. Held back along with ours after a 429, as the quota is
+     * the key's.
+     */
+    private final TokenBucket mOtherBucket;
+
+    private final int mMaxAttempts;
+    private final long mBaseDelayMillis;
+
+    /**
+     * Shared by both priorities, so a request joins the same one in flight at the other.
+     */
+    private final Coalescer<List<News>> mNewsRequests;
+    private final Coalescer<Map<String, String>> mFieldsRequests;
+
+    /**
+     * Background view of this executor, itself if this is it; null until asked for.
+     */
+    private RequestExecutor mBackground;
+
+    /**
+     * Constructs a new {@link RequestExecutor} with the limits of the Guardian API.
+     *
+     * @param delegate sends the requests
+     */
+    public RequestExecutor(NewsApi delegate) {
+        this(delegate, new TokenBucket(BURST_REQUESTS, REQUESTS_PER_SECOND), MAX_ATTEMPTS,
+                BASE_DELAY_MILLIS);
+    }
+
+    RequestExecutor(NewsApi delegate, TokenBucket bucket, int maxAttempts, long baseDelayMillis) {
+        this(delegate, bucket, new TokenBucket(BACKGROUND_BURST_REQUESTS, BACKGROUND_REQUESTS_PER_SECOND),
+                maxAttempts, baseDelayMillis, new Coalescer<List<News>>(),
+                new Coalescer<Map<String, String>>());
+    }
+
+    private RequestExecutor(NewsApi delegate, TokenBucket bucket, TokenBucket otherBucket,
+                            int maxAttempts, long baseDelayMillis, Coalescer<List<News>> newsRequests,
+                            Coalescer<Map<String, String>> fieldsRequests) {
+        mDelegate = delegate;
+        mBucket = bucket;
+        mOtherBucket = otherBucket;
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMillis = baseDelayMillis;
+        mNewsRequests = newsRequests;
+        mFieldsRequests = fieldsRequests;
+    }
+
+    /**
+     * Returns the same API at a lower priority, for requests nobody is waiting on: its
+     * requests take tokens from a bucket of their own, so they don't spend the ones the feeds
+     * need. A request joining one in flight at the other priority waits for that one.
+     */
+    public synchronized NewsApi inBackground() {
+        if (mBackground == null) {
+            mBackground = new RequestExecutor(mDelegate, mOtherBucket, mBucket, mMaxAttempts,
+                    mBaseDelayMillis, mNewsRequests, mFieldsRequests);
+            mBackground.mBackground = mBackground;
+        }
+        return mBackground;
+    }
+
+    @Override
+    public List<News> fetchNews(final String requestUrl) throws IOException {
+        return mNewsRequests.execute(requestUrl, new Callable<List<News>>() {
+            @Override
+            public List<News> call() throws IOException {
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        beforeAttempt();
+                        // Every caller joining the request gets this same list.
+                        return Collections.unmodifiableList(mDelegate.fetchNews(requestUrl));
+                    } catch (IOException e) {
+                        afterFailure(e, attempt);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> fetchArticleFields(final String requestUrl) throws IOException {
+        return mFieldsRequests.execute(requestUrl, new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() throws IOException {
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        beforeAttempt();
+                        return Collections.unmodifiableMap(mDelegate.fetchArticleFields(requestUrl));
+                    } catch (IOException e) {
+                        afterFailure(e, attempt);
+                    }
+                }
+            }
+        });
+    }
+
+    private void beforeAttempt() throws InterruptedIOException {
+        try {
+            mBucket.acquire();
+        } catch (InterruptedException e) {
+            throw interrupted();
+        }
+    }
+
+    /**
+     * Rethrows the failure of the given attempt unless it is worth another one, in which
+     * case it waits out the backoff first.
+     */
+    private void afterFailure(IOException e, int attempt) throws IOException {
+        if (attempt >= mMaxAttempts || !isTransient(e) || Thread.currentThread().isInterrupted()) {
+            throw e;
+        }
+
+        long delayMillis = backoffMillis(attempt);
+        if (e instanceof HttpStatusException && ((HttpStatusException) e).getCode() == 429) {
+            Metrics.count(Metrics.RATE_LIMITED, 1);
+            long retryAfter = ((HttpStatusException) e).getRetryAfterMillis();
+            if (retryAfter > MAX_DELAY_MILLIS) {
+                throw e;
+            }
+            retryAfter = retryAfter >= 0 ? retryAfter : DEFAULT_RETRY_AFTER_MILLIS;
+            // Hold back every request, not just this one.
+            mBucket.pause(retryAfter);
+            mOtherBucket.pause(retryAfter);
+            delayMillis = Math.max(delayMillis, retryAfter);
+        }
+
+        Metrics.count(Metrics.RETRIES, 1);
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException interrupted) {
+            throw interrupted();
+        }
+    }
+
+    /**
+     * Returns a random backoff between 0 and the exponential bound for the given attempt.
+     */
+    private long backoffMillis(int attempt) {
+        long bound = Math.min(MAX_DELAY_MILLIS, mBaseDelayMillis << Math.min(attempt - 1, 16));
+        synchronized (sRandom) {
+            return (long) (sRandom.nextDouble() * bound);
+        }
+    }
+
+    static boolean isTransient(IOException e) {
+        if (e instanceof HttpStatusException) {
+            int code = ((HttpStatusException) e).getCode();
+            return code == 408 || code == 429 || code >= 500;
+        }
+        // A bad URL stays bad, and an interrupted request was cancelled.
+        return !(e instanceof MalformedURLException)
+                && !(e instanceof InterruptedIOException && Thread.currentThread().isInterrupted());
+    }
+
+    private static InterruptedIOException interrupted() {
+        Thread.currentThread().interrupt();
+        return new InterruptedIOException("Request cancelled");
+    }
+
+    /**
+     * Runs at most one request per URL at a time; callers asking for a URL that is already
+     * in flight wait for its result. They all get the same instance, so it must be read-only.
+     */
+    private static class Coalescer<T> {
+
+        private final ConcurrentMap<String, InFlight<T>> mInFlight = new ConcurrentHashMap<>();
+
+        T execute(String url, Callable<T> request) throws IOException {
+            while (true) {
+                InFlight<T> call = new InFlight<>(request);
+                InFlight<T> running = mInFlight.putIfAbsent(url, call);
+                if (running == null) {
+                    try {
+                        call.task.run();
+                    } finally {
+                        mInFlight.remove(url, call);
+                    }
+                    return get(call.task);
+                }
+
+                Metrics.count(Metrics.COALESCED, 1);
+                try {
+                    return get(running.task);
+                } catch (IOException e) {
+                    // The caller running it was cancelled, not us; run it ourselves.
+                    if (!running.cancelled || Thread.currentThread().isInterrupted()) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        private T get(FutureTask<T> task) throws IOException {
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                throw interrupted();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /**
+     * A request in flight, and whether the caller running it was cancelled.
+     */
+    private static class InFlight<T> implements Callable<T> {
+
+        final Callable<T> request;
+        final FutureTask<T> task = new FutureTask<>(this);
+
+        /**
+         * Set before the task completes, so callers waiting on it see it.
+         */
+        volatile boolean cancelled;
+
+        InFlight(Callable<T> request) {
+            this.request = request;
+        }
+
+        @Override
+        public T call() throws Exception {
+            try {
+                return request.call();
+            } finally {
+                cancelled = Thread.currentThread().isInterrupted();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recent results in memory by {@link NewsRequest#getCacheKey()}, shared by the whole process.
+ * <p>
+ * Results are served for {@link #TTL_MILLIS} after they were fetched; the least recently used
+ * ones go first once there are more than {@link #MAX_ENTRIES}. Going back to settings shown
+ * a moment ago, or to an earlier search, shows their articles at once instead of fetching
+ * them again.
+ */
+final class ResultCache {
+
+    /**
+     * Results kept at most; a few settings and their pages, plus the recent searches.
+     */
+    static final int MAX_ENTRIES = 32;
+
+    /**
+     * How long results are served without going to the network.
+     */
+    static final long TTL_MILLIS = 5 * 60 * 1000L;
+
+    private static final ResultCache sInstance = new ResultCache(MAX_ENTRIES, TTL_MILLIS);
+
+    private final int mMaxEntries;
+    private final long mTtlMillis;
+
+    /**
+     * In access order, so the first entry is the least recently used.
+     */
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > mMaxEntries;
+        }
+    };
+
+    ResultCache(int maxEntries, long ttlMillis) {
+        mMaxEntries = maxEntries;
+        mTtlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the cache used by the app.
+     */
+    static ResultCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the results cached under the key, or null if there are none or they expired.
+     */
+    synchronized List<News> get(String key, long nowMillis) {
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nowMillis - entry.savedAt >= mTtlMillis) {
+            mEntries.remove(key);
+            return null;
+        }
+        return entry.news;
+    }
+
+    /**
+     * Caches the results, which mustn't be modified afterwards.
+     */
+    synchronized void put(String key, List<News> news, long nowMillis) {
+        mEntries.put(key, new Entry(news, nowMillis));
+    }
+
+    /**
+     * Drops every cached result, e.g. when the system runs low on memory.
+     */
+    synchronized void clear() {
+        mEntries.clear();
+    }
+
+    private static final class Entry {
+
+        final List<News> news;
+        final long savedAt;
+
+        Entry(List<News> news, long savedAt) {
+            this.news = news;
+            this.savedAt = savedAt;
+        }
+    }
+
+}
@@ -1,30 +1,184 @@
 package com.example.ayush.theguardiannews;
 
-import android.app.Activity;
 import android.app.SearchManager;
+import android.content.Context;
 import android.content.Intent;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
 import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.DefaultItemAnimator;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.ProgressBar;
+import android.widget.TextView;
 
-public class SearchActivity extends Activity {
+import java.util.List;
+
+public class SearchActivity extends AppCompatActivity implements NewsSearch.Listener {
+
+    /**
+     * Saved instance state key for the query being searched
+     */
+    private static final String STATE_QUERY = "query";
+
+    /**
+     * Runs the search as the user types
+     */
+    private NewsSearch mSearch;
+
+    /**
+     * Adapter for the list of results
+     */
+    private NewsAdapter mAdapter;
+
+    /**
+     * Query typed so far, shown in the search box
+     */
+    private String mQuery = "";
+
+    /**
+     * Search box in the app bar, null until the menu is created
+     */
+    private SearchView mSearchView;
+
+    private TextView mEmptyStateTextView;
+    private ImageView mEmptyStateImageView;
+    private ProgressBar mLoadingIndicator;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        handleIntent(getIntent());
+        setContentView(R.layout.activity_search);
+
+        RecyclerView recyclerView = findViewById(R.id.recycler_view);
+        mAdapter = new NewsAdapter(this);
+        NewsAdapter.setUpList(recyclerView, new LinearLayoutManager(this));
+        recyclerView.setItemAnimator(new DefaultItemAnimator());
+        recyclerView.setAdapter(mAdapter);
+
+        mEmptyStateTextView = (TextView) findViewById(R.id.empty_text_view);
+        mEmptyStateImageView = (ImageView) findViewById(R.id.empty_image_view);
+        mLoadingIndicator = (ProgressBar) findViewById(R.id.loading_indicator);
+
+        mSearch = new NewsSearch(this, this);
+
+        if (savedInstanceState != null) {
+            // Recent results are cached, so this doesn't go to the network again.
+            mQuery = savedInstanceState.getString(STATE_QUERY, "");
+            mSearch.submit(mQuery);
+        } else {
+            handleIntent(getIntent());
+        }
     }
 
     @Override
     protected void onNewIntent(Intent intent) {
+        setIntent(intent);
         handleIntent(intent);
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(STATE_QUERY, mQuery);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mSearch.cancel();
+        mAdapter.release();
+    }
+
     private void handleIntent(Intent intent) {
 
         if (Intent.ACTION_SEARCH.equals(intent.getAction())) {
             String query = intent.getStringExtra(SearchManager.QUERY);
-            //use the query to search
+            mQuery = query != null ? query : "";
+            if (mSearchView != null) {
+                mSearchView.setQuery(mQuery, false);
+            }
+            // Typed queries come with a pause already, so don't wait any longer
+            mSearch.submit(mQuery);
+        }
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_search, menu);
+
+        SearchManager searchManager =
+                (SearchManager) getSystemService(Context.SEARCH_SERVICE);
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        mSearchView = (SearchView) searchItem.getActionView();
+        mSearchView.setSearchableInfo(
+                searchManager.getSearchableInfo(getComponentName()));
+        mSearchView.setIconified(false);
+        mSearchView.setQuery(mQuery, false);
+        mSearchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                mQuery = query;
+                mSearch.submit(query);
+                mSearchView.clearFocus();
+                return true;
+            }
 
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                mQuery = newText;
+                mSearch.setQuery(newText);
+                return true;
+            }
+        });
+
+        return true;
+    }
+
+    @Override
+    public void onSearchStarted(String query) {
+        mLoadingIndicator.setVisibility(View.VISIBLE);
+        mEmptyStateImageView.setVisibility(View.GONE);
+        mEmptyStateTextView.setVisibility(View.GONE);
+    }
+
+    @Override
+    public void onSearchResults(String query, List<News> news) {
+        mLoadingIndicator.setVisibility(View.GONE);
+        mAdapter.submitList(news);
+
+        if (news == null) {
+            showEmptyState(isConnected() ? R.drawable.ic_no_news_article_found : R.drawable.ic_no_internet_connection,
+                    isConnected() ? R.string.no_news_article : R.string.no_internet_connection);
+        } else if (news.isEmpty() && !query.isEmpty()) {
+            showEmptyState(R.drawable.ic_no_news_article_found, R.string.no_news_article);
+        } else {
+            mEmptyStateImageView.setVisibility(View.GONE);
+            mEmptyStateTextView.setVisibility(View.GONE);
         }
     }
 
+    private void showEmptyState(int imageResId, int textResId) {
+        mEmptyStateImageView.setVisibility(View.VISIBLE);
+        mEmptyStateImageView.setImageResource(imageResId);
+        mEmptyStateTextView.setVisibility(View.VISIBLE);
+        mEmptyStateTextView.setText(textResId);
+    }
+
+    /**
+     * Returns true if there is a network connection.
+     */
+    private boolean isConnected() {
+        ConnectivityManager connMgr = (ConnectivityManager)
+                getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnectedOrConnecting();
+    }
+
 }
@@ -0,0 +1,355 @@
+package com.example.ayush.theguardiannews;
+
+import android.content.Context;
+import android.support.v4.widget.SwipeRefreshLayout;
+import android.support.v7.widget.DefaultItemAnimator;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import java.util.List;
+
+/**
+ * The feed of one category tab in {@link NewsActivity}: its list, its pages and its jobs.
+ * <p>
+ * The jobs of a tab are in the activity's {@link FetchEngine.Scope} under slots of its own,
+ * so every tab loads, refreshes and pages through its category without touching the others,
+ * and finds its jobs again after a rotation. The tab on screen loads on the pool, see
+ * {@link #show()}; the ones next to it only on the background lane, see {@link #preload()}.
+ */
+final class SectionFeed implements SwipeRefreshLayout.OnRefreshListener {
+
+    /**
+     * Told when the feed job of a tab is done.
+     */
+    interface Listener {
+
+        /**
+         * The feed job finished, whether it found anything or not.
+         */
+        void onFeedComplete(SectionFeed feed);
+    }
+
+    /**
+     * Start loading the next page once the user is this many articles away from the end
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * Number of pages kept in the list; the ones furthest away are dropped
+     */
+    private static final int MAX_PAGES = 5;
+
+    private final Context mContext;
+    private final FetchEngine.Scope mScope;
+    private final String mCategory;
+    private final Listener mListener;
+
+    /**
+     * Slots of the feed job and of the jobs loading the pages after the last one and before
+     * the first one in the list.
+     */
+    private final String mFeedSlot;
+    private final String mNextPageSlot;
+    private final String mPreviousPageSlot;
+
+    /**
+     * Keeps track of the pages in the list
+     */
+    private final NewsPager mPager = new NewsPager(PREFETCH_DISTANCE, MAX_PAGES);
+
+    private final View mView;
+
+    private final RecyclerView mRecyclerView;
+
+    /**
+     * Adapter for the list of news
+     */
+    private final NewsAdapter mAdapter;
+
+    /**
+     * Swipe to do a refresh
+     */
+    private final SwipeRefreshLayout mSwipe;
+
+    /**
+     * TextView and ImageView that are displayed when the list is empty
+     */
+    private final TextView mEmptyStateTextView;
+    private final ImageView mEmptyStateImageView;
+
+    private final View mLoadingIndicator;
+
+    /**
+     * Feed job we are subscribed to, null until the tab is shown or preloaded
+     */
+    private FetchEngine.Job<List<News>> mFeedJob;
+
+    /**
+     * Normalized query of the articles in the list, null before the first ones came
+     */
+    private String mShownKey;
+
+    private final FetchEngine.Observer<List<News>> mFeedObserver = new FetchEngine.Observer<List<News>>() {
+        @Override
+        public void onNext(List<News> news) {
+            onFeedLoaded(news);
+        }
+
+        @Override
+        public void onComplete() {
+            // Also when the revalidation found nothing new to show.
+            mSwipe.setRefreshing(false);
+            mListener.onFeedComplete(SectionFeed.this);
+        }
+    };
+
+    /**
+     * Constructs a new {@link SectionFeed}; nothing loads until it is shown or preloaded.
+     *
+     * @param context  of the activity
+     * @param parent   the pager the tab is added to
+     * @param scope    jobs of the activity
+     * @param category value of the category, see R.array.settings_choose_category_values
+     * @param listener told when the feed job is done
+     */
+    SectionFeed(Context context, ViewGroup parent, FetchEngine.Scope scope, String category,
+                Listener listener) {
+        mContext = context;
+        mScope = scope;
+        mCategory = category;
+        mListener = listener;
+        mFeedSlot = "feed/" + category;
+        mNextPageSlot = "next-page/" + category;
+        mPreviousPageSlot = "previous-page/" + category;
+
+        mView = LayoutInflater.from(context).inflate(R.layout.section_feed, parent, false);
+
+        // Swipe to do refresh
+        mSwipe = (SwipeRefreshLayout) mView.findViewById(R.id.swipe_refresh);
+        mSwipe.setOnRefreshListener(this);
+        mSwipe.setColorSchemeColors(context.getResources().getColor(R.color.colorAccent));
+
+        RecyclerView recyclerView = (RecyclerView) mView.findViewById(R.id.recycler_view);
+        mRecyclerView = recyclerView;
+        mAdapter = new NewsAdapter(context);
+
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(context);
+        NewsAdapter.setUpList(recyclerView, layoutManager);
+        recyclerView.setItemAnimator(new DefaultItemAnimator());
+        recyclerView.setAdapter(mAdapter);
+
+        // Load the next (or previous) page before the user reaches the end of the list
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int page = mPager.pageToLoad(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+                if (page != 0) {
+                    loadPage(page > mPager.getLastPage() ? mNextPageSlot : mPreviousPageSlot, page);
+                }
+            }
+        });
+
+        mEmptyStateTextView = (TextView) mView.findViewById(R.id.empty_text_view);
+        mEmptyStateImageView = (ImageView) mView.findViewById(R.id.empty_image_view);
+        mLoadingIndicator = mView.findViewById(R.id.loading_indicator);
+    }
+
+    View getView() {
+        return mView;
+    }
+
+    String getCategory() {
+        return mCategory;
+    }
+
+    /**
+     * Returns true once the feed job the tab is subscribed to is done.
+     */
+    boolean isComplete() {
+        return mFeedJob != null && mFeedJob.isDone();
+    }
+
+    /**
+     * Loads the feed on the pool now that the tab is on screen, unless its job is there
+     * already. After a rotation the job is still there, running or done, and we pick up where
+     * it is. Otherwise it starts, even without a network connection, as it first serves the
+     * articles stored from the last fetch. Also reloads if the settings changed.
+     */
+    void show() {
+        load(false, false);
+    }
+
+    /**
+     * Loads the feed on the background lane while the tab is next to the one on screen,
+     * unless its job is there already. Its requests go behind those of the tab on screen,
+     * see {@link MultiSectionFetcher#fetchInBackground(List, String)}.
+     */
+    void preload() {
+        load(false, true);
+    }
+
+    /**
+     * Stops telling the tab about its jobs when the activity is destroyed, and lets go of the
+     * thumbnails of its rows; the feed job keeps going for the next instance.
+     */
+    void detach() {
+        if (mFeedJob != null) {
+            mFeedJob.unsubscribe(mFeedObserver);
+        }
+        mAdapter.release();
+        // Pages belong to this instance's list, which the next one doesn't have.
+        mScope.cancel(mNextPageSlot);
+        mScope.cancel(mPreviousPageSlot);
+    }
+
+    /**
+     * Cancels every job of the tab and lets go of its articles and rows, once it is too far
+     * from the one on screen to be kept. Call before its view is removed.
+     */
+    void release() {
+        detach();
+        mScope.cancel(mFeedSlot);
+        mFeedJob = null;
+        // Recycles the rows, which are never recycled otherwise once the view is gone.
+        mRecyclerView.setAdapter(null);
+    }
+
+    /**
+     * Subscribes to the feed job of the category, starting it if there is none or if it is
+     * for other settings.
+     *
+     * @param refresh    true to start it over, only adding what is new to the stored articles
+     * @param background true to start it on the background lane
+     */
+    private void load(boolean refresh, boolean background) {
+        List<NewsRequest> requests = NewsActivity.buildSectionRequests(mContext, mCategory, 1);
+        String key = NewsRequest.keyOf(requests);
+        FetchEngine.Job<List<News>> job = mScope.get(mFeedSlot);
+        // A preload still waiting on the background lane moves to the pool once it is on screen.
+        boolean promote = !background && job != null && job.isBackground() && !job.isDone();
+        if (refresh || promote || job == null || !key.equals(job.getKey())) {
+            NewsLoader loader = new NewsLoader(mContext, requests, true, refresh, background);
+            job = background
+                    ? mScope.startInBackground(mFeedSlot, key, loader)
+                    : mScope.start(mFeedSlot, key, loader);
+        }
+        if (job != mFeedJob) {
+            if (mFeedJob != null) {
+                mFeedJob.unsubscribe(mFeedObserver);
+            }
+            mFeedJob = job;
+            job.subscribe(mFeedObserver);
+        }
+    }
+
+    /**
+     * Loads a page while scrolling, in the given slot.
+     */
+    private void loadPage(String slot, final int page) {
+        // Pages after the first one aren't stored, they are only kept while in the list
+        FetchEngine.Job<List<News>> job = mScope.start(slot, "page=" + page, new NewsLoader(mContext,
+                NewsActivity.buildSectionRequests(mContext, mCategory, page), false, false));
+        job.subscribe(new FetchEngine.Observer<List<News>>() {
+            @Override
+            public void onNext(List<News> news) {
+                onPageLoaded(page, news);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    private void onFeedLoaded(List<News> news) {
+
+        mSwipe.setRefreshing(false);
+
+        mLoadingIndicator.setVisibility(View.GONE);
+
+        if (NewsActivity.isConnected(mContext)) {
+            // Update empty state with no news articles found image
+            mEmptyStateImageView.setVisibility(View.VISIBLE);
+            mEmptyStateImageView.setImageResource(R.drawable.ic_no_news_article_found);
+
+            // Set empty state text to display "No News Article Found."
+            mEmptyStateTextView.setVisibility(View.VISIBLE);
+            mEmptyStateTextView.setText(R.string.no_news_article);
+        } else {
+            showNoConnection();
+        }
+
+        // Start over from the first page for another query. The same query only gets a newer
+        // first page, e.g. the network result after the stored one, keeping the pages after it.
+        // Either way the adapter only updates the articles that changed.
+        String key = mFeedJob.getKey();
+        if (!key.equals(mShownKey)) {
+            mShownKey = key;
+            mPager.reset(news);
+            mAdapter.submitList(mPager.getItems());
+        } else if (mPager.updateFirstPage(news)) {
+            mAdapter.submitList(mPager.getItems());
+        }
+
+        if (news != null && !news.isEmpty()) {
+            // Hide empty TextView and ImageView because the data has been loaded
+            mEmptyStateImageView.setVisibility(View.GONE);
+            mEmptyStateTextView.setVisibility(View.GONE);
+        }
+
+    }
+
+    /**
+     * Adds a page loaded while scrolling, dropping the one furthest away if there are too many.
+     */
+    private void onPageLoaded(int page, List<News> news) {
+        if (mPager.onPageLoaded(page, news) != null) {
+            mAdapter.submitList(mPager.getItems());
+        }
+    }
+
+    @Override
+    public void onRefresh() {
+
+        // If there is a network connection, fetch data
+        if (NewsActivity.isConnected(mContext)) {
+
+            // Start the feed over, asking only for what was published since the stored articles.
+            load(true, false);
+
+        } else {
+
+            mSwipe.setRefreshing(false);
+
+            // Keep showing the articles we have, only fall back to the error when there are none
+            if (mAdapter.getItemCount() == 0) {
+                showNoConnection();
+            }
+
+        }
+
+    }
+
+    /**
+     * Shows the no connection error in place of the list.
+     */
+    private void showNoConnection() {
+        // First, hide loading indicator so error message will be visible
+        mLoadingIndicator.setVisibility(View.GONE);
+
+        // Update empty state with no connection image
+        mEmptyStateImageView.setVisibility(View.VISIBLE);
+        mEmptyStateImageView.setImageResource(R.drawable.ic_no_internet_connection);
+
+        // Update empty state with no connection error message
+        mEmptyStateTextView.setVisibility(View.VISIBLE);
+        mEmptyStateTextView.setText(R.string.no_internet_connection);
+    }
+
+}
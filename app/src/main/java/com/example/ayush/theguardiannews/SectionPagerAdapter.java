@@ -0,0 +1,145 @@
+package com.example.ayush.theguardiannews;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v4.view.PagerAdapter;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.Arrays;
+
+/**
+ * Tabs of {@link NewsActivity}, a {@link SectionFeed} for every category in
+ * R.array.settings_choose_category_values.
+ * <p>
+ * The pager only keeps the tab on screen and the ones next to it. The others are released,
+ * their jobs cancelled and their articles let go of, so memory stays the same however many
+ * categories there are. Going back to one of them is still quick, its articles are in the
+ * {@link ResultCache} for a while and in the {@link ArticleStore} after that.
+ * <p>
+ * The tabs next to the one on screen are preloaded once its feed job is done, so swiping to
+ * them shows their articles at once, and preloading doesn't compete with the tab on screen.
+ */
+public class SectionPagerAdapter extends PagerAdapter implements SectionFeed.Listener {
+
+    private final Context mContext;
+    private final FetchEngine.Scope mScope;
+    private final String[] mCategories;
+    private final String[] mTitles;
+
+    /**
+     * Tabs the pager holds, by position.
+     */
+    private final SparseArray<SectionFeed> mFeeds = new SparseArray<>();
+
+    /**
+     * Tab on screen, null until the pager picks one
+     */
+    private SectionFeed mPrimary;
+
+    /**
+     * Constructs a new {@link SectionPagerAdapter}.
+     *
+     * @param context of the activity
+     * @param scope   jobs of the activity
+     */
+    public SectionPagerAdapter(Context context, FetchEngine.Scope scope) {
+        mContext = context;
+        mScope = scope;
+        mCategories = context.getResources().getStringArray(R.array.settings_choose_category_values);
+        mTitles = context.getResources().getStringArray(R.array.settings_choose_category_labels);
+    }
+
+    /**
+     * Returns the category of the tab at the position.
+     */
+    public String getCategory(int position) {
+        return mCategories[position];
+    }
+
+    /**
+     * Returns the position of the category's tab, or -1 if there is none.
+     */
+    public int getPosition(String category) {
+        return Arrays.asList(mCategories).indexOf(category);
+    }
+
+    /**
+     * Reloads the tab on screen if the settings changed while the activity was away.
+     */
+    public void onResume() {
+        if (mPrimary != null) {
+            mPrimary.show();
+        }
+    }
+
+    /**
+     * Stops telling the tabs about their jobs when the activity is destroyed.
+     */
+    public void detach() {
+        for (int i = 0; i < mFeeds.size(); i++) {
+            mFeeds.valueAt(i).detach();
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mCategories.length;
+    }
+
+    @Override
+    public CharSequence getPageTitle(int position) {
+        return mTitles[position];
+    }
+
+    @NonNull
+    @Override
+    public Object instantiateItem(@NonNull ViewGroup container, int position) {
+        SectionFeed feed = new SectionFeed(mContext, container, mScope, mCategories[position], this);
+        container.addView(feed.getView());
+        mFeeds.put(position, feed);
+        if (mPrimary != null && mPrimary.isComplete()) {
+            feed.preload();
+        }
+        return feed;
+    }
+
+    @Override
+    public void destroyItem(@NonNull ViewGroup container, int position, @NonNull Object object) {
+        SectionFeed feed = (SectionFeed) object;
+        feed.release();
+        container.removeView(feed.getView());
+        mFeeds.remove(position);
+    }
+
+    @Override
+    public boolean isViewFromObject(@NonNull View view, @NonNull Object object) {
+        return view == ((SectionFeed) object).getView();
+    }
+
+    @Override
+    public void setPrimaryItem(@NonNull ViewGroup container, int position, @NonNull Object object) {
+        super.setPrimaryItem(container, position, object);
+        SectionFeed feed = (SectionFeed) object;
+        if (feed != mPrimary) {
+            mPrimary = feed;
+            feed.show();
+        }
+    }
+
+    @Override
+    public void onFeedComplete(SectionFeed feed) {
+        if (feed != mPrimary) {
+            return;
+        }
+        // The tab on screen is done with the network, now the ones next to it can have it.
+        for (int i = 0; i < mFeeds.size(); i++) {
+            SectionFeed neighbour = mFeeds.valueAt(i);
+            if (neighbour != feed) {
+                neighbour.preload();
+            }
+        }
+    }
+
+}
@@ -3,10 +3,17 @@ package com.example.ayush.theguardiannews;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.preference.ListPreference;
+import android.preference.MultiSelectListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceFragment;
 import android.preference.PreferenceManager;
 import android.support.v7.app.AppCompatActivity;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 public class SettingsActivity extends AppCompatActivity {
 
@@ -26,6 +33,9 @@ public class SettingsActivity extends AppCompatActivity {
             Preference category = findPreference(getString(R.string.settings_choose_category_key));
             bindPreferenceSummaryToValue(category);
 
+            Preference sections = findPreference(getString(R.string.settings_sections_key));
+            bindPreferenceSummaryToValue(sections);
+
             Preference limit = findPreference(getString(R.string.settings_limit_key));
             bindPreferenceSummaryToValue(limit);
 
@@ -36,6 +46,10 @@ public class SettingsActivity extends AppCompatActivity {
 
         @Override
         public boolean onPreferenceChange(Preference preference, Object value) {
+            if (preference instanceof MultiSelectListPreference) {
+                preference.setSummary(summaryOf((MultiSelectListPreference) preference, (Set<?>) value));
+                return true;
+            }
             String stringValue = value.toString();
             if (preference instanceof ListPreference) {
                 ListPreference listPreference = (ListPreference) preference;
@@ -50,9 +64,32 @@ public class SettingsActivity extends AppCompatActivity {
             return true;
         }
 
+        /**
+         * Returns the labels of the picked sections, in the order they are listed in.
+         */
+        private CharSequence summaryOf(MultiSelectListPreference preference, Set<?> values) {
+            if (values.size() < 2) {
+                return getString(R.string.settings_sections_none);
+            }
+            CharSequence[] entryValues = preference.getEntryValues();
+            CharSequence[] labels = preference.getEntries();
+            List<CharSequence> picked = new ArrayList<>();
+            for (int i = 0; i < entryValues.length; i++) {
+                if (values.contains(entryValues[i].toString())) {
+                    picked.add(labels[i]);
+                }
+            }
+            return TextUtils.join(", ", picked);
+        }
+
         private void bindPreferenceSummaryToValue(Preference preference) {
             preference.setOnPreferenceChangeListener(this);
             SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(preference.getContext());
+            if (preference instanceof MultiSelectListPreference) {
+                onPreferenceChange(preference,
+                        preferences.getStringSet(preference.getKey(), Collections.<String>emptySet()));
+                return;
+            }
             String preferenceString = preferences.getString(preference.getKey(), "");
             onPreferenceChange(preference, preferenceString);
         }
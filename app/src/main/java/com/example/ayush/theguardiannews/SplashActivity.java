@@ -4,35 +4,75 @@ import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
+import android.view.ViewTreeObserver;
 
-public class SplashActivity extends Activity {
+public class SplashActivity extends Activity implements StartupPrefetch.Listener {
 
-    // Splash screen timer
-    private static final int SPLASH_TIME_OUT = 2500;
+    // Longest the splash stays up while waiting for the first articles
+    private static final int SPLASH_MAX_TIME_OUT = 800;
+
+    private final Handler mHandler = new Handler();
+
+    /**
+     * Opens the news screen once the time out is over, whether the articles are there or not.
+     */
+    private final Runnable mTimeOut = new Runnable() {
+        @Override
+        public void run() {
+            openNews();
+        }
+    };
+
+    private boolean mNewsOpened;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
 
-        new Handler().postDelayed(new Runnable() {
-
-            /*
-             * Showing splash screen with a timer. This will be useful when you
-             * want to show case your app logo / company
-             */
-
+        final ViewTreeObserver observer = getWindow().getDecorView().getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
             @Override
-            public void run() {
-                // This method will be executed once the timer is over
-                // Start your app main activity
-                Intent i = new Intent(SplashActivity.this, NewsActivity.class);
-                startActivity(i);
-
-                // close this activity
-                finish();
+            public boolean onPreDraw() {
+                StartupTrace.mark(StartupTrace.Phase.SPLASH_DRAWN);
+                if (observer.isAlive()) {
+                    observer.removeOnPreDrawListener(this);
+                }
+                return true;
             }
-        }, SPLASH_TIME_OUT);
+        });
+
+        // Start loading the articles while the splash is showing, and open the
+        // news screen as soon as they are there (or the time out is over).
+        StartupPrefetch.start(this, this);
+        mHandler.postDelayed(mTimeOut, SPLASH_MAX_TIME_OUT);
+    }
+
+    @Override
+    public void onReady() {
+        openNews();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mHandler.removeCallbacks(mTimeOut);
+        StartupPrefetch.removeListener(this);
+    }
+
+    private void openNews() {
+        if (mNewsOpened || isFinishing()) {
+            return;
+        }
+        mNewsOpened = true;
+        mHandler.removeCallbacks(mTimeOut);
+
+        // Start your app main activity
+        Intent i = new Intent(SplashActivity.this, NewsActivity.class);
+        startActivity(i);
+
+        // close this activity
+        finish();
     }
 
-}
\ No newline at end of file
+}
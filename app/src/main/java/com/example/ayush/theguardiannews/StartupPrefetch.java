@@ -0,0 +1,183 @@
+package com.example.ayush.theguardiannews;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Starts the first fetch while the splash screen is still showing.
+ * <p>
+ * The stored articles are read first, then the network fetch is issued. The splash is told
+ * as soon as there is something to show, and {@link NewsLoader} picks up the in-flight
+ * network fetch instead of issuing a second one.
+ * <p>
+ * The fetch is only kept for the first loader that asks for it, and for at most
+ * {@link #TTL_MILLIS}: if that loader is for other settings, or never comes, it is dropped.
+ */
+public final class StartupPrefetch {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = StartupPrefetch.class.getSimpleName();
+
+    /**
+     * Told on the main thread once there are articles to show.
+     */
+    public interface Listener {
+        void onReady();
+    }
+
+    /**
+     * How long the fetch waits to be taken, past that the loader fetches again.
+     */
+    static final long TTL_MILLIS = 60 * 1000L;
+
+    /**
+     * Set by {@link #start(Context, Listener)}, before the fetch can be ready.
+     */
+    private static Handler sMainHandler;
+
+    /**
+     * Normalized query of the prefetch, see {@link NewsActivity#buildQueryKey(Context)}.
+     */
+    private static String sKey;
+
+    /**
+     * The network fetch, until a {@link NewsLoader} takes it.
+     */
+    private static Future<MultiSectionFetcher.Result> sTask;
+
+    /**
+     * elapsedRealtime when the fetch started.
+     */
+    private static long sStartedAt;
+
+    private static Listener sListener;
+
+    private StartupPrefetch() {
+    }
+
+    /**
+     * Starts reading the stored articles and fetching fresh ones for the current settings.
+     */
+    public static synchronized void start(Context context, Listener listener) {
+        sListener = listener;
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+
+        final Context appContext = context.getApplicationContext();
+        final String key = NewsActivity.buildQueryKey(appContext);
+        final List<String> urls = NewsActivity.buildQueryUrls(appContext);
+        final String orderBy = NewsActivity.getOrderBy(appContext);
+
+        // Already fetching this query, e.g. the splash was recreated.
+        if (sTask != null && key.equals(sKey)) {
+            if (sTask.isDone()) {
+                notifyReady();
+            }
+            return;
+        }
+
+        FutureTask<MultiSectionFetcher.Result> task = new FutureTask<>(new Callable<MultiSectionFetcher.Result>() {
+            @Override
+            public MultiSectionFetcher.Result call() {
+                ArticleStore store = ArticleStore.getInstance(appContext);
+                List<News> cached = store.read(key);
+                if (cached != null && !cached.isEmpty()) {
+                    notifyReady();
+                }
+
+                StartupTrace.mark(StartupTrace.Phase.FETCH_ISSUED);
+                MultiSectionFetcher.Result result = MultiSectionFetcher.fetch(urls, orderBy);
+                // A feed missing a section would keep missing it after every delta sync.
+                if (result != null && result.isComplete() && !result.getNews().isEmpty()) {
+                    store.write(key, result.getNews());
+                }
+                notifyReady();
+                return result;
+            }
+        });
+        hold(key, task, SystemClock.elapsedRealtime());
+        new Thread(task, LOG_TAG).start();
+    }
+
+    /**
+     * Keeps the fetch for the given query until a loader takes it.
+     */
+    static synchronized void hold(String key, Future<MultiSectionFetcher.Result> task, long nowMillis) {
+        sKey = key;
+        sTask = task;
+        sStartedAt = nowMillis;
+    }
+
+    /**
+     * Stops telling the listener; call when the splash goes away.
+     */
+    public static synchronized void removeListener(Listener listener) {
+        if (sListener == listener) {
+            sListener = null;
+        }
+    }
+
+    /**
+     * Hands over the in-flight network fetch for the given query, at most once.
+     * Returns null if there is none.
+     */
+    static Future<MultiSectionFetcher.Result> take(String key) {
+        return take(key, SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Hands over the fetch if it is for the given query and not older than {@link #TTL_MILLIS}.
+     * Either way it is dropped: only the first loader may take it.
+     */
+    static synchronized Future<MultiSectionFetcher.Result> take(String key, long nowMillis) {
+        Future<MultiSectionFetcher.Result> task = sTask;
+        boolean matches = task != null && key.equals(sKey) && nowMillis - sStartedAt < TTL_MILLIS;
+        sTask = null;
+        sKey = null;
+        return matches ? task : null;
+    }
+
+    /**
+     * Waits for a fetch handed over by {@link #take(String)}, or returns null if it failed.
+     */
+    static MultiSectionFetcher.Result await(Future<MultiSectionFetcher.Result> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Log.e(LOG_TAG, "Prefetch failed", e.getCause());
+            return null;
+        }
+    }
+
+    private static void notifyReady() {
+        sMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Listener listener;
+                synchronized (StartupPrefetch.class) {
+                    listener = sListener;
+                    sListener = null;
+                }
+                if (listener != null) {
+                    listener.onReady();
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.example.ayush.theguardiannews;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Records how long each phase of a cold start takes and logs the timeline once the
+ * first news article is on screen.
+ * <p>
+ * Only the first time a phase is reached is recorded, so later refreshes don't count.
+ */
+public final class StartupTrace {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = StartupTrace.class.getSimpleName();
+
+    /**
+     * Phases of a cold start, in the order we expect to reach them.
+     */
+    public enum Phase {
+        PROCESS_START,
+        SPLASH_DRAWN,
+        FETCH_ISSUED,
+        FIRST_ITEM_BOUND
+    }
+
+    /**
+     * elapsedRealtime of each phase, 0 if not reached yet.
+     */
+    private static final long[] sTimes = new long[Phase.values().length];
+
+    /**
+     * Set once the timeline has been logged; after that marks are ignored.
+     */
+    private static volatile boolean sDone;
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Records the start of the process. Call from {@link android.app.Application#onCreate()}.
+     */
+    public static void markProcessStart() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            // Includes the time spent forking and loading classes before our code runs.
+            record(Phase.PROCESS_START, Process.getStartElapsedRealtime());
+        } else {
+            record(Phase.PROCESS_START, SystemClock.elapsedRealtime());
+        }
+    }
+
+    /**
+     * Records that the given phase was reached now.
+     */
+    public static void mark(Phase phase) {
+        if (sDone) {
+            return;
+        }
+        record(phase, SystemClock.elapsedRealtime());
+        if (phase == Phase.FIRST_ITEM_BOUND) {
+            sDone = true;
+            log();
+        }
+    }
+
+    private static synchronized void record(Phase phase, long time) {
+        if (sTimes[phase.ordinal()] == 0) {
+            sTimes[phase.ordinal()] = time;
+        }
+    }
+
+    private static synchronized void log() {
+        long start = sTimes[Phase.PROCESS_START.ordinal()];
+        StringBuilder timeline = new StringBuilder("Cold start:");
+        for (Phase phase : Phase.values()) {
+            long time = sTimes[phase.ordinal()];
+            timeline.append(' ').append(phase.name().toLowerCase()).append('=');
+            timeline.append(time == 0 || start == 0 ? "-" : (time - start) + "ms");
+        }
+        Log.i(LOG_TAG, timeline.toString());
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares a single copy of Strings that repeat across articles, such as section names,
+ * contributors and display dates, so a feed holds each of them once.
+ * <p>
+ * Unlike {@link String#intern()}, the pool is bounded: it starts over once it holds
+ * {@link #MAX_SIZE} Strings, which a long session browsing many sections could reach.
+ */
+final class StringPool {
+
+    private static final int MAX_SIZE = 4096;
+
+    private static final ConcurrentMap<String, String> sPool = new ConcurrentHashMap<>();
+
+    private StringPool() {
+    }
+
+    /**
+     * Returns the pooled copy of the String, adding it if there is none.
+     */
+    static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = sPool.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (sPool.size() >= MAX_SIZE) {
+            sPool.clear();
+        }
+        pooled = sPool.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.ayush.theguardiannews;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Values made from a text in one style, such as the title layouts of {@link TitleLayouts}.
+ * <p>
+ * Only values in the current style are kept: changing it drops all of them, and values
+ * looked up or put in another style, e.g. by a thread that started before the change, are
+ * ignored. Texts are keyed by their characters, so a title finds its value whatever
+ * CharSequence it comes in. The least recently used values go first once there are more
+ * than the maximum.
+ */
+final class StyledCache<S, V> {
+
+    private final int mMaxEntries;
+
+    /**
+     * In access order, so the first entry is the least recently used.
+     */
+    private final LinkedHashMap<String, V> mEntries;
+
+    /**
+     * Style of the values, null until one is set.
+     */
+    private S mStyle;
+
+    StyledCache(final int maxEntries) {
+        mMaxEntries = maxEntries;
+        mEntries = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > mMaxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the current style, or null if none was set.
+     */
+    synchronized S getStyle() {
+        return mStyle;
+    }
+
+    /**
+     * Sets the current style, dropping the values in another one.
+     *
+     * @return true if the style changed
+     */
+    synchronized boolean setStyle(S style) {
+        if (style.equals(mStyle)) {
+            return false;
+        }
+        mStyle = style;
+        mEntries.clear();
+        return true;
+    }
+
+    /**
+     * Returns the value of the text if the style is the current one and it is cached,
+     * otherwise null.
+     */
+    synchronized V get(S style, CharSequence text) {
+        return style.equals(mStyle) ? mEntries.get(text.toString()) : null;
+    }
+
+    /**
+     * Caches the value of the text, unless the style is no longer the current one.
+     */
+    synchronized void put(S style, CharSequence text, V value) {
+        if (style.equals(mStyle)) {
+            mEntries.put(text.toString(), value);
+        }
+    }
+
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.example.ayush.theguardiannews;
+
+import android.annotation.TargetApi;
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.os.Build;
+import android.util.SparseArray;
+
+/**
+ * Runs the jobs scheduled by {@link BackgroundSync} on a thread of their own.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class SyncJobService extends JobService {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = SyncJobService.class.getSimpleName();
+
+    /**
+     * Threads of the running jobs by job id. Guarded by itself, workers remove their own.
+     */
+    private final SparseArray<Thread> mThreads = new SparseArray<>();
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                boolean synced = false;
+                try {
+                    synced = BackgroundSync.sync(getApplicationContext());
+                } finally {
+                    removeThread(params.getJobId(), Thread.currentThread());
+                }
+                // A stopped job is rescheduled by onStopJob() already.
+                if (!Thread.currentThread().isInterrupted()) {
+                    jobFinished(params, !synced);
+                }
+            }
+        }, LOG_TAG);
+        synchronized (mThreads) {
+            mThreads.put(params.getJobId(), thread);
+        }
+        thread.start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The constraints no longer hold, e.g. the device left the Wi-Fi.
+        Thread thread;
+        synchronized (mThreads) {
+            thread = mThreads.get(params.getJobId());
+            mThreads.remove(params.getJobId());
+        }
+        if (thread != null) {
+            // A blocking read ignores the interrupt, so disconnect the request as well.
+            thread.interrupt();
+            NewsHttpClient.abort(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the thread of a job once it is done, unless the job was started again since.
+     */
+    private void removeThread(int jobId, Thread thread) {
+        synchronized (mThreads) {
+            if (mThreads.get(jobId) == thread) {
+                mThreads.remove(jobId);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Downloaded thumbnails on disk, as the bytes the server sent, so they outlive the process
+ * and can be decoded at whatever size the list needs.
+ * <p>
+ * Files are named after their URL and touched whenever they are read, so once the directory
+ * grows past its size the least recently shown thumbnails go first.
+ */
+final class ThumbnailDiskCache {
+
+    /**
+     * Bytes written between two trims, as a fraction of the size of the cache.
+     */
+    private static final int TRIM_EVERY_FRACTION = 8;
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+
+    /**
+     * Bytes written since the directory was last trimmed.
+     */
+    private long mWrittenSinceTrim;
+
+    /**
+     * Constructs a new {@link ThumbnailDiskCache}.
+     *
+     * @param directory where the thumbnails are kept, created if needed
+     * @param maxBytes  upper bound on the size of the directory, give or take a trim
+     */
+    ThumbnailDiskCache(File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the file of the thumbnail, or null if it isn't cached.
+     */
+    File get(String url) {
+        File file = new File(mDirectory, CacheUtils.fileNameFor(url));
+        if (!file.isFile()) {
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Writes the thumbnail and returns its file. Nothing is kept if reading fails half way.
+     */
+    File put(String url, InputStream in) throws IOException {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Can't create " + mDirectory);
+        }
+        String name = CacheUtils.fileNameFor(url);
+        // Written next to it first, so readers never see half a file.
+        File temp = new File(mDirectory, name + ".tmp");
+        File file = new File(mDirectory, name);
+        long length = 0;
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                length += read;
+            }
+        } catch (IOException e) {
+            CacheUtils.closeQuietly(out);
+            temp.delete();
+            throw e;
+        }
+        out.close();
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Can't write " + file);
+        }
+
+        boolean trim;
+        synchronized (this) {
+            mWrittenSinceTrim += length;
+            trim = mWrittenSinceTrim >= mMaxBytes / TRIM_EVERY_FRACTION;
+            if (trim) {
+                mWrittenSinceTrim = 0;
+            }
+        }
+        if (trim) {
+            CacheUtils.trimToSize(mDirectory, mMaxBytes);
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,349 @@
+package com.example.ayush.theguardiannews;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads article thumbnails into the rows of the list.
+ * <p>
+ * A thumbnail comes from the {@link ThumbnailMemoryCache} if it was shown at that size
+ * recently, otherwise it is read from the {@link ThumbnailDiskCache} or downloaded into it,
+ * and decoded on a background pool at the smallest power of two that still covers the
+ * ImageView, into a bitmap left over from an earlier thumbnail where possible.
+ * <p>
+ * A row that is recycled or bound again cancels its request, see {@link #clear(Request)},
+ * so a fling only decodes what ends up on screen. Must be called on the main thread.
+ */
+public final class ThumbnailLoader {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ThumbnailLoader.class.getSimpleName();
+
+    /**
+     * Downloads and decodes at once; they run below the main thread's priority.
+     */
+    private static final int THREADS = 3;
+
+    private static final int READ_TIMEOUT_MILLIS = 10000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 15000;
+
+    /**
+     * Upper bound on the size of the downloaded thumbnails on disk.
+     */
+    private static final long DISK_CACHE_BYTES = 20 * 1024 * 1024L;
+
+    /**
+     * Share of the app's memory class the decoded thumbnails can take.
+     */
+    private static final int MEMORY_CACHE_FRACTION = 8;
+
+    private static ThumbnailLoader sInstance;
+
+    private final ThumbnailMemoryCache<Bitmap> mMemoryCache;
+    private final ThumbnailDiskCache mDiskCache;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        private int mCount;
+
+        @Override
+        public synchronized Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // Decoding mustn't take frames away from a fling.
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, LOG_TAG + " #" + (++mCount));
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private ThumbnailLoader(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassBytes = activityManager.getMemoryClass() * 1024 * 1024;
+        mMemoryCache = new ThumbnailMemoryCache<>(memoryClassBytes / MEMORY_CACHE_FRACTION,
+                ThumbnailMemoryCache.BITMAPS);
+        mDiskCache = new ThumbnailDiskCache(new File(context.getCacheDir(), "thumbnails"), DISK_CACHE_BYTES);
+    }
+
+    /**
+     * Returns the loader used by the app.
+     */
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ThumbnailLoader(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Shows the thumbnail in the view, which must have a fixed width and height.
+     * The view shows its background until the thumbnail is there.
+     *
+     * @param url of the thumbnail, or null to show none
+     * @return the request, to {@link #clear(Request)} when the view is recycled or rebound,
+     * or null if there is nothing to load
+     */
+    public Request load(String url, ImageView view) {
+        view.setImageDrawable(null);
+        if (url == null) {
+            return null;
+        }
+
+        int width = view.getLayoutParams().width;
+        int height = view.getLayoutParams().height;
+        Request request = new Request(url + "@" + width + "x" + height, view);
+        Bitmap cached = mMemoryCache.acquire(request.mKey);
+        if (cached != null) {
+            Metrics.count(Metrics.THUMBNAIL_MEMORY_HITS, 1);
+            request.show(cached);
+            return request;
+        }
+        Metrics.count(Metrics.THUMBNAIL_MEMORY_MISSES, 1);
+        request.mFuture = mExecutor.submit(new LoadTask(request, url, width, height));
+        return request;
+    }
+
+    /**
+     * Cancels the request if it is still running and lets go of its thumbnail.
+     */
+    public void clear(Request request) {
+        if (request == null) {
+            return;
+        }
+        request.cancel();
+        if (request.mBitmap != null) {
+            request.mView.setImageDrawable(null);
+            mMemoryCache.release(request.mBitmap);
+            request.mBitmap = null;
+        }
+    }
+
+    /**
+     * Frees memory as asked for by {@link ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            mMemoryCache.trim(true);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mMemoryCache.trim(false);
+        }
+    }
+
+    /**
+     * Returns the largest power of two the picture can be scaled down by and still cover
+     * the target size, 1 if it is smaller already.
+     */
+    static int sampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return sampleSize;
+        }
+        while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Returns the thumbnail file, from the disk cache or downloaded into it.
+     */
+    private File fetch(String url, Request request) throws IOException {
+        File file = mDiskCache.get(url);
+        if (file != null) {
+            Metrics.count(Metrics.THUMBNAIL_DISK_HITS, 1);
+            return file;
+        }
+        Metrics.count(Metrics.THUMBNAIL_DOWNLOADS, 1);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        request.mConnection = connection;
+        try {
+            if (request.mCancelled) {
+                throw new IOException("Request cancelled");
+            }
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new HttpStatusException(connection.getResponseCode(), -1);
+            }
+            InputStream in = connection.getInputStream();
+            try {
+                return mDiskCache.put(url, in);
+            } finally {
+                CacheUtils.closeQuietly(in);
+            }
+        } finally {
+            request.mConnection = null;
+        }
+    }
+
+    /**
+     * Decodes the file scaled down to about the target size, or returns null if it can't.
+     */
+    private Bitmap decode(File file, int targetWidth, int targetHeight) {
+        long start = System.nanoTime();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize(options.outWidth, options.outHeight, targetWidth, targetHeight);
+        // Thumbnails are JPEGs; half the memory of ARGB_8888 and no visible difference.
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inMutable = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+            int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+            options.inBitmap = mMemoryCache.takeReusable(width * height * 2);
+        }
+
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        } catch (IllegalArgumentException e) {
+            // The reused bitmap didn't fit after all.
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        }
+        if (bitmap != null && bitmap == options.inBitmap) {
+            Metrics.count(Metrics.THUMBNAIL_REUSED, 1);
+        }
+        if (bitmap == null) {
+            // Most likely a broken download; fetch it again next time.
+            file.delete();
+        }
+        Metrics.recordSince(Metrics.THUMBNAIL_DECODE, start);
+        return bitmap;
+    }
+
+    /**
+     * Fetches, decodes and caches a thumbnail, then shows it on the main thread.
+     */
+    private class LoadTask implements Runnable {
+
+        private final Request mRequest;
+        private final String mUrl;
+        private final int mWidth;
+        private final int mHeight;
+
+        LoadTask(Request request, String url, int width, int height) {
+            mRequest = request;
+            mUrl = url;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        @Override
+        public void run() {
+            if (mRequest.mCancelled) {
+                return;
+            }
+            final Bitmap bitmap;
+            try {
+                File file = fetch(mUrl, mRequest);
+                if (mRequest.mCancelled) {
+                    return;
+                }
+                bitmap = decode(file, mWidth, mHeight);
+            } catch (IOException e) {
+                if (!mRequest.mCancelled) {
+                    Log.e(LOG_TAG, "Problem loading the thumbnail " + mUrl, e);
+                }
+                return;
+            }
+            if (bitmap == null) {
+                return;
+            }
+            // Counted as shown right away, so it can't be reused before it is.
+            mMemoryCache.putAndAcquire(mRequest.mKey, bitmap);
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (mRequest.mCancelled) {
+                        mMemoryCache.release(bitmap);
+                        return;
+                    }
+                    Metrics.recordSince(Metrics.THUMBNAIL_LOAD, mRequest.mStartNanos);
+                    mRequest.show(bitmap);
+                }
+            });
+        }
+    }
+
+    /**
+     * A thumbnail being loaded into, or shown in, a view.
+     */
+    public static final class Request {
+
+        private final String mKey;
+        private final ImageView mView;
+        private final long mStartNanos = System.nanoTime();
+
+        private volatile boolean mCancelled;
+
+        /**
+         * Connection of the download, so cancelling can close it; null when not downloading.
+         */
+        private volatile HttpURLConnection mConnection;
+
+        private Future<?> mFuture;
+
+        /**
+         * Bitmap shown in the view, counted in the memory cache. Main thread only.
+         */
+        private Bitmap mBitmap;
+
+        private Request(String key, ImageView view) {
+            mKey = key;
+            mView = view;
+        }
+
+        private void show(Bitmap bitmap) {
+            mBitmap = bitmap;
+            mView.setImageBitmap(bitmap);
+        }
+
+        private void cancel() {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            if (mFuture != null && mFuture.cancel(false)) {
+                Metrics.count(Metrics.THUMBNAIL_CANCELLED, 1);
+            }
+            HttpURLConnection connection = mConnection;
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+}
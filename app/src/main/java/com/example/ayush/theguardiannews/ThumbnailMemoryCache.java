@@ -0,0 +1,208 @@
+package com.example.ayush.theguardiannews;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decoded thumbnails in memory, by URL and size, bounded by their size in bytes.
+ * <p>
+ * Bitmaps shown in a row are counted, see {@link #acquire(String)} and {@link #release(Object)}.
+ * Once a bitmap is both out of the cache and out of every row, its memory goes to a small
+ * pool that the next decode of the same size reuses, see {@link #takeReusable(int)}, so
+ * scrolling through a long feed doesn't keep allocating and collecting bitmaps.
+ * <p>
+ * The app keeps {@link Bitmap}s, measured by {@link #BITMAPS}; tests measure their own.
+ */
+final class ThumbnailMemoryCache<B> {
+
+    /**
+     * How big a bitmap is.
+     */
+    interface Measure<B> {
+
+        /**
+         * Returns the bytes the bitmap takes in the cache.
+         */
+        int sizeOf(B bitmap);
+
+        /**
+         * Returns the bytes a decode can reuse of the bitmap, 0 if it can't be reused.
+         */
+        int reusableBytes(B bitmap);
+    }
+
+    /**
+     * Measures {@link Bitmap}s; only the mutable ones on KitKat and later can be reused.
+     */
+    static final Measure<Bitmap> BITMAPS = new Measure<Bitmap>() {
+        @Override
+        public int sizeOf(Bitmap bitmap) {
+            return bitmap.getRowBytes() * bitmap.getHeight();
+        }
+
+        @Override
+        @TargetApi(Build.VERSION_CODES.KITKAT)
+        public int reusableBytes(Bitmap bitmap) {
+            // Decoding into any bitmap that is big enough needs KitKat.
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && bitmap.isMutable()) {
+                return bitmap.getAllocationByteCount();
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * Bitmaps kept for reuse at most.
+     */
+    private static final int MAX_REUSABLE = 6;
+
+    private final int mMaxBytes;
+    private final Measure<B> mMeasure;
+
+    /**
+     * In access order, so the first entry is the least recently used.
+     */
+    private final LinkedHashMap<String, B> mCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Bytes of the cached bitmaps.
+     */
+    private int mSize;
+
+    /**
+     * Bitmaps shown in rows, and in how many.
+     */
+    private final Map<B, Integer> mInUse = new IdentityHashMap<>();
+
+    /**
+     * Bitmaps that left the cache while still shown; reusable once they aren't.
+     */
+    private final Map<B, Boolean> mEvictedInUse = new IdentityHashMap<>();
+
+    private final List<B> mReusable = new ArrayList<>();
+
+    /**
+     * Constructs a new {@link ThumbnailMemoryCache}.
+     *
+     * @param maxBytes upper bound on the size of the cached bitmaps
+     * @param measure  of the bitmaps
+     */
+    ThumbnailMemoryCache(int maxBytes, Measure<B> measure) {
+        mMaxBytes = maxBytes;
+        mMeasure = measure;
+    }
+
+    /**
+     * Returns the cached bitmap and counts it as shown, or returns null if it isn't cached.
+     */
+    synchronized B acquire(String key) {
+        B bitmap = mCache.get(key);
+        if (bitmap != null) {
+            acquire(bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Caches a bitmap and counts it as shown, so it can't be reused before it is.
+     */
+    synchronized void putAndAcquire(String key, B bitmap) {
+        acquire(bitmap);
+        mSize += mMeasure.sizeOf(bitmap);
+        B previous = mCache.put(key, bitmap);
+        if (previous != null && previous != bitmap) {
+            mSize -= mMeasure.sizeOf(previous);
+            onRemoved(previous);
+        }
+        trimToSize(mMaxBytes);
+        Metrics.histogram(Metrics.THUMBNAIL_MEMORY_KB).record(mSize / 1024);
+    }
+
+    private void acquire(B bitmap) {
+        Integer count = mInUse.get(bitmap);
+        mInUse.put(bitmap, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Stops counting the bitmap as shown in one more row.
+     */
+    synchronized void release(B bitmap) {
+        Integer count = mInUse.get(bitmap);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            mInUse.put(bitmap, count - 1);
+            return;
+        }
+        mInUse.remove(bitmap);
+        if (mEvictedInUse.remove(bitmap) != null) {
+            offerReusable(bitmap);
+        }
+    }
+
+    /**
+     * Returns a bitmap that a decode of the given size can reuse, or null if there is none.
+     */
+    synchronized B takeReusable(int byteCount) {
+        Iterator<B> iterator = mReusable.iterator();
+        while (iterator.hasNext()) {
+            B bitmap = iterator.next();
+            if (mMeasure.reusableBytes(bitmap) >= byteCount) {
+                iterator.remove();
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Frees memory when the system runs low.
+     *
+     * @param all true to drop every cached bitmap, false to drop the older half
+     */
+    synchronized void trim(boolean all) {
+        trimToSize(all ? -1 : mMaxBytes / 2);
+        mReusable.clear();
+    }
+
+    /**
+     * Returns the number of bitmaps counted as shown.
+     */
+    synchronized int inUseCount() {
+        return mInUse.size();
+    }
+
+    private void trimToSize(int maxBytes) {
+        Iterator<B> iterator = mCache.values().iterator();
+        while (mSize > maxBytes && iterator.hasNext()) {
+            B eldest = iterator.next();
+            iterator.remove();
+            mSize -= mMeasure.sizeOf(eldest);
+            onRemoved(eldest);
+        }
+    }
+
+    private void onRemoved(B bitmap) {
+        if (mInUse.containsKey(bitmap)) {
+            mEvictedInUse.put(bitmap, Boolean.TRUE);
+        } else {
+            offerReusable(bitmap);
+        }
+    }
+
+    private void offerReusable(B bitmap) {
+        if (mMeasure.reusableBytes(bitmap) > 0 && mReusable.size() < MAX_REUSABLE) {
+            mReusable.add(bitmap);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.example.ayush.theguardiannews;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import java.util.List;
+
+/**
+ * Lays out article titles ahead of time, so binding a row doesn't have to measure its title.
+ * <p>
+ * Measuring a long headline is the costliest part of laying out a row. Once a
+ * {@link TitleView} has been measured, the text style and width of the titles are known, and
+ * the titles of every list loaded after that are laid out on the loading thread, see
+ * {@link #prepare(List)}. Binding then finds the layout here and only has to draw it.
+ */
+final class TitleLayouts {
+
+    /**
+     * Layouts kept, a feed of 200 articles plus a search.
+     */
+    private static final int CACHE_SIZE = 250;
+
+    /**
+     * Layouts by title in the style of the titles, which is null until a {@link TitleView}
+     * was measured.
+     */
+    private static final StyledCache<Style, Layout> sCache = new StyledCache<>(CACHE_SIZE);
+
+    private TitleLayouts() {
+    }
+
+    /**
+     * Sets the style titles are laid out in, dropping the layouts made in another one,
+     * e.g. after a rotation changed the width.
+     */
+    static void setStyle(Style style) {
+        sCache.setStyle(style);
+    }
+
+    /**
+     * Returns the layout of the title in the given style, laying it out now if it wasn't
+     * prepared. On the main thread.
+     */
+    static Layout get(CharSequence title, Style style, TextPaint paint) {
+        Layout layout = sCache.get(style, title);
+        if (layout != null) {
+            Metrics.count(Metrics.TEXT_LAYOUT_HITS, 1);
+            return layout;
+        }
+        Metrics.count(Metrics.TEXT_LAYOUT_MISSES, 1);
+        layout = build(title, paint, style);
+        sCache.put(style, title, layout);
+        return layout;
+    }
+
+    /**
+     * Lays out the titles of the articles in the current style, if it is known yet.
+     * On a background thread; stops early if it is interrupted.
+     */
+    static void prepare(List<News> news) {
+        Style style = sCache.getStyle();
+        if (style == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        // Layouts keep the paint they were made with to draw; this one is never changed again.
+        TextPaint paint = style.newPaint();
+        int count = Math.min(news.size(), CACHE_SIZE);
+        for (int i = 0; i < count && !Thread.currentThread().isInterrupted(); i++) {
+            String title = news.get(i).getTitle();
+            if (!style.equals(sCache.getStyle())) {
+                return;
+            }
+            if (sCache.get(style, title) == null) {
+                sCache.put(style, title, build(title, paint, style));
+            }
+        }
+        Metrics.recordSince(Metrics.TEXT_LAYOUT_PREPARE, start);
+    }
+
+    /**
+     * Lays out the text like a TextView with maxLines and ellipsize="end" does.
+     */
+    static Layout build(CharSequence text, TextPaint paint, Style style) {
+        int width = Math.max(0, style.mWidth);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                    .setMaxLines(style.mMaxLines)
+                    .setEllipsize(TextUtils.TruncateAt.END)
+                    .build();
+        }
+
+        StaticLayout layout = new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_NORMAL,
+                1f, 0f, true);
+        if (layout.getLineCount() <= style.mMaxLines) {
+            return layout;
+        }
+        // Older versions only ellipsize single lines, so ellipsize what goes on the last one.
+        int lastLineStart = layout.getLineStart(style.mMaxLines - 1);
+        CharSequence lastLine = TextUtils.ellipsize(text.subSequence(lastLineStart, text.length()),
+                paint, width, TextUtils.TruncateAt.END);
+        return new StaticLayout(TextUtils.concat(text.subSequence(0, lastLineStart), lastLine),
+                paint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, true);
+    }
+
+    /**
+     * How titles look and how wide they are.
+     */
+    static final class Style {
+
+        private final float mTextSize;
+        private final int mColor;
+        private final Typeface mTypeface;
+        private final int mWidth;
+        private final int mMaxLines;
+
+        Style(float textSize, int color, Typeface typeface, int width, int maxLines) {
+            mTextSize = textSize;
+            mColor = color;
+            mTypeface = typeface;
+            mWidth = width;
+            mMaxLines = maxLines;
+        }
+
+        int getWidth() {
+            return mWidth;
+        }
+
+        /**
+         * Returns a new paint in this style.
+         */
+        TextPaint newPaint() {
+            TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+            paint.setTextSize(mTextSize);
+            paint.setColor(mColor);
+            paint.setTypeface(mTypeface);
+            return paint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Style)) {
+                return false;
+            }
+            Style other = (Style) o;
+            return mTextSize == other.mTextSize
+                    && mColor == other.mColor
+                    && mTypeface == other.mTypeface
+                    && mWidth == other.mWidth
+                    && mMaxLines == other.mMaxLines;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Float.floatToIntBits(mTextSize);
+            result = 31 * result + mColor;
+            result = 31 * result + mWidth;
+            result = 31 * result + mMaxLines;
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.example.ayush.theguardiannews;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * Shows an article title from a layout prepared by {@link TitleLayouts}, in place of a
+ * TextView that would measure it again on every bind.
+ * <p>
+ * Takes the textSize, textStyle, textColor and maxLines attributes of a TextView; titles
+ * longer than maxLines are ellipsized at the end.
+ */
+public class TitleView extends View {
+
+    /**
+     * Attributes read from the layout, in increasing order of their ids.
+     */
+    private static final int[] ATTRS = {
+            android.R.attr.textSize,
+            android.R.attr.textStyle,
+            android.R.attr.textColor,
+            android.R.attr.maxLines};
+
+    private final float mTextSize;
+    private final int mColor;
+    private final Typeface mTypeface;
+    private final int mMaxLines;
+
+    /**
+     * Paint for the titles that weren't prepared.
+     */
+    private TextPaint mPaint;
+
+    /**
+     * Style at the measured width, null until measured.
+     */
+    private TitleLayouts.Style mStyle;
+
+    private CharSequence mText = "";
+
+    /**
+     * Layout of mText in mStyle, null until measured.
+     */
+    private Layout mLayout;
+
+    public TitleView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        TypedArray a = context.obtainStyledAttributes(attrs, ATTRS);
+        mTextSize = a.getDimension(0, TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 18,
+                getResources().getDisplayMetrics()));
+        mTypeface = Typeface.defaultFromStyle(a.getInt(1, Typeface.NORMAL));
+        ColorStateList colors = a.getColorStateList(2);
+        mColor = colors != null ? colors.getDefaultColor() : Color.BLACK;
+        mMaxLines = a.getInt(3, Integer.MAX_VALUE);
+        a.recycle();
+    }
+
+    /**
+     * Sets the title to show.
+     */
+    public void setText(CharSequence text) {
+        if (text == null) {
+            text = "";
+        }
+        if (TextUtils.equals(text, mText)) {
+            return;
+        }
+        mText = text;
+        setContentDescription(text);
+        mLayout = null;
+        requestLayout();
+        invalidate();
+    }
+
+    public CharSequence getText() {
+        return mText;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int textWidth = Math.max(0, width - getPaddingLeft() - getPaddingRight());
+        if (mStyle == null || mStyle.getWidth() != textWidth) {
+            mStyle = new TitleLayouts.Style(mTextSize, mColor, mTypeface, textWidth, mMaxLines);
+            mPaint = mStyle.newPaint();
+            mLayout = null;
+            // Lists loaded from now on get their titles laid out for this width.
+            TitleLayouts.setStyle(mStyle);
+        }
+        if (mLayout == null) {
+            mLayout = TitleLayouts.get(mText, mStyle, mPaint);
+        }
+        int height = mLayout.getHeight() + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mLayout == null) {
+            return;
+        }
+        canvas.save();
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        mLayout.draw(canvas);
+        canvas.restore();
+    }
+
+}
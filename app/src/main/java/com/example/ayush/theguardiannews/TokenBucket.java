@@ -0,0 +1,77 @@
+package com.example.ayush.theguardiannews;
+
+/**
+ * Client-side rate limiter: allows bursts of up to a number of requests and refills at a
+ * steady rate after that, so we stay inside the quota of the API key instead of having the
+ * server turn requests away.
+ */
+public class TokenBucket {
+
+    private final double mCapacity;
+    private final double mTokensPerNano;
+
+    private double mTokens;
+    private long mLastRefillNanos;
+
+    /**
+     * Nothing goes out before this {@link System#nanoTime()}, see {@link #pause(long)}.
+     */
+    private long mPausedUntilNanos;
+
+    /**
+     * Constructs a new, full {@link TokenBucket}.
+     *
+     * @param capacity        most requests allowed in a burst
+     * @param tokensPerSecond requests allowed per second after that
+     */
+    public TokenBucket(int capacity, double tokensPerSecond) {
+        mCapacity = capacity;
+        mTokensPerNano = tokensPerSecond / 1e9;
+        mTokens = capacity;
+        mLastRefillNanos = System.nanoTime();
+        mPausedUntilNanos = mLastRefillNanos;
+    }
+
+    /**
+     * Waits until a request is allowed to go out and takes its token.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = reserve(System.nanoTime())) > 0) {
+            Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+        }
+    }
+
+    /**
+     * Holds back all requests for the given time and empties the bucket, e.g. after the
+     * server said we sent too many.
+     */
+    public synchronized void pause(long millis) {
+        long until = System.nanoTime() + millis * 1000000;
+        if (until - mPausedUntilNanos > 0) {
+            mPausedUntilNanos = until;
+        }
+        mTokens = 0;
+        mLastRefillNanos = until;
+    }
+
+    /**
+     * Takes a token if there is one at the given time and returns 0, otherwise returns how
+     * long to wait before asking again, in nanoseconds.
+     */
+    synchronized long reserve(long nowNanos) {
+        if (nowNanos - mPausedUntilNanos < 0) {
+            return mPausedUntilNanos - nowNanos;
+        }
+        if (nowNanos - mLastRefillNanos > 0) {
+            mTokens = Math.min(mCapacity, mTokens + (nowNanos - mLastRefillNanos) * mTokensPerNano);
+            mLastRefillNanos = nowNanos;
+        }
+        if (mTokens >= 1) {
+            mTokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - mTokens) / mTokensPerNano));
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ArticleBodyCacheTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Before
+    public void setUp() {
+        Metrics.reset();
+    }
+
+    @Test
+    public void open_countsHitsAndMisses() {
+        ArticleBodyCache cache = new ArticleBodyCache(1000, 1000, HOUR);
+        cache.put("a", "<p>a</p>", 0);
+
+        assertEquals("<p>a</p>", cache.open("a"));
+        assertNull(cache.open("b"));
+        assertEquals(1, Metrics.getCount(Metrics.ARTICLE_BODY_HITS));
+        assertEquals(1, Metrics.getCount(Metrics.ARTICLE_BODY_MISSES));
+    }
+
+    @Test
+    public void put_overSize_dropsLeastRecentlyUsed() {
+        ArticleBodyCache cache = new ArticleBodyCache(30, 1000, HOUR);
+        cache.put("a", "0123456789", 0);
+        cache.put("b", "0123456789", 0);
+        cache.put("c", "0123456789", 0);
+        cache.open("a");
+
+        cache.put("d", "0123456789", 0);
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertTrue(cache.contains("d"));
+    }
+
+    @Test
+    public void prefetched_countsUsedAndWastedBytes() {
+        ArticleBodyCache cache = new ArticleBodyCache(20, 1000, HOUR);
+        cache.put("opened", "0123456789", 10);
+        cache.put("ignored", "0123456789", 10);
+        cache.open("opened");
+
+        // Pushes both out; only the one never opened was a waste.
+        cache.put("new", "01234567890123456789", 0);
+
+        assertEquals(2, Metrics.getCount(Metrics.ARTICLE_PREFETCHES));
+        assertEquals(20, Metrics.getCount(Metrics.ARTICLE_PREFETCH_BYTES));
+        assertEquals(10, Metrics.getCount(Metrics.ARTICLE_PREFETCH_USED_BYTES));
+        assertEquals(10, Metrics.getCount(Metrics.ARTICLE_PREFETCH_WASTED_BYTES));
+    }
+
+    @Test
+    public void hasBudget_refillsEveryWindow() {
+        ArticleBodyCache cache = new ArticleBodyCache(1000, 100, HOUR);
+        assertTrue(cache.hasBudget(0));
+        assertTrue(cache.reserve(60, 0));
+        assertTrue(cache.hasBudget(1000));
+        assertTrue(cache.reserve(60, 1000));
+        assertFalse(cache.hasBudget(2000));
+
+        assertTrue(cache.hasBudget(HOUR));
+    }
+
+    @Test
+    public void reserve_burstOfPrefetches_stopsAtTheBudget() {
+        ArticleBodyCache cache = new ArticleBodyCache(1000, 100, HOUR);
+
+        // None of them is back yet.
+        assertTrue(cache.reserve(40, 0));
+        assertTrue(cache.reserve(40, 0));
+        assertTrue(cache.reserve(40, 0));
+        assertFalse(cache.reserve(40, 0));
+    }
+
+    @Test
+    public void settle_chargesTheBytesRead() {
+        ArticleBodyCache cache = new ArticleBodyCache(1000, 100, HOUR);
+        assertTrue(cache.reserve(40, 0));
+        assertTrue(cache.reserve(40, 0));
+        assertTrue(cache.reserve(40, 0));
+
+        // Smaller than estimated, and one cancelled before it went out.
+        cache.settle(40, 0, 10);
+        cache.settle(40, 0, 0);
+        assertTrue(cache.reserve(40, 1000));
+
+        // Bigger than estimated.
+        cache.settle(40, 0, 90);
+        assertFalse(cache.hasBudget(2000));
+    }
+
+    @Test
+    public void settle_afterTheBudgetRefilled_onlyChargesTheBytesRead() {
+        ArticleBodyCache cache = new ArticleBodyCache(1000, 100, HOUR);
+        assertTrue(cache.reserve(90, 0));
+        assertTrue(cache.reserve(90, HOUR));
+
+        // The first reservation went with the old window.
+        cache.settle(90, 0, 20);
+        assertFalse(cache.hasBudget(HOUR + 1));
+        cache.settle(90, HOUR, 0);
+        assertTrue(cache.hasBudget(HOUR + 1));
+    }
+
+}
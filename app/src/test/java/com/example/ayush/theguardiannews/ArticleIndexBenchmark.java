@@ -0,0 +1,122 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Query latency of {@link ArticleIndex} at 10k and 100k indexed articles.
+ * <p>
+ * Skipped unless run with -Pbenchmark, e.g.
+ * {@code ./gradlew testDebugUnitTest -Pbenchmark --tests '*ArticleIndexBenchmark'}.
+ * Titles are made up of the words of the recorded search responses, so word frequencies
+ * look like the real feed's.
+ */
+public class ArticleIndexBenchmark {
+
+    private static final String[] SECTIONS = {"Politics", "Sport", "Business", "Education",
+            "Fashion", "Technology", "Film", "Culture", "Law", "Music", "Travel", "World news"};
+
+    private static final String[] AUTHORS = {"", "by Heather Stewart", "by Alex Hern",
+            "by Dom Phillips", "by Sean Ingle", "by Zoe Williams", "by Larry Elliott"};
+
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 1000;
+    private static final int LIMIT = 50;
+
+    private List<String> mWords;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue("Run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+
+        mWords = new ArrayList<>();
+        List<News> news = NewsJsonParser.parse(new ByteArrayInputStream(
+                NewsJsonParserTest.readFixture("search_page_200.json")));
+        for (News article : news) {
+            ArticleIndex.tokenize(article.getTitle(), mWords);
+        }
+    }
+
+    @Test
+    public void search_10k() {
+        run(10000);
+    }
+
+    @Test
+    public void search_100k() {
+        run(100000);
+    }
+
+    private void run(int articles) {
+        Random random = new Random(42);
+        List<News> news = new ArrayList<>(articles);
+        for (int i = 0; i < articles; i++) {
+            news.add(article(random, i));
+        }
+
+        ArticleIndex index = new ArticleIndex(false);
+        long start = System.nanoTime();
+        // Pages of 50 like the feed stores them.
+        for (int i = 0; i < articles; i += 50) {
+            index.put("entry" + i, news.subList(i, Math.min(articles, i + 50)));
+        }
+        long buildMillis = (System.nanoTime() - start) / 1000000;
+        assertEquals(articles, index.size());
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String word = word(random);
+            // Exact word, a prefix being typed, and two words.
+            queries.add(word);
+            queries.add(word.substring(0, Math.min(word.length(), 3)));
+            queries.add(word(random) + " " + word.substring(0, Math.min(word.length(), 4)));
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            index.search(queries.get(i % queries.size()), LIMIT);
+        }
+        long[] latencies = new long[MEASURED_ROUNDS];
+        int hits = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long queryStart = System.nanoTime();
+            hits += index.search(queries.get(i % queries.size()), LIMIT).size();
+            latencies[i] = System.nanoTime() - queryStart;
+        }
+        Arrays.sort(latencies);
+        assertTrue(hits > 0);
+
+        System.out.println(String.format("ArticleIndex %,d articles: build %d ms, query p50 %d us,"
+                        + " p95 %d us, p99 %d us, max %d us", articles, buildMillis,
+                latencies[MEASURED_ROUNDS / 2] / 1000, latencies[MEASURED_ROUNDS * 95 / 100] / 1000,
+                latencies[MEASURED_ROUNDS * 99 / 100] / 1000, latencies[MEASURED_ROUNDS - 1] / 1000));
+    }
+
+    private News article(Random random, int i) {
+        StringBuilder title = new StringBuilder();
+        int words = 6 + random.nextInt(8);
+        for (int w = 0; w < words; w++) {
+            title.append(w == 0 ? "" : " ").append(word(random));
+        }
+        String section = SECTIONS[random.nextInt(SECTIONS.length)];
+        String id = section.toLowerCase() + "/2018/sep/" + i;
+        String date = String.format("2018-09-%02dT%02d:%02d:00Z",
+                1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+        return new News(id, title.toString(), section, date,
+                "https://www.theguardian.com/" + id, AUTHORS[random.nextInt(AUTHORS.length)]);
+    }
+
+    private String word(Random random) {
+        return mWords.get(random.nextInt(mWords.size()));
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArticleIndexTest {
+
+    private static News news(String id, String title, String section, String author, String date) {
+        return new News(id, title, section, date, "https://www.theguardian.com/" + id, author);
+    }
+
+    private static final News BREXIT = news("politics/1", "Brexit talks stall again",
+            "Politics", "by Heather Stewart", "2018-09-05T10:00:00Z");
+    private static final News BREXIT_SPORT = news("sport/1", "What Brexit means for Premier League transfers",
+            "Sport", "", "2018-09-06T10:00:00Z");
+    private static final News BRAZIL = news("world/1", "Brazil museum fire",
+            "World news", "by Dom Phillips", "2018-09-04T10:00:00Z");
+
+    private static String ids(List<News> news) {
+        StringBuilder ids = new StringBuilder();
+        for (News article : news) {
+            ids.append(article.getId()).append(' ');
+        }
+        return ids.toString().trim();
+    }
+
+    @Test
+    public void search_ranksTitleMatchesFirstThenNewest() {
+        ArticleIndex index = new ArticleIndex(false);
+        index.put("a", Arrays.asList(BREXIT, BREXIT_SPORT, BRAZIL));
+
+        // Both titles match, the newer one wins the tie.
+        assertEquals("sport/1 politics/1", ids(index.search("brexit", 10)));
+        // Title and section beat title alone.
+        assertEquals("politics/1", ids(index.search("Brexit politics", 10)));
+        assertEquals("", ids(index.search("brexit museum", 10)));
+    }
+
+    @Test
+    public void search_lastWordMatchesAsPrefix() {
+        ArticleIndex index = new ArticleIndex(false);
+        index.put("a", Arrays.asList(BREXIT, BREXIT_SPORT, BRAZIL));
+
+        assertEquals("sport/1 politics/1 world/1", ids(index.search("br", 10)));
+        assertEquals("world/1", ids(index.search("dom phil", 10)));
+        // Only the last word is a prefix.
+        assertEquals("", ids(index.search("bra fire", 10)));
+        assertEquals(1, index.search("br", 1).size());
+    }
+
+    @Test
+    public void removeEntry_keepsArticlesHeldByOtherEntries() {
+        ArticleIndex index = new ArticleIndex(false);
+        index.put("politics", Arrays.asList(BREXIT));
+        index.put("all", Arrays.asList(BREXIT, BRAZIL));
+        assertEquals(2, index.size());
+
+        index.removeEntry("all");
+        assertEquals("politics/1", ids(index.search("brexit", 10)));
+        assertEquals("", ids(index.search("brazil", 10)));
+
+        index.put("politics", Collections.<News>emptyList());
+        assertEquals(0, index.size());
+        assertEquals("", ids(index.search("brexit", 10)));
+    }
+
+    @Test
+    public void put_changedArticle_isReindexed() {
+        ArticleIndex index = new ArticleIndex(false);
+        index.put("a", Arrays.asList(BREXIT));
+        index.put("a", Arrays.asList(news("politics/1", "Brexit deal agreed",
+                "Politics", "by Heather Stewart", "2018-09-07T10:00:00Z")));
+
+        assertEquals(1, index.size());
+        assertEquals("politics/1", ids(index.search("agreed", 10)));
+        assertEquals("", ids(index.search("stall", 10)));
+    }
+
+    @Test
+    public void putBody_makesBodySearchable() {
+        ArticleIndex index = new ArticleIndex(true);
+        index.put("a", Arrays.asList(BREXIT, BRAZIL));
+        index.putBody("world/1", "<p>The Museu Nacional in Rio&nbsp;de Janeiro burned</p>");
+
+        assertEquals("world/1", ids(index.search("janeiro", 10)));
+        assertEquals("", ids(index.search("nbsp", 10)));
+
+        ArticleIndex withoutBodies = new ArticleIndex(false);
+        withoutBodies.put("a", Arrays.asList(BRAZIL));
+        withoutBodies.putBody("world/1", "<p>Rio de Janeiro</p>");
+        assertEquals("", ids(withoutBodies.search("janeiro", 10)));
+    }
+
+}
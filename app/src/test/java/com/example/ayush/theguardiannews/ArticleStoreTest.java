@@ -0,0 +1,120 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArticleStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<News> articles(int count) {
+        List<News> news = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            news.add(new News("world/" + i, "Title " + i, "World news", "2018-09-05T14:30:00Z",
+                    "https://www.theguardian.com/world/" + i, i % 2 == 0 ? "by Alex Hern" : ""));
+        }
+        return news;
+    }
+
+    @Test
+    public void write_thenRead_returnsSameArticles() throws Exception {
+        ArticleStore store = new ArticleStore(folder.newFolder(), 60000, 1024 * 1024);
+        List<News> news = articles(3);
+        store.write("section=all&page-size=3&order-by=newest", news);
+
+        List<News> read = store.read("section=all&page-size=3&order-by=newest");
+        assertEquals(3, read.size());
+        for (int i = 0; i < news.size(); i++) {
+            assertEquals(news.get(i).getId(), read.get(i).getId());
+            assertEquals(news.get(i).getTitle(), read.get(i).getTitle());
+            assertEquals(news.get(i).getUrl(), read.get(i).getUrl());
+            assertEquals(news.get(i).getAuthor(), read.get(i).getAuthor());
+        }
+        assertNull(store.read("section=sport&page-size=3&order-by=newest"));
+    }
+
+    @Test
+    public void read_expiredEntry_returnsNull() throws Exception {
+        ArticleStore store = new ArticleStore(folder.newFolder(), -1, 1024 * 1024);
+        store.write("key", articles(1));
+        assertNull(store.read("key"));
+    }
+
+    @Test
+    public void getSavedAt_followsWrites() throws Exception {
+        ArticleStore store = new ArticleStore(folder.newFolder(), 60000, 1024 * 1024);
+        assertEquals(-1, store.getSavedAt("key"));
+
+        long before = System.currentTimeMillis();
+        store.write("key", articles(1));
+        long savedAt = store.getSavedAt("key");
+        assertTrue(savedAt >= before && savedAt <= System.currentTimeMillis());
+        assertEquals(-1, store.getSavedAt("other"));
+    }
+
+    @Test
+    public void write_overSizeLimit_evictsLeastRecentlyUsed() throws Exception {
+        File directory = folder.newFolder();
+        ArticleStore store = new ArticleStore(directory, 60000, 1024 * 1024);
+        store.write("a", articles(20));
+        long entrySize = directory.listFiles()[0].length();
+
+        store = new ArticleStore(directory, 60000, entrySize * 2 + entrySize / 2);
+        store.write("b", articles(20));
+        for (File file : directory.listFiles()) {
+            // Make "a" the most recently used one, whatever the file system clock says.
+            file.setLastModified(System.currentTimeMillis() - 10000);
+        }
+        assertNotNull(store.read("a"));
+        store.write("c", articles(20));
+
+        assertNotNull(store.read("a"));
+        assertNull(store.read("b"));
+        assertNotNull(store.read("c"));
+        assertEquals(2, directory.listFiles().length);
+    }
+
+    @Test
+    public void getIndex_followsWritesAndEvictions() throws Exception {
+        File directory = folder.newFolder();
+        ArticleStore store = new ArticleStore(directory, 60000, 1024 * 1024);
+        store.write("a", articles(20));
+        long entrySize = directory.listFiles()[0].length();
+
+        store = new ArticleStore(directory, 60000, entrySize + entrySize / 2);
+        ArticleIndex index = store.getIndex();
+        assertEquals(20, index.size());
+
+        directory.listFiles()[0].setLastModified(System.currentTimeMillis() - 10000);
+        List<News> other = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            other.add(new News("sport/" + i, "Ashes squad " + i, "Sport", "2018-09-05T14:30:00Z",
+                    "https://www.theguardian.com/sport/" + i, ""));
+        }
+        store.write("b", other);
+
+        // "a" was evicted to make room for "b".
+        assertEquals(20, index.size());
+        assertEquals(10, index.search("ashes", 10).size());
+        assertEquals(0, index.search("title", 10).size());
+    }
+
+    @Test
+    public void getIndexIfLoaded_beforeGetIndex_returnsNull() throws Exception {
+        ArticleStore store = new ArticleStore(folder.newFolder(), 60000, 1024 * 1024);
+        store.write("a", articles(20));
+
+        assertNull(store.getIndexIfLoaded());
+        ArticleIndex index = store.getIndex();
+        assertSame(index, store.getIndexIfLoaded());
+    }
+
+}
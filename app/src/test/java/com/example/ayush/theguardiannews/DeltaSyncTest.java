@@ -0,0 +1,79 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeltaSyncTest {
+
+    private static News news(String id, String date) {
+        return new News(id, "Title " + id, "World news", date, "https://www.theguardian.com/" + id,
+                Collections.<String>emptyList());
+    }
+
+    private static List<String> ids(List<News> news) {
+        List<String> ids = new ArrayList<>();
+        for (News item : news) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    private static final List<News> STORED = Arrays.asList(
+            news("c", "2018-09-05T14:30:00Z"),
+            news("b", "2018-09-05T12:00:00Z"),
+            news("a", "2018-09-04T09:00:00Z"));
+
+    @Test
+    public void canRefresh_onlyNewestFirstFeeds() {
+        assertTrue(DeltaSync.canRefresh("newest", STORED));
+        assertFalse(DeltaSync.canRefresh("oldest", STORED));
+        assertFalse(DeltaSync.canRefresh("relevance", STORED));
+        assertFalse(DeltaSync.canRefresh("newest", null));
+        assertFalse(DeltaSync.canRefresh("newest", Collections.<News>emptyList()));
+    }
+
+    @Test
+    public void deltaRequests_askForWhatWasPublishedSinceTheNewest() {
+        NewsRequest feed = NewsRequest.search().section("world").orderBy("newest").pageSize(20).build();
+
+        List<NewsRequest> delta = DeltaSync.deltaRequests(Collections.singletonList(feed),
+                DeltaSync.newestTime(STORED));
+
+        assertEquals(1, delta.size());
+        assertEquals("search?from-date=2018-09-05T14:30:00Z&order-by=newest&page-size=20"
+                + "&section=world&use-date=published", delta.get(0).getCacheKey());
+        assertEquals(20, DeltaSync.pageSizeOf(delta));
+    }
+
+    @Test
+    public void merge_putsNewArticlesOnTopAndKeepsTheLength() {
+        // from-date is inclusive, so the newest stored article comes back too.
+        List<News> delta = Arrays.asList(news("d", "2018-09-05T15:00:00Z"), news("c", "2018-09-05T14:30:00Z"));
+
+        List<News> merged = DeltaSync.merge(delta, STORED, 10);
+
+        assertEquals(Arrays.asList("d", "c", "b"), ids(merged));
+        assertEquals(1, DeltaSync.countNew(delta, STORED));
+    }
+
+    @Test
+    public void merge_nothingNew_returnsTheStoredFeed() {
+        List<News> merged = DeltaSync.merge(Collections.singletonList(news("c", "2018-09-05T14:30:00Z")), STORED, 10);
+
+        assertEquals(STORED, merged);
+    }
+
+    @Test
+    public void merge_fullPage_mayHaveAGap() {
+        List<News> delta = Arrays.asList(news("e", "2018-09-05T16:00:00Z"), news("d", "2018-09-05T15:00:00Z"));
+
+        assertNull(DeltaSync.merge(delta, STORED, 2));
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.example.ayush.theguardiannews;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the Guardian search API.
+ * <p>
+ * Serves the recorded responses for page sizes 10, 50 and 200 of the unfiltered feed, and
+ * builds any other page, section or size from the recorded articles. Latency, error codes
+ * and slow bodies can be injected to replay what the real API and network do.
+ */
+class FakeGuardianServer {
+
+    private final HttpServer mServer;
+    private final JSONArray mArticles;
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    /**
+     * Built pages by query, so building them doesn't weigh on the timings.
+     */
+    private final Map<String, byte[]> mPages = new ConcurrentHashMap<>();
+
+    private volatile long mLatencyMillis;
+    private volatile int mChunkBytes;
+    private volatile long mChunkDelayMillis;
+    private int mFailureCode;
+    private int mFailuresLeft;
+    private String mRetryAfter;
+
+    FakeGuardianServer() throws IOException {
+        try {
+            mArticles = new JSONObject(new String(NewsJsonParserTest.readFixture("search_page_200.json"), "UTF-8"))
+                    .getJSONObject("response").getJSONArray("results");
+        } catch (JSONException e) {
+            throw new IOException("Bad fixture", e);
+        }
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        // Like the real thing, slow requests don't hold up the others.
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.start();
+    }
+
+    /**
+     * Returns the URL of a search request with the given query string,
+     * e.g. "section=sport&page-size=50".
+     */
+    String searchUrl(String query) {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search?" + query;
+    }
+
+    /**
+     * Waits this long before answering every request.
+     */
+    void setLatencyMillis(long latencyMillis) {
+        mLatencyMillis = latencyMillis;
+    }
+
+    /**
+     * Sends bodies in chunks of the given size with a pause after each, 0 to send at once.
+     */
+    void setSlowBody(int chunkBytes, long chunkDelayMillis) {
+        mChunkBytes = chunkBytes;
+        mChunkDelayMillis = chunkDelayMillis;
+    }
+
+    /**
+     * Answers the next requests with the given status code.
+     */
+    synchronized void failNext(int code, int count) {
+        failNext(code, count, null);
+    }
+
+    /**
+     * Answers the next requests with the given status code and Retry-After header.
+     */
+    synchronized void failNext(int code, int count, String retryAfter) {
+        mFailureCode = code;
+        mFailuresLeft = count;
+        mRetryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the number of requests received.
+     */
+    int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    void stop() {
+        mServer.stop(0);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        mRequestCount.incrementAndGet();
+        sleep(mLatencyMillis);
+
+        int failureCode = 0;
+        synchronized (this) {
+            if (mFailuresLeft > 0) {
+                mFailuresLeft--;
+                failureCode = mFailureCode;
+                if (mRetryAfter != null) {
+                    exchange.getResponseHeaders().set("Retry-After", mRetryAfter);
+                }
+            }
+        }
+        if (failureCode != 0) {
+            send(exchange, failureCode, ("{\"message\":\"HTTP " + failureCode + "\"}").getBytes("UTF-8"));
+            return;
+        }
+
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String section = params.get("section");
+        int pageSize = params.containsKey("page-size") ? Integer.parseInt(params.get("page-size")) : 10;
+        int page = params.containsKey("page") ? Integer.parseInt(params.get("page")) : 1;
+
+        if (section == null && page == 1 && (pageSize == 10 || pageSize == 50 || pageSize == 200)) {
+            send(exchange, 200, NewsJsonParserTest.readFixture("search_page_" + pageSize + ".json"));
+        } else {
+            String key = section + "&" + pageSize + "&" + page;
+            byte[] body = mPages.get(key);
+            if (body == null) {
+                body = buildPage(section, pageSize, page).getBytes("UTF-8");
+                mPages.put(key, body);
+            }
+            send(exchange, 200, body);
+        }
+    }
+
+    /**
+     * Builds a page out of the recorded articles, with ids unique to the section and page.
+     */
+    private String buildPage(String section, int pageSize, int page) throws IOException {
+        try {
+            return buildPageJson(section, pageSize, page);
+        } catch (JSONException e) {
+            throw new IOException("Can't build the page", e);
+        }
+    }
+
+    private String buildPageJson(String section, int pageSize, int page) throws JSONException {
+        JSONArray results = new JSONArray();
+        for (int i = 0; i < pageSize; i++) {
+            JSONObject article = new JSONObject(mArticles.getJSONObject(i % mArticles.length()).toString());
+            String id = (section != null ? section : "all") + "/" + page + "/" + i + "/" + article.getString("id");
+            article.put("id", id);
+            article.put("webUrl", "https://www.theguardian.com/" + id);
+            results.put(article);
+        }
+        JSONObject response = new JSONObject();
+        response.put("status", "ok");
+        response.put("pageSize", pageSize);
+        response.put("currentPage", page);
+        response.put("results", results);
+        return new JSONObject().put("response", response).toString();
+    }
+
+    private void send(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        OutputStream out = exchange.getResponseBody();
+        int chunk = mChunkBytes > 0 ? mChunkBytes : body.length;
+        for (int offset = 0; offset < body.length; offset += chunk) {
+            out.write(body, offset, Math.min(chunk, body.length - offset));
+            out.flush();
+            if (mChunkBytes > 0) {
+                sleep(mChunkDelayMillis);
+            }
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                            URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+                }
+            }
+        }
+        return params;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link FetchEngine} with the test thread standing in for the main thread.
+ */
+public class FetchEngineTest {
+
+    private final BlockingQueue<Runnable> mMainThread = new LinkedBlockingQueue<>();
+
+    private FetchEngine mEngine;
+    private FakeGuardianServer mServer;
+
+    @Before
+    public void setUp() throws IOException {
+        mEngine = new FetchEngine(4, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mMainThread.add(command);
+            }
+        });
+        mServer = new FakeGuardianServer();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    @Test
+    public void subscribe_afterRotation_replaysLatestValue() throws InterruptedException {
+        FetchEngine.Job<String> job = mEngine.scope("news").start("feed", "key",
+                new FetchEngine.Task<String>() {
+                    @Override
+                    public void run(FetchEngine.Emitter<String> emitter) {
+                        emitter.emit("stored");
+                        emitter.emit("fresh");
+                    }
+                });
+        Recorder<String> first = new Recorder<>();
+        job.subscribe(first);
+        runMainThreadUntilDone(job);
+        assertEquals(Arrays.asList("stored", "fresh", "complete"), first.mEvents);
+
+        // The next activity finds the same job and only gets where it is.
+        job.unsubscribe(first);
+        FetchEngine.Job<String> found = mEngine.scope("news").get("feed");
+        assertSame(job, found);
+        Recorder<String> second = new Recorder<>();
+        found.subscribe(second);
+        assertEquals(Arrays.asList("fresh", "complete"), second.mEvents);
+        assertEquals(3, first.mEvents.size());
+    }
+
+    @Test
+    public void jobs_runInParallel() throws InterruptedException {
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        FetchEngine.Task<String> task = new FetchEngine.Task<String>() {
+            @Override
+            public void run(FetchEngine.Emitter<String> emitter) {
+                bothRunning.countDown();
+                try {
+                    emitter.emit(bothRunning.await(5, TimeUnit.SECONDS) ? "parallel" : "serial");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        FetchEngine.Scope scope = mEngine.scope("news");
+        Recorder<String> feed = new Recorder<>();
+        Recorder<String> page = new Recorder<>();
+        scope.<String>start("feed", "key", task).subscribe(feed);
+        FetchEngine.Job<String> pageJob = scope.start("next-page", "page=2", task);
+        pageJob.subscribe(page);
+        runMainThreadUntilDone(scope.<String>get("feed"));
+        runMainThreadUntilDone(pageJob);
+
+        assertEquals("parallel", feed.mEvents.get(0));
+        assertEquals("parallel", page.mEvents.get(0));
+    }
+
+    @Test
+    public void backgroundJobs_runOneAtATime_besideThePool() throws InterruptedException {
+        final CountDownLatch firstRunning = new CountDownLatch(1);
+        final CountDownLatch releaseFirst = new CountDownLatch(1);
+        final CountDownLatch secondRan = new CountDownLatch(1);
+        FetchEngine.Scope scope = mEngine.scope("news");
+        FetchEngine.Job<String> first = scope.startInBackground("feed/sport", "sport",
+                new FetchEngine.Task<String>() {
+                    @Override
+                    public void run(FetchEngine.Emitter<String> emitter) {
+                        firstRunning.countDown();
+                        try {
+                            releaseFirst.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        emitter.emit("sport");
+                    }
+                });
+        FetchEngine.Job<String> second = scope.startInBackground("feed/music", "music",
+                new FetchEngine.Task<String>() {
+                    @Override
+                    public void run(FetchEngine.Emitter<String> emitter) {
+                        secondRan.countDown();
+                        emitter.emit("music");
+                    }
+                });
+        assertTrue(firstRunning.await(5, TimeUnit.SECONDS));
+
+        // The tab on screen loads while the background lane is busy.
+        Recorder<String> feed = new Recorder<>();
+        FetchEngine.Job<String> feedJob = scope.start("feed/all", "all", new FetchEngine.Task<String>() {
+            @Override
+            public void run(FetchEngine.Emitter<String> emitter) {
+                emitter.emit("all");
+            }
+        });
+        feedJob.subscribe(feed);
+        runMainThreadUntilDone(feedJob);
+        assertEquals(Arrays.<Object>asList("all", "complete"), feed.mEvents);
+        assertEquals(1, secondRan.getCount());
+        assertTrue(first.isBackground());
+        assertFalse(feedJob.isBackground());
+
+        releaseFirst.countDown();
+        runMainThreadUntilDone(first);
+        runMainThreadUntilDone(second);
+        assertEquals(0, secondRan.getCount());
+    }
+
+    @Test
+    public void cancel_disconnectsTheRequest() throws InterruptedException {
+        // The 200 article page takes well over a minute in 1 KB chunks.
+        mServer.setSlowBody(1024, 200);
+        final NewsApi api = new QueryUtils(new NewsHttpClient(null, 0));
+        final String url = mServer.searchUrl("page-size=200");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch stopped = new CountDownLatch(1);
+
+        FetchEngine.Scope scope = mEngine.scope("news");
+        FetchEngine.Job<List<News>> job = scope.start("feed", "key", new FetchEngine.Task<List<News>>() {
+            @Override
+            public void run(FetchEngine.Emitter<List<News>> emitter) {
+                started.countDown();
+                try {
+                    emitter.emit(api.fetchNews(url));
+                } catch (IOException e) {
+                    stopped.countDown();
+                }
+            }
+        });
+        Recorder<List<News>> recorder = new Recorder<>();
+        job.subscribe(recorder);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread.sleep(500);
+
+        long start = System.nanoTime();
+        scope.close();
+        // An interrupt alone leaves the read blocked until its 10 s timeout.
+        assertTrue(stopped.await(3, TimeUnit.SECONDS));
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 3000);
+
+        drainMainThread();
+        assertTrue(job.isDone());
+        assertTrue(recorder.mEvents.isEmpty());
+        assertNull(scope.get("feed"));
+    }
+
+    private void runMainThreadUntilDone(FetchEngine.Job<?> job) throws InterruptedException {
+        while (!job.isDone()) {
+            Runnable message = mMainThread.poll(5, TimeUnit.SECONDS);
+            assertNotNull("Job didn't finish", message);
+            message.run();
+        }
+    }
+
+    private void drainMainThread() {
+        Runnable message;
+        while ((message = mMainThread.poll()) != null) {
+            message.run();
+        }
+    }
+
+    private static class Recorder<T> implements FetchEngine.Observer<T> {
+
+        final List<Object> mEvents = new ArrayList<>();
+
+        @Override
+        public void onNext(T value) {
+            mEvents.add(value);
+        }
+
+        @Override
+        public void onComplete() {
+            mEvents.add("complete");
+        }
+    }
+
+}
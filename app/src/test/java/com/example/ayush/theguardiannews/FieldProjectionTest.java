@@ -0,0 +1,40 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class FieldProjectionTest {
+
+    @Test
+    public void of_listFields_asksOnlyForThumbnailAndContributor() {
+        FieldProjection projection = FieldProjection.of(NewsAdapter.BOUND_FIELDS);
+
+        assertEquals("thumbnail", projection.getShowFields());
+        assertEquals("contributor", projection.getShowTags());
+    }
+
+    @Test
+    public void of_fieldsAlwaysReturned_asksForNothing() {
+        FieldProjection projection = FieldProjection.of(EnumSet.of(FieldProjection.Field.TITLE,
+                FieldProjection.Field.SECTION, FieldProjection.Field.PUBLICATION_DATE,
+                FieldProjection.Field.URL));
+
+        assertEquals("", projection.getShowFields());
+        assertEquals("", projection.getShowTags());
+    }
+
+    @Test
+    public void of_severalShowFields_joinsThemSorted() {
+        FieldProjection projection = FieldProjection.of(EnumSet.of(FieldProjection.Field.THUMBNAIL,
+                FieldProjection.Field.BODY, FieldProjection.Field.AUTHOR));
+
+        assertEquals("body,thumbnail", projection.getShowFields());
+        assertEquals("contributor", projection.getShowTags());
+        assertEquals("body", FieldProjection.ARTICLE_BODY.getShowFields());
+        assertEquals("", FieldProjection.ARTICLE_BODY.getShowTags());
+    }
+
+}
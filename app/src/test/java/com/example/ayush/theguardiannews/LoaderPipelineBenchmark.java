@@ -0,0 +1,112 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Throughput and tail latency of what the news loader does for a refresh: fetch every
+ * section, merge them and format the dates, against {@link FakeGuardianServer}.
+ * <p>
+ * Skipped unless run with -Pbenchmark, e.g.
+ * {@code ./gradlew testDebugUnitTest -Pbenchmark --tests '*LoaderPipelineBenchmark'}.
+ */
+public class LoaderPipelineBenchmark {
+
+    private static final int CLIENTS = 4;
+    private static final int WARMUP_LOADS = 40;
+    private static final int MEASURED_LOADS = 400;
+
+    private FakeGuardianServer mServer;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue("Run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+        mServer = new FakeGuardianServer();
+        QueryUtils.setDefault(new QueryUtils(new NewsHttpClient(null, 0)));
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setDefault(null);
+        if (mServer != null) {
+            mServer.stop();
+        }
+    }
+
+    @Test
+    public void singleSection_noLatency() throws Exception {
+        run("single section, no latency", 0, "all");
+    }
+
+    @Test
+    public void threeSections_20msLatency() throws Exception {
+        run("3 sections, 20 ms latency", 20, "politics", "sport", "business");
+    }
+
+    @Test
+    public void threeSections_slowBody() throws Exception {
+        mServer.setSlowBody(16 * 1024, 2);
+        run("3 sections, slow body", 20, "politics", "sport", "business");
+    }
+
+    private void run(String name, long latencyMillis, String... sections) throws Exception {
+        mServer.setLatencyMillis(latencyMillis);
+        final List<String> urls = new ArrayList<>();
+        for (String section : sections) {
+            urls.add(mServer.searchUrl(("all".equals(section) ? "" : "section=" + section + "&")
+                    + "page-size=50&order-by=newest"));
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            load(clients, urls, WARMUP_LOADS);
+            long start = System.nanoTime();
+            long[] latencies = load(clients, urls, MEASURED_LOADS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            System.out.println(String.format("Loader pipeline, %s: %.1f loads/s, p50 %.1f ms,"
+                            + " p95 %.1f ms, p99 %.1f ms", name, MEASURED_LOADS / seconds,
+                    latencies[MEASURED_LOADS / 2] / 1e6, latencies[MEASURED_LOADS * 95 / 100] / 1e6,
+                    latencies[MEASURED_LOADS * 99 / 100] / 1e6));
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static long[] load(ExecutorService clients, final List<String> urls, int count)
+            throws Exception {
+        List<Future<Long>> loads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            loads.add(clients.submit(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    long start = System.nanoTime();
+                    List<News> news = MultiSectionFetcher.fetch(urls, "newest").getNews();
+                    NewsFormatter.format(news);
+                    assertEquals(50 * urls.size(), news.size());
+                    return System.nanoTime() - start;
+                }
+            }));
+        }
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            latencies[i] = loads.get(i).get();
+        }
+        return latencies;
+    }
+
+}
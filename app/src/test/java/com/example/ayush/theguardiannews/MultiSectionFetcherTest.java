@@ -0,0 +1,159 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MultiSectionFetcherTest {
+
+    private static News news(String id, String publicationDate) {
+        return new News(id, "Title", "Section", publicationDate, "https://www.theguardian.com/" + id, "");
+    }
+
+    private static List<String> ids(List<News> news) {
+        String[] ids = new String[news.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = news.get(i).getId();
+        }
+        return Arrays.asList(ids);
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setDefault(null);
+    }
+
+    @Test
+    public void fetch_timesOutEverySectionOnItsOwn() {
+        // One more section than the pool runs at once, so the last one starts late.
+        QueryUtils.setDefault(new SlowApi(600));
+        List<String> urls = Arrays.asList("a", "b", "c", "d", "e");
+
+        MultiSectionFetcher.Result result = MultiSectionFetcher.fetch(urls, "newest", 1000);
+
+        // The last one ends about 1.2 s in, past a deadline for all the sections together.
+        assertEquals(5, result.getNews().size());
+        assertTrue(result.isComplete());
+    }
+
+    @Test
+    public void fetch_leavesOutASectionThatTakesTooLong() {
+        QueryUtils.setDefault(new SlowApi(0) {
+            @Override
+            public List<News> fetchNews(String requestUrl) throws IOException {
+                return requestUrl.equals("slow") ? hang() : super.fetchNews(requestUrl);
+            }
+        });
+
+        long start = System.nanoTime();
+        MultiSectionFetcher.Result result = MultiSectionFetcher.fetch(Arrays.asList("a", "slow", "b"), "newest", 300);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(Arrays.asList("a", "b"), ids(result.getNews()));
+        // Not to be kept as the feed of all three sections.
+        assertFalse(result.isComplete());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 2000);
+    }
+
+    @Test
+    public void fetchInBackground_leavesTheForegroundTokensAlone() {
+        // One token, and the next one in 100 s.
+        QueryUtils.setDefault(new RequestExecutor(new SlowApi(0), new TokenBucket(1, 0.01), 1, 10));
+        assertEquals(Collections.singletonList("a"),
+                ids(MultiSectionFetcher.fetch(Collections.singletonList("a"), "newest").getNews()));
+
+        long start = System.nanoTime();
+        MultiSectionFetcher.Result result = MultiSectionFetcher.fetchInBackground(Arrays.asList("b", "c"), "newest");
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(2, result.getNews().size());
+        // One a second on the background bucket.
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 5000);
+    }
+
+    @Test
+    public void merge_newest_sortsAndDropsDuplicates() {
+        List<News> politics = Arrays.asList(
+                news("politics/b", "2018-09-05T14:00:00Z"),
+                news("politics/a", "2018-09-05T10:00:00Z"));
+        List<News> business = Arrays.asList(
+                news("business/c", "2018-09-05T12:00:00Z"),
+                // Tagged with both sections, so it comes back twice.
+                news("politics/b", "2018-09-05T14:00:00Z"));
+
+        List<News> merged = MultiSectionFetcher.merge(Arrays.asList(politics, business), "newest");
+
+        assertEquals(Arrays.asList("politics/b", "business/c", "politics/a"), ids(merged));
+    }
+
+    @Test
+    public void merge_oldest_sortsAscending() {
+        List<News> politics = Arrays.asList(news("politics/a", "2018-09-05T10:00:00Z"));
+        List<News> business = Arrays.asList(news("business/c", "2018-09-04T12:00:00Z"));
+
+        List<News> merged = MultiSectionFetcher.merge(Arrays.asList(politics, business), "oldest");
+
+        assertEquals(Arrays.asList("business/c", "politics/a"), ids(merged));
+    }
+
+    @Test
+    public void merge_relevance_interleavesSections() {
+        List<News> politics = Arrays.asList(
+                news("politics/a", "2018-09-05T10:00:00Z"),
+                news("politics/b", "2018-09-05T14:00:00Z"),
+                news("politics/c", "2018-09-05T16:00:00Z"));
+        List<News> business = Arrays.asList(
+                news("business/a", "2018-09-01T12:00:00Z"),
+                news("politics/b", "2018-09-05T14:00:00Z"));
+
+        List<News> merged = MultiSectionFetcher.merge(Arrays.asList(politics, business), "relevance");
+
+        assertEquals(Arrays.asList("politics/a", "business/a", "politics/b", "politics/c"), ids(merged));
+    }
+
+    /**
+     * Answers every section with one article named after its URL, after a delay.
+     */
+    private static class SlowApi implements NewsApi {
+
+        private final long mDelayMillis;
+
+        SlowApi(long delayMillis) {
+            mDelayMillis = delayMillis;
+        }
+
+        @Override
+        public List<News> fetchNews(String requestUrl) throws IOException {
+            try {
+                Thread.sleep(mDelayMillis);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return new ArrayList<>(Collections.singletonList(news(requestUrl, "2018-09-05T10:00:00Z")));
+        }
+
+        List<News> hang() throws IOException {
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return null;
+        }
+
+        @Override
+        public Map<String, String> fetchArticleFields(String requestUrl) {
+            return Collections.emptyMap();
+        }
+    }
+
+}
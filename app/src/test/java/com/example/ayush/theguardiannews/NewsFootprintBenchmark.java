@@ -0,0 +1,138 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Retained heap of a feed of 5k {@link News}, against the model it replaced, which held every
+ * field as a String of its own and only the last contributor.
+ * <p>
+ * Skipped unless run with -Pbenchmark, e.g.
+ * {@code ./gradlew testDebugUnitTest -Pbenchmark --tests '*NewsFootprintBenchmark'}.
+ * The feed is the recorded 200 article response parsed 25 times, so every article has Strings
+ * of its own as it would coming from separate responses.
+ */
+public class NewsFootprintBenchmark {
+
+    private static final int ARTICLES = 5000;
+
+    private byte[] mResponse;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue("Run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+        mResponse = NewsJsonParserTest.readFixture("search_page_200.json");
+    }
+
+    @Test
+    public void footprint_5k() throws IOException {
+        // Warm up the parser and formatter, so their own state isn't counted.
+        feed();
+        legacyFeed();
+
+        long lean = retainedBytes(new Feed() {
+            @Override
+            public Object build() throws IOException {
+                return feed();
+            }
+        });
+        long legacy = retainedBytes(new Feed() {
+            @Override
+            public Object build() throws IOException {
+                return legacyFeed();
+            }
+        });
+
+        System.out.println(String.format("News %,d articles: %,d bytes (%d per article),"
+                        + " legacy %,d bytes (%d per article), %.0f%% smaller", ARTICLES, lean,
+                lean / ARTICLES, legacy, legacy / ARTICLES, 100.0 * (legacy - lean) / legacy));
+        assertTrue(lean < legacy);
+    }
+
+    private List<News> feed() throws IOException {
+        List<News> news = new ArrayList<>(ARTICLES);
+        while (news.size() < ARTICLES) {
+            news.addAll(NewsJsonParser.parse(new ByteArrayInputStream(mResponse)));
+        }
+        news = new ArrayList<>(news.subList(0, ARTICLES));
+        NewsFormatter.format(news);
+        return news;
+    }
+
+    private List<LegacyNews> legacyFeed() throws IOException {
+        List<LegacyNews> legacy = new ArrayList<>(ARTICLES);
+        for (News article : feed()) {
+            legacy.add(new LegacyNews(article));
+        }
+        return legacy;
+    }
+
+    private interface Feed {
+        Object build() throws IOException;
+    }
+
+    /**
+     * Returns the median growth of the used heap, over a few rounds, once the feed is built.
+     */
+    private static long retainedBytes(Feed feed) throws IOException {
+        long[] rounds = new long[5];
+        for (int i = 0; i < rounds.length; i++) {
+            long before = usedHeap();
+            Object built = feed.build();
+            rounds[i] = usedHeap() - before;
+            assertNotNull(built);
+        }
+        Arrays.sort(rounds);
+        return rounds[rounds.length / 2];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Collections don't always finish in one call; take the lowest reading.
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * The fields of the model before sections and contributors were pooled.
+     */
+    private static class LegacyNews {
+
+        final String mId;
+        final String mTitle;
+        final String mSection;
+        final String mPublicationDate;
+        final long mPublicationTime;
+        final String mDisplayDate;
+        final String mDisplayTime;
+        final String mUrl;
+        final String mAuthor;
+
+        LegacyNews(News news) {
+            List<String> contributors = news.getContributors();
+            mId = new String(news.getId());
+            mTitle = new String(news.getTitle());
+            mSection = new String(news.getSection());
+            mPublicationDate = news.getPublicationDate();
+            mPublicationTime = news.getPublicationTime();
+            mDisplayDate = new String(news.getDisplayDate());
+            mDisplayTime = new String(news.getDisplayTime());
+            mUrl = news.getUrl();
+            mAuthor = contributors.isEmpty() ? "" : "by " + contributors.get(contributors.size() - 1);
+        }
+    }
+
+}
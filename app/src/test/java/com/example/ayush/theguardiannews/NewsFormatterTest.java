@@ -0,0 +1,46 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class NewsFormatterTest {
+
+    @Test
+    public void parseTimestamp_matchesSimpleDateFormatInUtc() throws Exception {
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String[] dates = {"1970-01-01T00:00:00Z", "2018-09-05T14:30:07Z", "2016-02-29T23:59:59Z",
+                "2000-03-01T00:00:00Z", "2018-12-31T12:00:00Z"};
+        for (String date : dates) {
+            assertEquals(date, iso.parse(date).getTime(), NewsFormatter.parseTimestamp(date));
+        }
+    }
+
+    @Test
+    public void parseTimestamp_rejectsOtherFormats() {
+        assertEquals(0, NewsFormatter.parseTimestamp(""));
+        assertEquals(0, NewsFormatter.parseTimestamp(null));
+        assertEquals(0, NewsFormatter.parseTimestamp("05/09/2018 14:30"));
+        assertEquals(0, NewsFormatter.parseTimestamp("2018-13-05T14:30:00Z"));
+    }
+
+    @Test
+    public void format_cachesDisplayStringsOnNews() {
+        News news = new News("id", "Title", "World news", "2018-09-05T14:30:00Z", "url", "");
+        assertFalse(news.isFormatted());
+        NewsFormatter.format(Collections.singletonList(news));
+        assertTrue(news.isFormatted());
+        assertTrue(news.getDisplayDate().contains("2018"));
+        assertFalse(news.getDisplayTime().isEmpty());
+
+        News undated = new News("id", "Title", "World news", "", "url", "");
+        assertEquals("", undated.getDisplayDate());
+    }
+
+}
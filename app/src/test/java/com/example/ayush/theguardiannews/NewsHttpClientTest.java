@@ -0,0 +1,160 @@
+package com.example.ayush.theguardiannews;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link NewsHttpClient} against a local stand-in for the Guardian API.
+ */
+public class NewsHttpClientTest {
+
+    private static final String ETAG = "\"search-v1\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private byte[] mGzippedPayload;
+    private final AtomicInteger mRequests = new AtomicInteger();
+    private final AtomicLong mBytesSent = new AtomicLong();
+    private final Set<Integer> mClientPorts = new HashSet<>();
+
+    @Before
+    public void setUp() throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+        gzip.write(NewsJsonParserTest.readFixture("search_page_50.json"));
+        gzip.close();
+        mGzippedPayload = gzipped.toByteArray();
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mRequests.incrementAndGet();
+                synchronized (mClientPorts) {
+                    mClientPorts.add(exchange.getRemoteAddress().getPort());
+                }
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    exchange.sendResponseHeaders(200, mGzippedPayload.length);
+                    OutputStream body = exchange.getResponseBody();
+                    body.write(mGzippedPayload);
+                    mBytesSent.addAndGet(mGzippedPayload.length);
+                }
+                exchange.close();
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+    }
+
+    private URL searchUrl() throws IOException {
+        return new URL("http://127.0.0.1:" + mServer.getAddress().getPort() + "/search?page-size=50");
+    }
+
+    private List<News> refresh(NewsHttpClient client) throws IOException {
+        NewsHttpClient.Response response = client.get(searchUrl());
+        try {
+            assertEquals(200, response.getCode());
+            return NewsJsonParser.parse(response.getBody());
+        } finally {
+            response.close();
+        }
+    }
+
+    @Test
+    public void refresh_unchangedResponse_isRevalidatedWithoutBody() throws IOException {
+        NewsHttpClient client = new NewsHttpClient(folder.newFolder(), 1024 * 1024);
+
+        List<News> first = refresh(client);
+        assertEquals(50, first.size());
+        assertEquals(1, client.getRequestCount());
+        assertEquals(mGzippedPayload.length, client.getBytesReceived());
+        assertEquals(mGzippedPayload.length, mBytesSent.get());
+
+        List<News> second = refresh(client);
+        assertEquals(50, second.size());
+        assertEquals(first.get(49).getUrl(), second.get(49).getUrl());
+        // One round trip per refresh and no body the second time round.
+        assertEquals(2, client.getRequestCount());
+        assertEquals(2, mRequests.get());
+        assertEquals(mGzippedPayload.length, client.getBytesReceived());
+        assertEquals(mGzippedPayload.length, mBytesSent.get());
+        assertEquals(1, client.getCacheHitCount());
+    }
+
+    @Test
+    public void bytesReceivedOnThread_onlyCountsTheCallingThread() throws Exception {
+        final NewsHttpClient client = new NewsHttpClient(null, 0);
+        long before = NewsHttpClient.getBytesReceivedOnThread();
+        refresh(client);
+        assertEquals(mGzippedPayload.length, NewsHttpClient.getBytesReceivedOnThread() - before);
+
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh(client);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        other.start();
+        other.join();
+
+        assertEquals(2 * mGzippedPayload.length, client.getBytesReceived());
+        assertEquals(mGzippedPayload.length, NewsHttpClient.getBytesReceivedOnThread() - before);
+    }
+
+    @Test
+    public void refresh_reusesTheConnection() throws IOException {
+        // Full 200 responses; the JDK's own HttpURLConnection (unlike Android's) doesn't put
+        // a connection back in the pool after a 304.
+        NewsHttpClient client = new NewsHttpClient(null, 0);
+        for (int i = 0; i < 3; i++) {
+            refresh(client);
+        }
+        assertEquals(3, mRequests.get());
+        assertEquals(1, mClientPorts.size());
+    }
+
+    @Test
+    public void refresh_withoutCache_downloadsEveryTime() throws IOException {
+        NewsHttpClient client = new NewsHttpClient(null, 0);
+        refresh(client);
+        refresh(client);
+        assertEquals(2 * mGzippedPayload.length, client.getBytesReceived());
+        assertEquals(0, client.getCacheHitCount());
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link NewsJsonParser} against the tree-based parser in {@link QueryUtils}
+ * on recorded search responses.
+ */
+public class NewsJsonParserTest {
+
+    private static final String[] FIXTURES = {
+            "search_page_10.json", "search_page_50.json", "search_page_200.json"};
+
+    @Test
+    public void parse_matchesTreeParser() throws IOException {
+        for (String fixture : FIXTURES) {
+            byte[] payload = readFixture(fixture);
+
+            List<News> expected = QueryUtils.extractFeaturesFromJson(
+                    QueryUtils.readFromStream(new ByteArrayInputStream(payload)));
+            List<News> actual = NewsJsonParser.parse(new ByteArrayInputStream(payload));
+
+            assertEquals(fixture, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSameNews(fixture + " #" + i, expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void parse_emitsArticlesInOrder() throws IOException {
+        final int[] count = {0};
+        NewsJsonParser.parse(new ByteArrayInputStream(readFixture("search_page_10.json")),
+                new NewsJsonParser.Callback() {
+                    @Override
+                    public void onNews(News news) {
+                        count[0]++;
+                    }
+                });
+        assertEquals(10, count[0]);
+    }
+
+    @Test
+    public void parse_skipsUnknownAndNullValues() throws IOException {
+        String json = "{\"response\":{\"status\":\"ok\",\"results\":[{\"webTitle\":\"A\","
+                + "\"webUrl\":\"u\",\"sectionName\":null,\"fields\":{\"body\":\"<p>x</p>\"},"
+                + "\"tags\":[]},{\"webTitle\":\"no url\"}],\"pages\":1}}";
+        List<News> news = NewsJsonParser.parse(new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        assertEquals(1, news.size());
+        assertEquals("A", news.get(0).getTitle());
+        assertEquals("", news.get(0).getSection());
+        assertEquals("", news.get(0).getAuthor());
+        assertNull(news.get(0).getThumbnailUrl());
+    }
+
+    @Test
+    public void parse_readsThumbnail() throws IOException {
+        String json = "{\"response\":{\"status\":\"ok\",\"results\":[{\"webTitle\":\"A\","
+                + "\"webUrl\":\"u\",\"fields\":{\"thumbnail\":\"https://media.guim.co.uk/a/500.jpg\"}}],"
+                + "\"pages\":1}}";
+        List<News> news = NewsJsonParser.parse(new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        assertEquals("https://media.guim.co.uk/a/500.jpg", news.get(0).getThumbnailUrl());
+    }
+
+    @Test(expected = IOException.class)
+    public void parse_rejectsMalformedPayload() throws IOException {
+        NewsJsonParser.parse(new ByteArrayInputStream("{\"response\":[1,2".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void treeParser_articleWithoutTags_hasNoAuthor() {
+        String json = "{\"response\":{\"status\":\"ok\",\"results\":[{\"id\":\"a\",\"webTitle\":\"A\","
+                + "\"sectionName\":\"World news\",\"webPublicationDate\":\"2018-09-05T14:30:00Z\","
+                + "\"webUrl\":\"u\"}],\"pages\":1}}";
+        List<News> news = QueryUtils.extractFeaturesFromJson(json);
+
+        assertEquals(1, news.size());
+        assertEquals("", news.get(0).getAuthor());
+    }
+
+    @Test
+    public void treeParser_malformedPayload_returnsNull() {
+        assertNull(QueryUtils.extractFeaturesFromJson("{\"response\":{\"results\":[{\"webTitle\":\"A\"}]}}"));
+        assertNull(QueryUtils.extractFeaturesFromJson("{\"response\":[1,2"));
+    }
+
+    @Test
+    public void parse_allocatesLessThanTreeParser() throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (String fixture : FIXTURES) {
+            byte[] payload = readFixture(fixture);
+
+            // Warm up both paths so class loading doesn't count against either one.
+            for (int i = 0; i < 5; i++) {
+                QueryUtils.extractFeaturesFromJson(
+                        QueryUtils.readFromStream(new ByteArrayInputStream(payload)));
+                NewsJsonParser.parse(new ByteArrayInputStream(payload));
+            }
+
+            long start = threads.getThreadAllocatedBytes(threadId);
+            QueryUtils.extractFeaturesFromJson(
+                    QueryUtils.readFromStream(new ByteArrayInputStream(payload)));
+            long treeBytes = threads.getThreadAllocatedBytes(threadId) - start;
+
+            start = threads.getThreadAllocatedBytes(threadId);
+            NewsJsonParser.parse(new ByteArrayInputStream(payload));
+            long streamBytes = threads.getThreadAllocatedBytes(threadId) - start;
+
+            assertTrue(fixture + ": " + streamBytes + " >= " + treeBytes, streamBytes < treeBytes);
+        }
+    }
+
+    private static void assertSameNews(String message, News expected, News actual) {
+        assertEquals(message, expected.getId(), actual.getId());
+        assertEquals(message, expected.getTitle(), actual.getTitle());
+        assertEquals(message, expected.getSection(), actual.getSection());
+        assertEquals(message, expected.getPublicationDate(), actual.getPublicationDate());
+        assertEquals(message, expected.getUrl(), actual.getUrl());
+        assertEquals(message, expected.getAuthor(), actual.getAuthor());
+        assertEquals(message, expected.getThumbnailUrl(), actual.getThumbnailUrl());
+    }
+
+    static byte[] readFixture(String name) throws IOException {
+        InputStream in = NewsJsonParserTest.class.getClassLoader().getResourceAsStream(name);
+        assertNotNull("Missing fixture " + name, in);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+}
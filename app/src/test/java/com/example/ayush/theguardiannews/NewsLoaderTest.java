@@ -0,0 +1,197 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link NewsLoader} against a store in a temporary folder and an API that answers
+ * with a given feed, or fails like it does offline.
+ */
+public class NewsLoaderTest {
+
+    private static final List<NewsRequest> REQUESTS = Collections.singletonList(
+            NewsRequest.search().section("world").pageSize(200).orderBy("newest").build());
+    private static final String KEY = NewsRequest.keyOf(REQUESTS);
+    private static final List<NewsRequest> TWO_SECTIONS = Arrays.asList(
+            NewsRequest.search().section("world").pageSize(200).orderBy("newest").build(),
+            NewsRequest.search().section("sport").pageSize(200).orderBy("newest").build());
+    private static final String TWO_SECTIONS_KEY = NewsRequest.keyOf(TWO_SECTIONS);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ArticleStore mStore;
+    private final FakeApi mApi = new FakeApi();
+    private final RecordingEmitter mEmitter = new RecordingEmitter();
+
+    private static List<News> articles(int count) {
+        List<News> news = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            news.add(new News("world/" + i, "Title " + i, "World news", "2018-09-05T14:30:00Z",
+                    "https://www.theguardian.com/world/" + i, ""));
+        }
+        return news;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mStore = new ArticleStore(folder.newFolder(), 60000, 1024 * 1024);
+        QueryUtils.setDefault(mApi);
+        ResultCache.getInstance().clear();
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setDefault(null);
+        ResultCache.getInstance().clear();
+    }
+
+    @Test
+    public void storeHit_emitsTheStoredFeedFirst_onlyDecodingTheFirstScreen() {
+        mStore.write(KEY, articles(200));
+        List<News> fetched = articles(200);
+        fetched.set(100, new News("world/new", "New", "World news", "2018-09-05T15:00:00Z",
+                "https://www.theguardian.com/world/new", ""));
+        mApi.mNews = fetched;
+        mEmitter.mCountDecoded = true;
+
+        new NewsLoader(mStore, REQUESTS, true, false).run(mEmitter);
+
+        assertEquals(2, mEmitter.mEmitted.size());
+        assertEquals(200, mEmitter.mEmitted.get(0).size());
+        assertEquals(NewsLoader.FIRST_SCREEN, mEmitter.mDecodedAtFirstEmit);
+        // An article in the middle was replaced, so the fetched feed follows.
+        assertSame(fetched, mEmitter.mEmitted.get(1));
+    }
+
+    @Test
+    public void storeHit_sameFeedFetched_onlyEmitsTheStoredOne() {
+        mStore.write(KEY, articles(200));
+        List<News> fetched = articles(200);
+        mApi.mNews = fetched;
+
+        new NewsLoader(mStore, REQUESTS, true, false).run(mEmitter);
+
+        assertEquals(1, mEmitter.mEmitted.size());
+        assertEquals(200, mEmitter.mEmitted.get(0).size());
+        // Comparing the feeds didn't decode the stored one.
+        assertEquals(NewsLoader.FIRST_SCREEN, NewsSnapshot.decodedCount(mEmitter.mEmitted.get(0)));
+        assertSame(fetched, ResultCache.getInstance().get(KEY, System.currentTimeMillis()));
+    }
+
+    @Test
+    public void storeHit_offline_keepsTheStoredFeed() {
+        mStore.write(KEY, articles(20));
+        mApi.mNews = null;
+
+        new NewsLoader(mStore, REQUESTS, true, false).run(mEmitter);
+
+        assertEquals(1, mEmitter.mEmitted.size());
+        assertEquals(20, mEmitter.mEmitted.get(0).size());
+    }
+
+    @Test
+    public void storeMiss_offline_emitsNull() {
+        mApi.mNews = null;
+
+        new NewsLoader(mStore, REQUESTS, true, false).run(mEmitter);
+
+        assertEquals(Collections.<List<News>>singletonList(null), mEmitter.mEmitted);
+    }
+
+    @Test
+    public void storeHit_sectionFailed_keepsTheStoredFeed() {
+        mStore.write(TWO_SECTIONS_KEY, articles(20));
+        mApi.mNews = articles(5);
+        mApi.mFailing = "sport";
+
+        new NewsLoader(mStore, TWO_SECTIONS, true, false).run(mEmitter);
+
+        assertEquals(1, mEmitter.mEmitted.size());
+        assertEquals(20, mEmitter.mEmitted.get(0).size());
+        assertEquals(20, mStore.read(TWO_SECTIONS_KEY).size());
+        assertNull(ResultCache.getInstance().get(TWO_SECTIONS_KEY, System.currentTimeMillis()));
+    }
+
+    @Test
+    public void storeMiss_sectionFailed_showsWhatCameBackWithoutStoringIt() {
+        mApi.mNews = articles(5);
+        mApi.mFailing = "sport";
+
+        new NewsLoader(mStore, TWO_SECTIONS, true, false).run(mEmitter);
+
+        assertEquals(1, mEmitter.mEmitted.size());
+        assertEquals(5, mEmitter.mEmitted.get(0).size());
+        assertNull(mStore.read(TWO_SECTIONS_KEY));
+        assertNull(ResultCache.getInstance().get(TWO_SECTIONS_KEY, System.currentTimeMillis()));
+    }
+
+    @Test
+    public void isUnchanged_comparesEveryArticle() {
+        mStore.write(KEY, articles(20));
+        List<News> stored = mStore.read(KEY);
+
+        assertTrue(NewsLoader.isUnchanged(stored, articles(20)));
+        assertFalse(NewsLoader.isUnchanged(stored, articles(19)));
+        assertFalse(NewsLoader.isUnchanged(stored, articles(21).subList(1, 21)));
+
+        List<News> redated = articles(20);
+        redated.set(10, new News("world/10", "Title 10", "World news", "2018-09-05T16:00:00Z",
+                "https://www.theguardian.com/world/10", ""));
+        assertFalse(NewsLoader.isUnchanged(stored, redated));
+        assertEquals(0, NewsSnapshot.decodedCount(stored));
+    }
+
+    private static class RecordingEmitter implements FetchEngine.Emitter<List<News>> {
+
+        final List<List<News>> mEmitted = new ArrayList<>();
+        /**
+         * Set when the first list emitted is a stored one.
+         */
+        boolean mCountDecoded;
+        int mDecodedAtFirstEmit = -1;
+
+        @Override
+        public void emit(List<News> news) {
+            if (mEmitted.isEmpty() && mCountDecoded) {
+                mDecodedAtFirstEmit = NewsSnapshot.decodedCount(news);
+            }
+            mEmitted.add(news);
+        }
+    }
+
+    /**
+     * Answers with the given feed, or fails if there is none or the URL has the failing text.
+     */
+    private static class FakeApi implements NewsApi {
+
+        volatile List<News> mNews;
+        volatile String mFailing;
+
+        @Override
+        public List<News> fetchNews(String requestUrl) throws IOException {
+            if (mNews == null || (mFailing != null && requestUrl.contains(mFailing))) {
+                throw new IOException("No network");
+            }
+            return mNews;
+        }
+
+        @Override
+        public Map<String, String> fetchArticleFields(String requestUrl) throws IOException {
+            throw new IOException("No network");
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NewsPagerTest {
+
+    private static List<News> page(int page, int size) {
+        List<News> news = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String id = "world/" + page + "-" + i;
+            news.add(new News(id, "Title", "World news", "2018-09-05T14:30:00Z",
+                    "https://www.theguardian.com/" + id, ""));
+        }
+        return news;
+    }
+
+    @Test
+    public void pageToLoad_nearTheEnd_requestsNextPageOnce() {
+        NewsPager pager = new NewsPager(5, 3);
+        pager.reset(page(1, 20));
+
+        assertEquals(0, pager.pageToLoad(0, 10));
+        assertEquals(2, pager.pageToLoad(5, 15));
+        // Already in flight, so scrolling further doesn't ask again.
+        assertEquals(0, pager.pageToLoad(8, 19));
+        assertTrue(pager.isLoading(2));
+
+        NewsPager.Change change = pager.onPageLoaded(2, page(2, 20));
+        assertFalse(change.atStart);
+        assertEquals(0, change.removed);
+        assertEquals(40, pager.getItems().size());
+    }
+
+    @Test
+    public void onPageLoaded_beyondMaxPages_dropsFarthestPage() {
+        NewsPager pager = new NewsPager(5, 2);
+        pager.reset(page(1, 20));
+        pager.onPageLoaded(pager.pageToLoad(10, 19), page(2, 20));
+
+        assertEquals(3, pager.pageToLoad(30, 39));
+        NewsPager.Change change = pager.onPageLoaded(3, page(3, 20));
+        assertEquals(20, change.removed);
+        assertEquals(2, pager.getFirstPage());
+        assertEquals(3, pager.getLastPage());
+        assertEquals("world/2-0", pager.getItems().get(0).getId());
+
+        // Scrolling back to the top brings the first page back and drops the last one.
+        assertEquals(1, pager.pageToLoad(0, 9));
+        change = pager.onPageLoaded(1, page(1, 20));
+        assertTrue(change.atStart);
+        assertEquals(20, change.removed);
+        assertEquals(1, pager.getFirstPage());
+        assertEquals(2, pager.getLastPage());
+    }
+
+    @Test
+    public void onPageLoaded_emptyPage_stopsLoadingMore() {
+        NewsPager pager = new NewsPager(5, 3);
+        pager.reset(page(1, 20));
+        assertEquals(2, pager.pageToLoad(10, 19));
+        assertNull(pager.onPageLoaded(2, Collections.<News>emptyList()));
+        assertEquals(0, pager.pageToLoad(10, 19));
+    }
+
+    @Test
+    public void onPageLoaded_afterReset_isIgnored() {
+        NewsPager pager = new NewsPager(5, 3);
+        pager.reset(page(1, 20));
+        assertEquals(2, pager.pageToLoad(10, 19));
+        pager.reset(page(1, 20));
+        assertNull(pager.onPageLoaded(2, page(2, 20)));
+        assertEquals(20, pager.getItems().size());
+    }
+
+    @Test
+    public void updateFirstPage_keepsTheLaterPagesAndThoseInFlight() {
+        NewsPager pager = new NewsPager(5, 3);
+        pager.reset(page(1, 20));
+        pager.onPageLoaded(pager.pageToLoad(10, 19), page(2, 20));
+        assertEquals(3, pager.pageToLoad(30, 39));
+
+        // The network result comes after the stored one, with a new article on top.
+        List<News> fresh = page(0, 1);
+        fresh.addAll(page(1, 19));
+        assertTrue(pager.updateFirstPage(fresh));
+
+        assertEquals(40, pager.getItems().size());
+        assertEquals("world/0-0", pager.getItems().get(0).getId());
+        assertEquals(2, pager.getLastPage());
+        assertTrue(pager.isLoading(3));
+        // Page 2 isn't asked for again.
+        assertEquals(0, pager.pageToLoad(10, 19));
+        assertNotNull(pager.onPageLoaded(3, page(3, 20)));
+    }
+
+    @Test
+    public void updateFirstPage_droppedOrFailed_keepsTheList() {
+        NewsPager pager = new NewsPager(5, 2);
+        pager.reset(page(1, 20));
+        assertFalse(pager.updateFirstPage(null));
+        pager.onPageLoaded(pager.pageToLoad(10, 19), page(2, 20));
+        pager.onPageLoaded(pager.pageToLoad(30, 39), page(3, 20));
+
+        assertFalse(pager.updateFirstPage(page(1, 20)));
+        assertEquals(2, pager.getFirstPage());
+        assertEquals("world/2-0", pager.getItems().get(0).getId());
+    }
+
+    @Test
+    public void onPageLoaded_dropsArticlesAlreadyInTheList() {
+        NewsPager pager = new NewsPager(5, 3);
+        pager.reset(page(1, 20));
+        // Tagged with two sections, it comes back on the next page of the other one.
+        List<News> next = page(2, 19);
+        next.add(page(1, 20).get(3));
+
+        pager.onPageLoaded(pager.pageToLoad(10, 19), next);
+
+        assertEquals(39, pager.getItems().size());
+        assertEquals(2, pager.getLastPage());
+    }
+
+}
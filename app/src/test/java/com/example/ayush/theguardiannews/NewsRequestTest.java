@@ -0,0 +1,61 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class NewsRequestTest {
+
+    @Test
+    public void cacheKey_doesNotDependOnTheOrderOfTheParameters() {
+        NewsRequest a = NewsRequest.search().section("sport").pageSize(20).orderBy("newest").build();
+        NewsRequest b = NewsRequest.search().orderBy("newest").pageSize(20).section("sport").build();
+
+        assertEquals("search?order-by=newest&page-size=20&section=sport", a.getCacheKey());
+        assertEquals(a.getCacheKey(), b.getCacheKey());
+        assertEquals(a.toUrl(), b.toUrl());
+        assertEquals(a, b);
+    }
+
+    @Test
+    public void cacheKey_leavesOutDefaults() {
+        NewsRequest all = NewsRequest.search().section(null).page(1).query("").build();
+
+        assertEquals("search", all.getCacheKey());
+        assertEquals(NewsRequest.search().page(2).build().getCacheKey(), "search?page=2");
+    }
+
+    @Test
+    public void toUrl_encodesValuesAndAddsTheApiKey() {
+        String url = NewsRequest.search().query("climate change").orderBy("relevance").build().toUrl();
+
+        assertTrue(url, url.startsWith("https://content.guardianapis.com/search?"
+                + "order-by=relevance&q=climate+change&api-key="));
+    }
+
+    @Test
+    public void item_isRequestedByItsPath() {
+        NewsRequest item = NewsRequest.item("world/2018/sep/05/slug").build();
+
+        assertTrue(item.toUrl().startsWith("https://content.guardianapis.com/world/2018/sep/05/slug?api-key="));
+    }
+
+    @Test
+    public void buildUpon_keepsTheParameters() {
+        NewsRequest first = NewsRequest.search().section("sport").pageSize(20).build();
+        NewsRequest second = first.buildUpon().page(2).build();
+
+        assertEquals("search?page=2&page-size=20&section=sport", second.getCacheKey());
+        assertEquals("search?page-size=20&section=sport", first.getCacheKey());
+    }
+
+    @Test
+    public void keyOf_joinsTheSections() {
+        assertEquals("search?section=sport | search?section=world", NewsRequest.keyOf(Arrays.asList(
+                NewsRequest.search().section("sport").build(),
+                NewsRequest.search().section("world").build())));
+    }
+
+}
@@ -0,0 +1,274 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link NewsSearch} with the test thread standing in for the main thread, a clock that
+ * only moves when told to, and a backend answering every query with one article.
+ */
+public class NewsSearchTest {
+
+    private final FakeMainThread mMainThread = new FakeMainThread();
+    private final FakeBackend mBackend = new FakeBackend();
+    private final RecordingListener mListener = new RecordingListener();
+
+    private NewsSearch mSearch;
+
+    @Before
+    public void setUp() {
+        FetchEngine engine = new FetchEngine(2, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        mSearch = new NewsSearch(mListener, mBackend, mMainThread, engine, new ResultCache(4, 60000));
+    }
+
+    @Test
+    public void normalize_sameSearch_sharesCacheKey() {
+        assertEquals("brexit vote", NewsSearch.normalize("  Brexit \t VOTE "));
+        assertEquals(NewsSearch.normalize("brexit vote"), NewsSearch.normalize("Brexit  vote"));
+    }
+
+    @Test
+    public void normalize_nullOrBlank_isEmpty() {
+        assertEquals("", NewsSearch.normalize(null));
+        assertEquals("", NewsSearch.normalize("   "));
+    }
+
+    @Test
+    public void setQuery_whileTyping_onlySearchesWhereTheUserPaused() throws InterruptedException {
+        mSearch.setQuery("b");
+        mMainThread.advance(100);
+        mSearch.setQuery("br");
+        mMainThread.advance(100);
+        mSearch.setQuery("brexit");
+        mMainThread.advance(NewsSearch.DEBOUNCE_MILLIS - 1);
+        assertTrue(mListener.mStarted.isEmpty());
+
+        mMainThread.advance(1);
+        mMainThread.runUntil(mListener, 1);
+
+        assertEquals(Collections.singletonList("brexit"), mListener.mStarted);
+        assertEquals(Collections.singletonList("brexit"), mBackend.mFetched);
+        assertEquals("brexit", mListener.mResults.get(0));
+    }
+
+    @Test
+    public void setQuery_newQuery_cancelsTheRequestInFlight() throws InterruptedException {
+        mBackend.mBlocked = "brexit";
+        mSearch.submit("brexit");
+        assertTrue(mBackend.mBlockedStarted.await(5, TimeUnit.SECONDS));
+
+        mSearch.submit("vote");
+
+        assertTrue("Not interrupted", mBackend.mInterrupted.await(5, TimeUnit.SECONDS));
+        mMainThread.runUntil(mListener, 1);
+        assertEquals(Collections.singletonList("vote"), mListener.mResults);
+    }
+
+    @Test
+    public void results_ofASupersededQuery_areDropped() throws InterruptedException {
+        // Comes back even though it was cancelled, like a response already read.
+        mBackend.mBlocked = "brexit";
+        mBackend.mIgnoreInterrupts = true;
+        mSearch.submit("brexit");
+        assertTrue(mBackend.mBlockedStarted.await(5, TimeUnit.SECONDS));
+        mSearch.submit("vote");
+        mMainThread.runUntil(mListener, 1);
+
+        mBackend.mRelease.countDown();
+        mMainThread.runPosted(1);
+
+        assertEquals(Collections.singletonList("vote"), mListener.mResults);
+    }
+
+    @Test
+    public void setQuery_recentQuery_isServedFromTheCache() throws InterruptedException {
+        mSearch.submit("brexit");
+        mMainThread.runUntil(mListener, 1);
+        mSearch.submit("vote");
+        mMainThread.runUntil(mListener, 2);
+
+        // Backspacing to an earlier query shows its results at once.
+        mSearch.setQuery("Brexit ");
+
+        assertEquals(3, mListener.mResults.size());
+        assertEquals("brexit", mListener.mResults.get(2));
+        assertEquals(2, mBackend.mFetched.size());
+        assertEquals(0, mMainThread.delayedCount());
+    }
+
+    /**
+     * Answers with one article whose id is the query; can hold one query until released.
+     */
+    private static class FakeBackend implements NewsSearch.Backend {
+
+        final List<String> mFetched = new CopyOnWriteArrayList<>();
+        final CountDownLatch mBlockedStarted = new CountDownLatch(1);
+        final CountDownLatch mRelease = new CountDownLatch(1);
+        final CountDownLatch mInterrupted = new CountDownLatch(1);
+        volatile String mBlocked;
+        volatile boolean mIgnoreInterrupts;
+
+        @Override
+        public NewsRequest buildRequest(String query) {
+            return NewsRequest.search().query(query).build();
+        }
+
+        @Override
+        public List<News> searchStored(String query, int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<News> fetch(NewsRequest request) throws IOException {
+            String query = request.getParameter("q");
+            mFetched.add(query);
+            if (query.equals(mBlocked)) {
+                mBlockedStarted.countDown();
+                while (true) {
+                    try {
+                        if (mRelease.await(5, TimeUnit.SECONDS)) {
+                            break;
+                        }
+                    } catch (InterruptedException e) {
+                        mInterrupted.countDown();
+                        if (!mIgnoreInterrupts) {
+                            throw new InterruptedIOException();
+                        }
+                    }
+                }
+            }
+            List<News> news = new ArrayList<>();
+            news.add(new News(query, "Title", "World news", "2018-09-05T14:30:00Z",
+                    "https://www.theguardian.com/" + query, ""));
+            return news;
+        }
+    }
+
+    private static class RecordingListener implements NewsSearch.Listener {
+
+        final List<String> mStarted = new ArrayList<>();
+
+        /**
+         * Id of the first article of every result, "null" for a failed search.
+         */
+        final List<String> mResults = new ArrayList<>();
+
+        @Override
+        public void onSearchStarted(String query) {
+            mStarted.add(query);
+        }
+
+        @Override
+        public void onSearchResults(String query, List<News> news) {
+            mResults.add(news == null ? "null" : news.isEmpty() ? "" : news.get(0).getId());
+        }
+    }
+
+    /**
+     * Posted tasks wait in a queue for the test to run them; delayed ones until the clock
+     * is advanced past them.
+     */
+    private static class FakeMainThread implements NewsSearch.MainThread {
+
+        private final BlockingQueue<Runnable> mPosted = new LinkedBlockingQueue<>();
+        private final List<Delayed> mDelayed = new ArrayList<>();
+        private long mNow;
+
+        @Override
+        public void post(Runnable task) {
+            mPosted.add(task);
+        }
+
+        @Override
+        public synchronized void postDelayed(Runnable task, long delayMillis) {
+            mDelayed.add(new Delayed(task, mNow + delayMillis));
+        }
+
+        @Override
+        public synchronized void removeCallbacks(Runnable task) {
+            Iterator<Delayed> iterator = mDelayed.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().task == task) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        synchronized int delayedCount() {
+            return mDelayed.size();
+        }
+
+        /**
+         * Moves the clock on, running the delayed tasks that came due.
+         */
+        void advance(long millis) {
+            mNow += millis;
+            List<Runnable> due = new ArrayList<>();
+            synchronized (this) {
+                Iterator<Delayed> iterator = mDelayed.iterator();
+                while (iterator.hasNext()) {
+                    Delayed delayed = iterator.next();
+                    if (delayed.at <= mNow) {
+                        due.add(delayed.task);
+                        iterator.remove();
+                    }
+                }
+            }
+            for (Runnable task : due) {
+                task.run();
+            }
+        }
+
+        /**
+         * Runs posted tasks until the listener has the given number of results.
+         */
+        void runUntil(RecordingListener listener, int results) throws InterruptedException {
+            while (listener.mResults.size() < results) {
+                runPosted(1);
+            }
+        }
+
+        /**
+         * Waits for and runs the given number of posted tasks.
+         */
+        void runPosted(int count) throws InterruptedException {
+            for (int i = 0; i < count; i++) {
+                Runnable task = mPosted.poll(5, TimeUnit.SECONDS);
+                assertNotNull("Nothing was posted", task);
+                task.run();
+            }
+        }
+
+        private static final class Delayed {
+
+            final Runnable task;
+            final long at;
+
+            Delayed(Runnable task, long at) {
+                this.task = task;
+                this.at = at;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NewsSnapshotTest {
+
+    private static byte[] write(List<News> news) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NewsSnapshot.write(out, news);
+        return out.toByteArray();
+    }
+
+    private static List<News> fixture(int pageSize) throws IOException {
+        return NewsJsonParser.parse(new ByteArrayInputStream(
+                NewsJsonParserTest.readFixture("search_page_" + pageSize + ".json")));
+    }
+
+    @Test
+    public void roundTrip_recordedFeeds() throws IOException {
+        for (int pageSize : new int[]{10, 50, 200}) {
+            List<News> news = fixture(pageSize);
+            List<News> read = NewsSnapshot.read(ByteBuffer.wrap(write(news)));
+            assertEquals(news, read);
+            for (int i = 0; i < news.size(); i++) {
+                assertEquals(news.get(i).getPublicationTime(), read.get(i).getPublicationTime());
+            }
+        }
+    }
+
+    @Test
+    public void roundTrip_valuesThatDontCompact() throws IOException {
+        List<News> news = Arrays.asList(
+                new News("", "No id", "", "", "https://example.com/a", ""),
+                new News("world/1", "Odd date", "World news", "2018-09-05T14:30:00.123Z",
+                        "https://www.theguardian.com/world/1", "by Alex Hern"),
+                new News("world/2", "Other site é中", "World news", "not a date",
+                        "http://theguardian.com/world/2", "by Alex Hern"),
+                new News("world/3", "Before the epoch", "World news", "1969-07-20T20:17:40Z",
+                        "https://www.theguardian.com/world/3", ""));
+        assertEquals(news, NewsSnapshot.read(ByteBuffer.wrap(write(news))));
+        assertEquals(Collections.<News>emptyList(),
+                NewsSnapshot.read(ByteBuffer.wrap(write(Collections.<News>emptyList()))));
+    }
+
+    @Test
+    public void write_internsRepeatedValues() throws IOException {
+        List<News> news = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            news.add(new News("world/" + i, "Title", "World news", "2018-09-05T14:30:00Z",
+                    "https://www.theguardian.com/world/" + i, "by Alex Hern"));
+        }
+        // Per article: flags, section, one contributor, time, id, title and a 4 byte offset.
+        assertTrue(write(news).length < 100 * 25);
+    }
+
+    @Test
+    public void read_decodesOnlyWhatIsAskedFor() throws IOException {
+        List<News> news = NewsSnapshot.read(ByteBuffer.wrap(write(fixture(200))));
+        assertEquals(200, news.size());
+        assertEquals(0, NewsSnapshot.decodedCount(news));
+
+        news.get(0);
+        news.get(199);
+        assertEquals(2, NewsSnapshot.decodedCount(news));
+    }
+
+    @Test
+    public void read_versionOne_keepsTheByline() throws IOException {
+        // A version 1 snapshot of a single article with a single byline.
+        Buffer v1 = new Buffer();
+        v1.write(1);
+        v1.writeVarint(2);
+        v1.writeString("World news");
+        v1.writeString("by Alex Hern");
+        v1.writeVarint(1536157800);
+        v1.writeVarint(1);
+        v1.writeInt(0);
+        v1.write(1);
+        v1.writeVarint(0);
+        v1.writeVarint(1);
+        v1.writeVarint(0);
+        v1.writeString("world/1");
+        v1.writeString("Title");
+
+        List<News> news = NewsSnapshot.read(ByteBuffer.wrap(v1.toByteArray()));
+        assertEquals(new News("world/1", "Title", "World news", "2018-09-05T14:30:00Z",
+                "https://www.theguardian.com/world/1", "by Alex Hern"), news.get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_unknownVersion_throws() throws IOException {
+        byte[] bytes = write(fixture(10));
+        bytes[0] = (byte) (NewsSnapshot.SCHEMA_VERSION + 1);
+        NewsSnapshot.read(ByteBuffer.wrap(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_truncatedHeader_throws() throws IOException {
+        byte[] bytes = write(fixture(10));
+        NewsSnapshot.read(ByteBuffer.wrap(Arrays.copyOf(bytes, 20)));
+    }
+
+    /**
+     * Writes the parts of a snapshot by hand.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+
+        void writeVarint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes("UTF-8");
+            writeVarint(bytes.length);
+            write(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the fetch and parse pipeline against {@link FakeGuardianServer}.
+ */
+public class QueryUtilsTest {
+
+    private FakeGuardianServer mServer;
+    private NewsApi mApi;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new FakeGuardianServer();
+        mApi = new QueryUtils(new NewsHttpClient(null, 0));
+        QueryUtils.setDefault(mApi);
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setDefault(null);
+        mServer.stop();
+    }
+
+    @Test
+    public void fetchNews_readsSmallAndLargePages() throws IOException {
+        for (int pageSize : new int[]{10, 50, 200, 1000}) {
+            List<News> news = mApi.fetchNews(mServer.searchUrl("page-size=" + pageSize));
+            assertEquals(pageSize, news.size());
+        }
+    }
+
+    @Test
+    public void fetchNews_errorCode_throws() throws IOException {
+        mServer.failNext(429, 1);
+        try {
+            mApi.fetchNews(mServer.searchUrl("page-size=10"));
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("429"));
+        }
+        // The next one goes through.
+        assertEquals(10, mApi.fetchNews(mServer.searchUrl("page-size=10")).size());
+    }
+
+    @Test
+    public void fetchNews_slowBody_isReadToTheEnd() throws IOException {
+        mServer.setSlowBody(4096, 5);
+        assertEquals(50, mApi.fetchNews(mServer.searchUrl("page-size=50")).size());
+    }
+
+    @Test
+    public void multiSectionFetch_takesAboutOneRequest() {
+        mServer.setLatencyMillis(300);
+        List<String> urls = Arrays.asList(
+                mServer.searchUrl("section=politics&page-size=10"),
+                mServer.searchUrl("section=sport&page-size=10"),
+                mServer.searchUrl("section=business&page-size=10"));
+
+        long start = System.nanoTime();
+        MultiSectionFetcher.Result result = MultiSectionFetcher.fetch(urls, "newest");
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(30, result.getNews().size());
+        assertTrue(result.isComplete());
+        assertEquals(3, mServer.getRequestCount());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 600);
+    }
+
+}
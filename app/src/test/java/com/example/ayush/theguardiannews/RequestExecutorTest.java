@@ -0,0 +1,128 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link RequestExecutor} against {@link FakeGuardianServer}.
+ */
+public class RequestExecutorTest {
+
+    private FakeGuardianServer mServer;
+    private NewsApi mApi;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new FakeGuardianServer();
+        mApi = new RequestExecutor(new QueryUtils(new NewsHttpClient(null, 0)),
+                new TokenBucket(100, 100), 3, 10);
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop();
+    }
+
+    @Test
+    public void transientFailures_areRetried() throws IOException {
+        mServer.failNext(503, 2);
+        assertEquals(10, mApi.fetchNews(mServer.searchUrl("page-size=10")).size());
+        assertEquals(3, mServer.getRequestCount());
+    }
+
+    @Test
+    public void clientErrors_areNotRetried() {
+        mServer.failNext(403, 1);
+        try {
+            mApi.fetchNews(mServer.searchUrl("page-size=10"));
+            fail("Expected an HttpStatusException");
+        } catch (HttpStatusException expected) {
+            assertEquals(403, expected.getCode());
+        } catch (IOException e) {
+            fail("Expected an HttpStatusException, got " + e);
+        }
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void rateLimited_waitsForRetryAfter() throws IOException {
+        mServer.failNext(429, 1, "1");
+
+        long start = System.nanoTime();
+        assertEquals(10, mApi.fetchNews(mServer.searchUrl("page-size=10")).size());
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(2, mServer.getRequestCount());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis >= 1000);
+    }
+
+    @Test
+    public void backgroundRequests_leaveTheForegroundTokensAlone() throws IOException {
+        // One token, and the next one in 100 s.
+        RequestExecutor api = new RequestExecutor(new QueryUtils(new NewsHttpClient(null, 0)),
+                new TokenBucket(1, 0.01), 3, 10);
+        assertSame(api.inBackground(), api.inBackground());
+        api.inBackground().fetchNews(mServer.searchUrl("section=sport&page-size=10"));
+
+        long start = System.nanoTime();
+        assertEquals(10, api.fetchNews(mServer.searchUrl("section=world&page-size=10")).size());
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(2, mServer.getRequestCount());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 5000);
+    }
+
+    @Test
+    public void identicalRequests_areCoalesced() throws Exception {
+        mServer.setLatencyMillis(300);
+        final String url = mServer.searchUrl("section=sport&page-size=10");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<News>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<List<News>>() {
+                    @Override
+                    public List<News> call() throws IOException {
+                        return mApi.fetchNews(url);
+                    }
+                }));
+            }
+            for (Future<List<News>> result : results) {
+                assertEquals(10, result.get().size());
+                assertSame(results.get(0).get(), result.get());
+            }
+            try {
+                results.get(0).get().clear();
+                fail("Callers share the list, it mustn't change under the others");
+            } catch (UnsupportedOperationException expected) {
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, mServer.getRequestCount());
+    }
+
+    @Test
+    public void tokenBucket_allowsBurstThenRefills() {
+        TokenBucket bucket = new TokenBucket(2, 10);
+        long now = System.nanoTime();
+
+        assertEquals(0, bucket.reserve(now));
+        assertEquals(0, bucket.reserve(now));
+        long wait = bucket.reserve(now);
+        assertTrue("Waited " + wait, wait > 0 && wait <= 100000000L);
+        assertEquals(0, bucket.reserve(now + 100000000L));
+    }
+
+}
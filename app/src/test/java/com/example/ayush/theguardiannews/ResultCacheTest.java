@@ -0,0 +1,40 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    private static final List<News> NEWS = Collections.singletonList(new News("world/1", "Title",
+            "World news", "2018-09-05T14:30:00Z", "https://www.theguardian.com/world/1",
+            Collections.<String>emptyList()));
+
+    @Test
+    public void get_servesUntilTheTtl() {
+        ResultCache cache = new ResultCache(4, 1000);
+        cache.put("sport", NEWS, 0);
+
+        assertSame(NEWS, cache.get("sport", 999));
+        assertNull(cache.get("sport", 1000));
+        assertNull(cache.get("world", 0));
+    }
+
+    @Test
+    public void put_overMaxEntries_dropsLeastRecentlyUsed() {
+        ResultCache cache = new ResultCache(2, 1000);
+        cache.put("sport", NEWS, 0);
+        cache.put("world", NEWS, 0);
+        cache.get("sport", 0);
+
+        cache.put("film", NEWS, 0);
+
+        assertNotNull(cache.get("sport", 0));
+        assertNull(cache.get("world", 0));
+        assertNotNull(cache.get("film", 0));
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.Assert.*;
+
+public class StartupPrefetchTest {
+
+    private static final MultiSectionFetcher.Result NEWS = new MultiSectionFetcher.Result(
+            Collections.singletonList(new News("world/1", "Title", "World news",
+                    "2018-09-05T14:30:00Z", "https://www.theguardian.com/world/1",
+                    Collections.<String>emptyList())), true);
+
+    @After
+    public void tearDown() {
+        // Drops whatever a test left behind.
+        StartupPrefetch.take("", 0);
+    }
+
+    @Test
+    public void take_sameKey_handsOverTheFetchOnce() {
+        Future<MultiSectionFetcher.Result> task = fetched(NEWS);
+        StartupPrefetch.hold("sport", task, 1000);
+
+        assertSame(task, StartupPrefetch.take("sport", 2000));
+        assertNull(StartupPrefetch.take("sport", 2000));
+    }
+
+    @Test
+    public void take_otherKey_dropsTheFetch() {
+        StartupPrefetch.hold("sport", fetched(NEWS), 1000);
+
+        assertNull(StartupPrefetch.take("world", 2000));
+        // Only the first loader could have had it.
+        assertNull(StartupPrefetch.take("sport", 2000));
+    }
+
+    @Test
+    public void take_afterTheTtl_dropsTheFetch() {
+        StartupPrefetch.hold("sport", fetched(NEWS), 1000);
+
+        assertNull(StartupPrefetch.take("sport", 1000 + StartupPrefetch.TTL_MILLIS));
+    }
+
+    @Test
+    public void await_returnsTheFetchedArticles() {
+        assertSame(NEWS, StartupPrefetch.await(fetched(NEWS)));
+        assertNull(StartupPrefetch.await(fetched(null)));
+    }
+
+    @Test
+    public void await_failedFetch_returnsNull() {
+        FutureTask<MultiSectionFetcher.Result> task = new FutureTask<>(new Callable<MultiSectionFetcher.Result>() {
+            @Override
+            public MultiSectionFetcher.Result call() {
+                throw new IllegalStateException("No network");
+            }
+        });
+        task.run();
+
+        assertNull(StartupPrefetch.await(task));
+    }
+
+    private static Future<MultiSectionFetcher.Result> fetched(final MultiSectionFetcher.Result result) {
+        FutureTask<MultiSectionFetcher.Result> task = new FutureTask<>(new Callable<MultiSectionFetcher.Result>() {
+            @Override
+            public MultiSectionFetcher.Result call() {
+                return result;
+            }
+        });
+        task.run();
+        return task;
+    }
+
+}
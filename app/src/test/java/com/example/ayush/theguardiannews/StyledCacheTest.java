@@ -0,0 +1,86 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the cache of {@link TitleLayouts} with strings standing in for the layouts.
+ */
+public class StyledCacheTest {
+
+    private static final TitleLayouts.Style NARROW = new TitleLayouts.Style(16f, 0xff000000, null, 300, 3);
+    private static final TitleLayouts.Style WIDE = new TitleLayouts.Style(16f, 0xff000000, null, 600, 3);
+
+    @Test
+    public void style_sameValues_matches() {
+        TitleLayouts.Style same = new TitleLayouts.Style(16f, 0xff000000, null, 300, 3);
+
+        assertEquals(NARROW, same);
+        assertEquals(NARROW.hashCode(), same.hashCode());
+        assertNotEquals(NARROW, WIDE);
+        assertNotEquals(NARROW, new TitleLayouts.Style(18f, 0xff000000, null, 300, 3));
+        assertNotEquals(NARROW, new TitleLayouts.Style(16f, 0xff000000, null, 300, 2));
+    }
+
+    @Test
+    public void get_beforeAStyleIsSet_missesAndDropsPuts() {
+        StyledCache<TitleLayouts.Style, String> cache = new StyledCache<>(4);
+        cache.put(NARROW, "Title", "layout");
+
+        assertNull(cache.getStyle());
+        assertNull(cache.get(NARROW, "Title"));
+    }
+
+    @Test
+    public void get_keysTitlesByTheirCharacters() {
+        StyledCache<TitleLayouts.Style, String> cache = new StyledCache<>(4);
+        cache.setStyle(NARROW);
+        cache.put(NARROW, "Title", "layout");
+
+        // A view hands back its text as a CharSequence of another class.
+        assertEquals("layout", cache.get(NARROW, new StringBuilder("Title")));
+        assertEquals("layout", cache.get(new TitleLayouts.Style(16f, 0xff000000, null, 300, 3), "Title"));
+    }
+
+    @Test
+    public void setStyle_otherStyle_dropsTheLayouts() {
+        StyledCache<TitleLayouts.Style, String> cache = new StyledCache<>(4);
+        assertTrue(cache.setStyle(NARROW));
+        cache.put(NARROW, "Title", "narrow");
+
+        assertFalse(cache.setStyle(new TitleLayouts.Style(16f, 0xff000000, null, 300, 3)));
+        assertEquals(1, cache.size());
+
+        assertTrue(cache.setStyle(WIDE));
+        assertEquals(0, cache.size());
+        assertNull(cache.get(NARROW, "Title"));
+    }
+
+    @Test
+    public void put_inAStyleNoLongerCurrent_isDropped() {
+        StyledCache<TitleLayouts.Style, String> cache = new StyledCache<>(4);
+        cache.setStyle(NARROW);
+        // A loader laid this out before the rotation changed the width.
+        cache.setStyle(WIDE);
+        cache.put(NARROW, "Title", "narrow");
+
+        assertNull(cache.get(WIDE, "Title"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_overMaxEntries_evictsLeastRecentlyUsed() {
+        StyledCache<TitleLayouts.Style, String> cache = new StyledCache<>(2);
+        cache.setStyle(NARROW);
+        cache.put(NARROW, "a", "A");
+        cache.put(NARROW, "b", "B");
+        cache.get(NARROW, "a");
+        cache.put(NARROW, "c", "C");
+
+        assertEquals("A", cache.get(NARROW, "a"));
+        assertNull(cache.get(NARROW, "b"));
+        assertEquals("C", cache.get(NARROW, "c"));
+    }
+
+}
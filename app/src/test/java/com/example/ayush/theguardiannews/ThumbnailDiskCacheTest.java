@@ -0,0 +1,68 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+public class ThumbnailDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void put_thenGet_returnsTheFile() throws Exception {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(new File(folder.getRoot(), "thumbnails"), 1024 * 1024);
+        assertNull(cache.get("https://media.guim.co.uk/a/500.jpg"));
+
+        File file = cache.put("https://media.guim.co.uk/a/500.jpg", new ByteArrayInputStream(new byte[100]));
+        assertEquals(100, file.length());
+        assertEquals(file, cache.get("https://media.guim.co.uk/a/500.jpg"));
+        assertNull(cache.get("https://media.guim.co.uk/b/500.jpg"));
+    }
+
+    @Test
+    public void put_failingStream_keepsNothing() throws Exception {
+        File directory = folder.newFolder();
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(directory, 1024 * 1024);
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        try {
+            cache.put("url", broken);
+            fail();
+        } catch (IOException expected) {
+            // Expected
+        }
+        assertNull(cache.get("url"));
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void put_overSizeLimit_dropsLeastRecentlyShown() throws Exception {
+        File directory = folder.newFolder();
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(directory, 3000);
+        cache.put("a", new ByteArrayInputStream(new byte[1000])).setLastModified(1000);
+        cache.put("b", new ByteArrayInputStream(new byte[1000])).setLastModified(2000);
+        cache.put("c", new ByteArrayInputStream(new byte[1000])).setLastModified(3000);
+        // Shown again, so it is the most recent now.
+        assertNotNull(cache.get("a"));
+
+        cache.put("d", new ByteArrayInputStream(new byte[1000]));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+    }
+
+}
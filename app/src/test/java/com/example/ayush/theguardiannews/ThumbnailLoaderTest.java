@@ -0,0 +1,25 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThumbnailLoaderTest {
+
+    @Test
+    public void sampleSize_keepsTheTargetCovered() {
+        // A 500x300 Guardian thumbnail into a 288x216 view at xxhdpi: halving it would be too small.
+        assertEquals(1, ThumbnailLoader.sampleSize(500, 300, 288, 216));
+        // The same view at mdpi.
+        assertEquals(4, ThumbnailLoader.sampleSize(500, 300, 96, 72));
+        // Bound by the height alone.
+        assertEquals(2, ThumbnailLoader.sampleSize(2000, 300, 96, 100));
+    }
+
+    @Test
+    public void sampleSize_smallOrUnknown_doesNotScale() {
+        assertEquals(1, ThumbnailLoader.sampleSize(50, 30, 96, 72));
+        assertEquals(1, ThumbnailLoader.sampleSize(500, 300, 0, 72));
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.example.ayush.theguardiannews;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link ThumbnailMemoryCache} with plain objects standing in for the bitmaps.
+ */
+public class ThumbnailMemoryCacheTest {
+
+    private static final ThumbnailMemoryCache.Measure<FakeBitmap> MEASURE =
+            new ThumbnailMemoryCache.Measure<FakeBitmap>() {
+                @Override
+                public int sizeOf(FakeBitmap bitmap) {
+                    return bitmap.bytes;
+                }
+
+                @Override
+                public int reusableBytes(FakeBitmap bitmap) {
+                    return bitmap.mutable ? bitmap.bytes : 0;
+                }
+            };
+
+    @Test
+    public void release_lastRow_makesAnEvictedBitmapReusable() {
+        ThumbnailMemoryCache<FakeBitmap> cache = new ThumbnailMemoryCache<>(100, MEASURE);
+        FakeBitmap first = new FakeBitmap(100, true);
+        cache.putAndAcquire("first", first);
+        assertSame(first, cache.acquire("first"));
+
+        // Evicted while two rows still show it.
+        cache.putAndAcquire("second", new FakeBitmap(100, true));
+        assertNull(cache.acquire("first"));
+        assertNull(cache.takeReusable(100));
+
+        cache.release(first);
+        assertNull(cache.takeReusable(100));
+        cache.release(first);
+        assertSame(first, cache.takeReusable(100));
+        assertNull(cache.takeReusable(100));
+    }
+
+    @Test
+    public void evict_bitmapNotShown_isReusableAtOnce() {
+        ThumbnailMemoryCache<FakeBitmap> cache = new ThumbnailMemoryCache<>(100, MEASURE);
+        FakeBitmap first = new FakeBitmap(60, true);
+        cache.putAndAcquire("first", first);
+        cache.release(first);
+        assertEquals(0, cache.inUseCount());
+
+        cache.putAndAcquire("second", new FakeBitmap(60, true));
+
+        assertNull(cache.acquire("first"));
+        // Too small for a bigger decode, fine for one of its size.
+        assertNull(cache.takeReusable(80));
+        assertSame(first, cache.takeReusable(60));
+    }
+
+    @Test
+    public void evict_leastRecentlyUsedFirst() {
+        ThumbnailMemoryCache<FakeBitmap> cache = new ThumbnailMemoryCache<>(100, MEASURE);
+        cache.putAndAcquire("a", new FakeBitmap(40, true));
+        cache.putAndAcquire("b", new FakeBitmap(40, true));
+        assertNotNull(cache.acquire("a"));
+
+        cache.putAndAcquire("c", new FakeBitmap(40, true));
+
+        assertNotNull(cache.acquire("a"));
+        assertNull(cache.acquire("b"));
+        assertNotNull(cache.acquire("c"));
+    }
+
+    @Test
+    public void takeReusable_immutableBitmap_isNeverReused() {
+        ThumbnailMemoryCache<FakeBitmap> cache = new ThumbnailMemoryCache<>(100, MEASURE);
+        FakeBitmap immutable = new FakeBitmap(100, false);
+        cache.putAndAcquire("first", immutable);
+        cache.release(immutable);
+
+        cache.trim(true);
+
+        assertNull(cache.acquire("first"));
+        assertNull(cache.takeReusable(1));
+    }
+
+    @Test
+    public void release_unknownBitmap_isIgnored() {
+        ThumbnailMemoryCache<FakeBitmap> cache = new ThumbnailMemoryCache<>(100, MEASURE);
+        cache.release(new FakeBitmap(10, true));
+
+        assertEquals(0, cache.inUseCount());
+        assertNull(cache.takeReusable(1));
+    }
+
+    private static final class FakeBitmap {
+
+        final int bytes;
+        final boolean mutable;
+
+        FakeBitmap(int bytes, boolean mutable) {
+            this.bytes = bytes;
+            this.mutable = mutable;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.example.ayush.theguardiannews;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Recorded Guardian search responses, by page size.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static byte[] searchPage(int pageSize) throws IOException {
+        InputStream in = Fixtures.class.getResourceAsStream("/search_page_" + pageSize + ".json");
+        if (in == null) {
+            throw new IOException("No fixture for page size " + pageSize);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+}
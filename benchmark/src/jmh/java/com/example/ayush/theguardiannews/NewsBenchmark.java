@@ -0,0 +1,79 @@
+package com.example.ayush.theguardiannews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Building the {@link News} of a page and formatting their publication dates for the list.
+ */
+@State(Scope.Benchmark)
+public class NewsBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int pageSize;
+
+    private String[][] mFields;
+    private long[] mTimes;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<News> news = NewsJsonParser.parse(new ByteArrayInputStream(Fixtures.searchPage(pageSize)));
+        mFields = new String[news.size()][];
+        mTimes = new long[news.size()];
+        for (int i = 0; i < news.size(); i++) {
+            News article = news.get(i);
+            mFields[i] = new String[]{article.getId(), article.getTitle(), article.getSection(),
+                    article.getPublicationDate(), article.getUrl(), article.getAuthor()};
+            mTimes[i] = article.getPublicationTime();
+        }
+    }
+
+    /**
+     * Includes parsing the publication timestamp.
+     */
+    @Benchmark
+    public void construct(Blackhole blackhole) {
+        for (String[] fields : mFields) {
+            blackhole.consume(new News(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5]));
+        }
+    }
+
+    @Benchmark
+    public void formatDateTime(Blackhole blackhole) {
+        for (long time : mTimes) {
+            blackhole.consume(NewsFormatter.formatDate(time));
+            blackhole.consume(NewsFormatter.formatTime(time));
+        }
+    }
+
+    /**
+     * How NewsAdapter.formatDate and formatTime used to do it on every bind, for comparison.
+     */
+    @Benchmark
+    public void formatDateTimeOnBind(Blackhole blackhole) throws ParseException {
+        for (String[] fields : mFields) {
+            SimpleDateFormat inputDate = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
+            SimpleDateFormat outputDate = new SimpleDateFormat("LLL dd, yyyy", Locale.getDefault());
+            Date date = inputDate.parse(fields[3]);
+            blackhole.consume(outputDate.format(date));
+
+            SimpleDateFormat inputTime = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
+            SimpleDateFormat outputTime = new SimpleDateFormat("h:mm a", Locale.getDefault());
+            Date time = inputTime.parse(fields[3]);
+            blackhole.consume(outputTime.format(time));
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.example.ayush.theguardiannews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reading and parsing a search response, from the bytes off the wire to the list of
+ * {@link News}.
+ * <p>
+ * {@link #readFromStream()} and {@link #extractFeaturesFromJson()} together are the
+ * tree-based path; {@link #parseStreaming()} is the path the app takes now.
+ */
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int pageSize;
+
+    private byte[] mPayload;
+    private String mJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        mPayload = Fixtures.searchPage(pageSize);
+        mJson = QueryUtils.readFromStream(new ByteArrayInputStream(mPayload));
+    }
+
+    @Benchmark
+    public String readFromStream() throws IOException {
+        return QueryUtils.readFromStream(new ByteArrayInputStream(mPayload));
+    }
+
+    @Benchmark
+    public List<News> extractFeaturesFromJson() {
+        return QueryUtils.extractFeaturesFromJson(mJson);
+    }
+
+    @Benchmark
+    public List<News> parseStreaming() throws IOException {
+        return NewsJsonParser.parse(new ByteArrayInputStream(mPayload));
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.example.ayush.theguardiannews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Loading a stored feed from disk: the {@link NewsSnapshot} the {@link ArticleStore} keeps,
+ * memory-mapped and decoded lazily, against parsing the Guardian JSON again.
+ * <p>
+ * {@link #snapshotFirstScreen()} decodes as much as the first screen shows;
+ * {@link #snapshotAll()} decodes every article, like the JSON parsers have to.
+ */
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    /**
+     * Articles on the first screen of the list.
+     */
+    private static final int FIRST_SCREEN = 8;
+
+    @Param({"10", "50", "200"})
+    public int pageSize;
+
+    private List<News> mNews;
+    private File mJsonFile;
+    private File mSnapshotFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] payload = Fixtures.searchPage(pageSize);
+        mNews = NewsJsonParser.parse(new ByteArrayInputStream(payload));
+
+        mJsonFile = File.createTempFile("search", ".json");
+        OutputStream out = new FileOutputStream(mJsonFile);
+        try {
+            out.write(payload);
+        } finally {
+            out.close();
+        }
+
+        mSnapshotFile = File.createTempFile("search", ".snapshot");
+        out = new FileOutputStream(mSnapshotFile);
+        try {
+            NewsSnapshot.write(out, mNews);
+        } finally {
+            out.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mJsonFile.delete();
+        mSnapshotFile.delete();
+    }
+
+    @Benchmark
+    public int snapshotOpen() throws IOException {
+        return openSnapshot().size();
+    }
+
+    @Benchmark
+    public News snapshotFirstScreen() throws IOException {
+        List<News> news = openSnapshot();
+        News last = null;
+        for (int i = 0; i < Math.min(FIRST_SCREEN, news.size()); i++) {
+            last = news.get(i);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public News snapshotAll() throws IOException {
+        News last = null;
+        for (News news : openSnapshot()) {
+            last = news;
+        }
+        return last;
+    }
+
+    @Benchmark
+    public List<News> jsonStreaming() throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(mJsonFile));
+        try {
+            return NewsJsonParser.parse(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public List<News> jsonTree() throws IOException {
+        InputStream in = new FileInputStream(mJsonFile);
+        try {
+            return QueryUtils.extractFeaturesFromJson(QueryUtils.readFromStream(in));
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public byte[] snapshotWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NewsSnapshot.write(out, mNews);
+        return out.toByteArray();
+    }
+
+    private List<News> openSnapshot() throws IOException {
+        FileInputStream in = new FileInputStream(mSnapshotFile);
+        try {
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return NewsSnapshot.read(buffer);
+        } finally {
+            in.close();
+        }
+    }
+
+}